@@ -25,49 +25,92 @@ GRANT UNLIMITED TABLESPACE TO llmchat;
 -- llmchat 사용자로 전환하여 테이블 생성
 CONNECT llmchat/llmchat123@XE;
 
--- LLM 요청/응답 로그 테이블
+-- LLM 요청/응답 로그 테이블 (대량 기록용)
+-- - ID 는 CACHE 1000 identity 컬럼: 행마다 트리거/시퀀스 왕복 없이 세션이 번호를 미리 받아 둔다
+-- - REQUEST_TIME 기준 일 단위 interval 파티션: 새 날짜의 파티션은 자동 생성되고,
+--   보존 기간이 지난 파티션은 백엔드(LogRetentionService)가 DELETE 대신 DROP PARTITION 으로 지운다
+-- - 인덱스는 모두 LOCAL 이라 파티션을 지워도 인덱스 재구성이 필요 없다
+-- 파티셔닝은 Oracle EE 또는 XE 18c 이상이 필요하다
 CREATE TABLE LLM_LOGS (
-    ID NUMBER(19) PRIMARY KEY,
-    REQUEST_TIME TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    ID NUMBER(19) GENERATED BY DEFAULT AS IDENTITY (START WITH 1 CACHE 1000 NOORDER),
+    REQUEST_TIME TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
     ENGINE VARCHAR2(50) NOT NULL,
     PROMPT CLOB,
     RESPONSE CLOB,
+    -- body-storage=dedup 이면 PROMPT/RESPONSE 는 비워 두고 LLM_LOG_BODIES.HASH 참조만 채운다
+    PROMPT_HASH VARCHAR2(64),
+    RESPONSE_HASH VARCHAR2(64),
     RESPONSE_TIME_MS NUMBER(19),
     SUCCESS NUMBER(1) DEFAULT 1,
+    -- 요청 구간별 소요 시간 (마이크로초, 기록되지 않은 구간은 NULL). Server-Timing 헤더와 같은 구간
+    VALIDATE_US NUMBER(19),
+    TOKENIZE_US NUMBER(19),
+    QUEUE_US NUMBER(19),
+    LIMIT_US NUMBER(19),
+    CONNECT_US NUMBER(19),
+    UPSTREAM_US NUMBER(19),
+    TTFT_US NUMBER(19),
+    PARSE_US NUMBER(19),
     ERROR_MESSAGE VARCHAR2(1000),
     REQUEST_IP VARCHAR2(45),
     USER_AGENT VARCHAR2(500),
     CREATED_BY VARCHAR2(100) DEFAULT USER,
     CREATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     UPDATED_BY VARCHAR2(100) DEFAULT USER,
-    UPDATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    UPDATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT PK_LLM_LOGS PRIMARY KEY (ID, REQUEST_TIME) USING INDEX LOCAL
+)
+PARTITION BY RANGE (REQUEST_TIME) INTERVAL (NUMTODSINTERVAL(1, 'DAY'))
+(
+    PARTITION P_INITIAL VALUES LESS THAN (TIMESTAMP '2024-01-01 00:00:00')
 );
 
--- 시퀀스 생성
-CREATE SEQUENCE LLM_LOGS_SEQ
-    START WITH 1
-    INCREMENT BY 1
-    NOCACHE
-    NOCYCLE;
+-- 인덱스 생성 (LOCAL). 쓰기마다 갱신 비용이 드는 SUCCESS/CREATED_DATE 인덱스는 두지 않는다
+CREATE INDEX IDX_LLM_LOGS_TIME ON LLM_LOGS(REQUEST_TIME) LOCAL;
+CREATE INDEX IDX_LLM_LOGS_ENGINE ON LLM_LOGS(ENGINE) LOCAL;
+-- 참조가 없어진 본문 정리(LogRetentionService)의 NOT EXISTS 용. inline 저장이면 두 컬럼이 NULL 이라 인덱스에 들어가지 않는다
+CREATE INDEX IDX_LLM_LOGS_PROMPT_HASH ON LLM_LOGS(PROMPT_HASH) LOCAL;
+CREATE INDEX IDX_LLM_LOGS_RESPONSE_HASH ON LLM_LOGS(RESPONSE_HASH) LOCAL;
 
--- 트리거 생성 (ID 자동 증가)
-CREATE OR REPLACE TRIGGER LLM_LOGS_TRG
-    BEFORE INSERT ON LLM_LOGS
-    FOR EACH ROW
-BEGIN
-    IF :NEW.ID IS NULL THEN
-        :NEW.ID := LLM_LOGS_SEQ.NEXTVAL;
-    END IF;
-    :NEW.CREATED_DATE := CURRENT_TIMESTAMP;
-    :NEW.UPDATED_DATE := CURRENT_TIMESTAMP;
-END;
-/
+-- 요청 로그 본문 테이블 (body-storage=dedup)
+-- UTF-8 본문의 SHA-256 해시(64자리 16진수)를 키로 같은 본문은 한 번만 gzip 압축해 저장한다.
+-- 여러 로그가 같은 본문을 참조하므로 LLM_LOGS 파티션과 함께 지우지 않고, 파티션 DROP 뒤에
+-- LogRetentionService 가 남은 LLM_LOGS 어느 행도 참조하지 않는 본문만 지운다.
+-- 원문 확인 (앞 2000바이트):
+--   SELECT UTL_RAW.CAST_TO_VARCHAR2(DBMS_LOB.SUBSTR(UTL_COMPRESS.LZ_UNCOMPRESS(BODY), 2000, 1))
+--   FROM LLM_LOG_BODIES WHERE HASH = :hash
+CREATE TABLE LLM_LOG_BODIES (
+    HASH VARCHAR2(64) NOT NULL,
+    ORIGINAL_LENGTH NUMBER(10) NOT NULL,
+    BODY BLOB NOT NULL,
+    CREATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT PK_LLM_LOG_BODIES PRIMARY KEY (HASH)
+)
+LOB (BODY) STORE AS SECUREFILE (NOCACHE);
 
--- 인덱스 생성
-CREATE INDEX IDX_LLM_LOGS_TIME ON LLM_LOGS(REQUEST_TIME);
-CREATE INDEX IDX_LLM_LOGS_ENGINE ON LLM_LOGS(ENGINE);
-CREATE INDEX IDX_LLM_LOGS_SUCCESS ON LLM_LOGS(SUCCESS);
-CREATE INDEX IDX_LLM_LOGS_CREATED ON LLM_LOGS(CREATED_DATE);
+-- 시간별 통계 롤업 테이블 (엔진 x 시간)
+-- 백엔드가 LLM_LOGS 배치를 쓸 때마다 MERGE 로 더한다. 기간 통계/뷰는 LLM_LOGS 대신 이 테이블을 읽는다.
+-- 응답 시간 컬럼과 BUCKET_* (해당 구간 ms 이하, 이전 구간 초과) 는 성공한 요청만 센다.
+CREATE TABLE LLM_STATS_HOURLY (
+    HOUR_START TIMESTAMP NOT NULL,
+    ENGINE VARCHAR2(50) NOT NULL,
+    REQUEST_COUNT NUMBER(19) DEFAULT 0 NOT NULL,
+    SUCCESS_COUNT NUMBER(19) DEFAULT 0 NOT NULL,
+    LATENCY_SUM_MS NUMBER(19) DEFAULT 0 NOT NULL,
+    LATENCY_MIN_MS NUMBER(19),
+    LATENCY_MAX_MS NUMBER(19),
+    BUCKET_250 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_500 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_1000 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_2500 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_5000 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_10000 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_30000 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_60000 NUMBER(19) DEFAULT 0 NOT NULL,
+    BUCKET_INF NUMBER(19) DEFAULT 0 NOT NULL,
+    UPDATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT PK_LLM_STATS_HOURLY PRIMARY KEY (HOUR_START, ENGINE)
+);
 
 -- 시스템 메트릭 테이블
 CREATE TABLE SYSTEM_METRICS (
@@ -136,30 +179,29 @@ CREATE INDEX IDX_SESSIONS_ID ON USER_SESSIONS(SESSION_ID);
 CREATE INDEX IDX_SESSIONS_IP ON USER_SESSIONS(USER_IP);
 CREATE INDEX IDX_SESSIONS_STATUS ON USER_SESSIONS(STATUS);
 
--- 뷰 생성: 통계 요약
+-- 뷰 생성: 통계 요약 (시간별 롤업에서 합산)
 CREATE OR REPLACE VIEW V_LLM_STATS AS
 SELECT 
     ENGINE,
-    COUNT(*) AS TOTAL_REQUESTS,
-    SUM(CASE WHEN SUCCESS = 1 THEN 1 ELSE 0 END) AS SUCCESSFUL_REQUESTS,
-    ROUND(AVG(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END), 2) AS AVG_RESPONSE_TIME,
-    MIN(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END) AS MIN_RESPONSE_TIME,
-    MAX(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END) AS MAX_RESPONSE_TIME,
-    ROUND((SUM(CASE WHEN SUCCESS = 1 THEN 1 ELSE 0 END) * 100.0 / COUNT(*)), 2) AS SUCCESS_RATE
-FROM LLM_LOGS
+    SUM(REQUEST_COUNT) AS TOTAL_REQUESTS,
+    SUM(SUCCESS_COUNT) AS SUCCESSFUL_REQUESTS,
+    ROUND(SUM(LATENCY_SUM_MS) / NULLIF(SUM(SUCCESS_COUNT), 0), 2) AS AVG_RESPONSE_TIME,
+    MIN(LATENCY_MIN_MS) AS MIN_RESPONSE_TIME,
+    MAX(LATENCY_MAX_MS) AS MAX_RESPONSE_TIME,
+    ROUND((SUM(SUCCESS_COUNT) * 100.0 / NULLIF(SUM(REQUEST_COUNT), 0)), 2) AS SUCCESS_RATE
+FROM LLM_STATS_HOURLY
 GROUP BY ENGINE;
 
--- 뷰 생성: 시간별 통계
+-- 뷰 생성: 시간별 통계 (시간별 롤업 그대로)
 CREATE OR REPLACE VIEW V_LLM_HOURLY_STATS AS
 SELECT 
-    TO_CHAR(REQUEST_TIME, 'YYYY-MM-DD HH24') AS HOUR,
+    TO_CHAR(HOUR_START, 'YYYY-MM-DD HH24') AS HOUR,
     ENGINE,
-    COUNT(*) AS REQUEST_COUNT,
-    ROUND(AVG(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END), 2) AS AVG_RESPONSE_TIME,
-    ROUND((SUM(CASE WHEN SUCCESS = 1 THEN 1 ELSE 0 END) * 100.0 / COUNT(*)), 2) AS SUCCESS_RATE
-FROM LLM_LOGS
-WHERE REQUEST_TIME >= SYSDATE - 7 -- 최근 7일
-GROUP BY TO_CHAR(REQUEST_TIME, 'YYYY-MM-DD HH24'), ENGINE
+    REQUEST_COUNT,
+    ROUND(LATENCY_SUM_MS / NULLIF(SUCCESS_COUNT, 0), 2) AS AVG_RESPONSE_TIME,
+    ROUND((SUCCESS_COUNT * 100.0 / NULLIF(REQUEST_COUNT, 0)), 2) AS SUCCESS_RATE
+FROM LLM_STATS_HOURLY
+WHERE HOUR_START >= SYSDATE - 7 -- 최근 7일
 ORDER BY HOUR DESC, ENGINE;
 
 -- 샘플 데이터 삽입
@@ -185,11 +227,36 @@ INSERT INTO SYSTEM_METRICS (METRIC_NAME, METRIC_VALUE, METRIC_UNIT, METRIC_TYPE)
 INSERT INTO SYSTEM_METRICS (METRIC_NAME, METRIC_VALUE, METRIC_UNIT, METRIC_TYPE) VALUES
 ('network_throughput', 125.6, 'Mbps', 'network');
 
+-- 샘플 로그를 시간별 롤업에 반영 (이후에는 백엔드가 로그를 쓸 때 갱신)
+INSERT INTO LLM_STATS_HOURLY (HOUR_START, ENGINE, REQUEST_COUNT, SUCCESS_COUNT, LATENCY_SUM_MS,
+    LATENCY_MIN_MS, LATENCY_MAX_MS, BUCKET_250, BUCKET_500, BUCKET_1000, BUCKET_2500, BUCKET_5000,
+    BUCKET_10000, BUCKET_30000, BUCKET_60000, BUCKET_INF)
+SELECT
+    CAST(TRUNC(REQUEST_TIME, 'HH24') AS TIMESTAMP),
+    ENGINE,
+    COUNT(*),
+    SUM(CASE WHEN SUCCESS = 1 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS ELSE 0 END),
+    MIN(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END),
+    MAX(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS <= 250 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 250 AND RESPONSE_TIME_MS <= 500 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 500 AND RESPONSE_TIME_MS <= 1000 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 1000 AND RESPONSE_TIME_MS <= 2500 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 2500 AND RESPONSE_TIME_MS <= 5000 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 5000 AND RESPONSE_TIME_MS <= 10000 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 10000 AND RESPONSE_TIME_MS <= 30000 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 30000 AND RESPONSE_TIME_MS <= 60000 THEN 1 ELSE 0 END),
+    SUM(CASE WHEN SUCCESS = 1 AND RESPONSE_TIME_MS > 60000 THEN 1 ELSE 0 END)
+FROM LLM_LOGS
+GROUP BY CAST(TRUNC(REQUEST_TIME, 'HH24') AS TIMESTAMP), ENGINE;
+
 -- 커밋
 COMMIT;
 
 -- 권한 확인을 위한 정보 출력
 SELECT 'LLM_LOGS 테이블 생성 완료: ' || COUNT(*) || '개 레코드' FROM LLM_LOGS;
+SELECT 'LLM_STATS_HOURLY 테이블 생성 완료: ' || COUNT(*) || '개 레코드' FROM LLM_STATS_HOURLY;
 SELECT 'SYSTEM_METRICS 테이블 생성 완료: ' || COUNT(*) || '개 레코드' FROM SYSTEM_METRICS;
 
 PROMPT
@@ -198,6 +265,6 @@ PROMPT  Oracle 데이터베이스 초기화 완료
 PROMPT =====================================
 PROMPT  사용자: llmchat
 PROMPT  비밀번호: llmchat123
-PROMPT  스키마: LLM_LOGS, SYSTEM_METRICS
+PROMPT  스키마: LLM_LOGS, LLM_LOG_BODIES, LLM_STATS_HOURLY, SYSTEM_METRICS
 PROMPT  뷰: V_LLM_STATS, V_LLM_HOURLY_STATS
 PROMPT =====================================
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.example.simple.benchmark;
+
+import com.example.simple.dto.LLMRequest;
+import com.example.simple.dto.LLMResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/generate 요청/응답 DTO 의 Jackson (역)직렬화 비용.
+ * ObjectMapper 는 Spring Boot 와 같은 Jackson2ObjectMapperBuilder 기본 설정으로 만든다.
+ * - readRequest / writeResponse: 서버가 요청마다 하는 일
+ * - writeRequest / readResponse: 클라이언트 쪽 비용 (비교용)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoSerializationBenchmark {
+
+    // 프롬프트와 생성 텍스트 길이 (문자 수)
+    @Param({"64", "2048", "32768"})
+    public int textLength;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private LLMRequest request;
+    private LLMResponse response;
+    private byte[] requestJson;
+    private byte[] responseJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        StringBuilder text = new StringBuilder(textLength);
+        while (text.length() < textLength) {
+            text.append("토큰 token \"quoted\"\n");
+        }
+        text.setLength(textLength);
+
+        request = new LLMRequest();
+        request.setPrompt(text.toString());
+        request.setEngine("vllm");
+        request.setMaxTokens(512);
+        request.setTemperature(0.7);
+
+        response = LLMResponse.builder()
+                .text(text.toString())
+                .engine("vllm")
+                .responseTimeMs(812L)
+                .success(true)
+                .build();
+
+        requestJson = objectMapper.writeValueAsBytes(request);
+        responseJson = objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public LLMRequest readRequest() throws Exception {
+        return objectMapper.readValue(requestJson, LLMRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] writeRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public LLMResponse readResponse() throws Exception {
+        return objectMapper.readValue(responseJson, LLMResponse.class);
+    }
+}
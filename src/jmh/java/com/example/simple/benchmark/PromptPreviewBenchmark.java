@@ -0,0 +1,77 @@
+package com.example.simple.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.example.simple.controller.ApiController;
+import com.example.simple.dto.LLMRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 컨트롤러의 요청 로그 비용 (ApiController/LLMController 의 프롬프트 미리보기 + log.info)
+ * - preview: 미리보기 문자열만 만든다
+ * - previewAndLog: 컨트롤러와 같은 메시지로 INFO 로그를 남긴다. appender 는 메시지 포맷팅까지만 하고 출력하지 않으므로
+ *   콘솔/파일 I/O 를 뺀 요청당 로깅 오버헤드가 나온다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PromptPreviewBenchmark {
+
+    @Param({"32", "2048", "32768"})
+    public int promptLength;
+
+    private final org.slf4j.Logger log = LoggerFactory.getLogger(ApiController.class);
+    private LLMRequest request;
+
+    @Setup
+    public void setUp() {
+        Logger logger = (Logger) LoggerFactory.getLogger(ApiController.class);
+        logger.detachAndStopAllAppenders();
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        AppenderBase<ILoggingEvent> formatOnly = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                event.getFormattedMessage();
+            }
+        };
+        formatOnly.setContext(logger.getLoggerContext());
+        formatOnly.start();
+        logger.addAppender(formatOnly);
+
+        StringBuilder prompt = new StringBuilder(promptLength);
+        while (prompt.length() < promptLength) {
+            prompt.append("You are a helpful assistant. 질문에 답하세요. ");
+        }
+        prompt.setLength(promptLength);
+
+        request = new LLMRequest();
+        request.setPrompt(prompt.toString());
+        request.setMaxTokens(512);
+        request.setTemperature(0.7);
+    }
+
+    @Benchmark
+    public String preview() {
+        return ApiController.promptPreview(request.getPrompt());
+    }
+
+    @Benchmark
+    public void previewAndLog() {
+        String promptPreview = ApiController.promptPreview(request.getPrompt());
+        log.info("추론 요청: tenant={}, engine={}, prompt=[{}], maxTokens={}, temperature={}",
+                "default", request.getEngine(), promptPreview, request.getMaxTokens(), request.getTemperature());
+    }
+}
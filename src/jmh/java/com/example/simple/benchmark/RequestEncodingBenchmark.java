@@ -0,0 +1,95 @@
+package com.example.simple.benchmark;
+
+import com.example.simple.service.UpstreamRequestEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 업스트림 요청 본문 직렬화 비교 (요청당 ns, gc 프로파일러의 gc.alloc.rate.norm = 요청당 할당 바이트)
+ * - *Map: 기존 방식 (HashMap 구성 -> ObjectMapper 로 버퍼에 기록, Jackson2JsonEncoder 와 같은 경로)
+ * - *Encoder: UpstreamRequestEncoder (JsonGenerator 로 풀링 버퍼에 직접 기록)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestEncodingBenchmark {
+
+    @Param({"64", "2048", "32768"})
+    public int promptLength;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UpstreamRequestEncoder encoder = new UpstreamRequestEncoder(objectMapper);
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private String prompt;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder(promptLength);
+        while (builder.length() < promptLength) {
+            builder.append("You are a helpful assistant. 질문에 답하세요. ");
+        }
+        builder.setLength(promptLength);
+        prompt = builder.toString();
+    }
+
+    @Benchmark
+    public int vllmMap() throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "default");
+        requestBody.put("prompt", prompt);
+        requestBody.put("max_tokens", 512);
+        requestBody.put("temperature", 0.7);
+        requestBody.put("stream", false);
+        return writeAndRelease(requestBody);
+    }
+
+    @Benchmark
+    public int vllmEncoder() {
+        return release(encoder.encodeVllm(prompt, 512, 0.7, false));
+    }
+
+    @Benchmark
+    public int sglangMap() throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("text", prompt);
+        Map<String, Object> samplingParams = new HashMap<>();
+        samplingParams.put("max_new_tokens", 512);
+        samplingParams.put("temperature", 0.7);
+        samplingParams.put("top_p", 0.9);
+        samplingParams.put("stream", false);
+        requestBody.put("sampling_params", samplingParams);
+        return writeAndRelease(requestBody);
+    }
+
+    @Benchmark
+    public int sglangEncoder() {
+        return release(encoder.encodeSglang(prompt, 512, 0.7, false));
+    }
+
+    private int writeAndRelease(Map<String, Object> requestBody) throws Exception {
+        DataBuffer buffer = bufferFactory.allocateBuffer();
+        objectMapper.writeValue(buffer.asOutputStream(), requestBody);
+        return release(buffer);
+    }
+
+    private int release(DataBuffer buffer) {
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.example.simple.benchmark;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.service.LoggingService;
+import com.example.simple.service.RequestTimings;
+import com.example.simple.service.StatsRollupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoggingService.logLLMRequest 의 요청 경로 비용 (기록 큐에 넣기까지).
+ * DB 대신 아무것도 하지 않는 JdbcTemplate 을 넣어 백그라운드 writer 는 큐를 비우기만 한다.
+ * 큐가 가득 차면 버리는 경로(llm.log.dropped)도 그대로 측정에 포함된다.
+ * - enqueue: 요청 스레드 하나
+ * - enqueueContended: 요청 스레드 4개가 같은 큐에 넣는 경우
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestLogEnqueueBenchmark {
+
+    // 프롬프트/응답 길이 (문자 수). 본문은 참조만 큐에 들어가므로 길이와 무관해야 한다
+    @Param({"256", "16384"})
+    public int bodyLength;
+
+    private LoggingService loggingService;
+    private RequestTimings timings;
+    private String prompt;
+    private String response;
+
+    @Setup
+    public void setUp() {
+        LLMConfig llmConfig = new LLMConfig();
+        llmConfig.getRequestLog().setQueueCapacity(100_000);
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("jdbcTemplate", new NoopJdbcTemplate());
+        loggingService = new LoggingService(llmConfig, new SimpleMeterRegistry(),
+                beans.getBeanProvider(JdbcTemplate.class), beans.getBeanProvider(StatsRollupService.class));
+
+        timings = RequestTimings.start();
+        timings.add(RequestTimings.Phase.QUEUE, 1_200_000L);
+        timings.add(RequestTimings.Phase.UPSTREAM, 812_000_000L);
+        timings.add(RequestTimings.Phase.PARSE, 150_000L);
+
+        StringBuilder body = new StringBuilder(bodyLength);
+        while (body.length() < bodyLength) {
+            body.append("토큰 token ");
+        }
+        body.setLength(bodyLength);
+        prompt = body.toString();
+        response = body.reverse().toString();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        loggingService.destroy();
+    }
+
+    @Benchmark
+    public void enqueue() {
+        loggingService.logLLMRequest("vllm", prompt, response, 812L, true, timings);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void enqueueContended() {
+        loggingService.logLLMRequest("vllm", prompt, response, 812L, true, timings);
+    }
+
+    private static class NoopJdbcTemplate extends JdbcTemplate {
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            return new int[batchArgs.size()];
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.simple.benchmark;
+
+import com.example.simple.service.CompletionResponseDecoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 업스트림 응답 텍스트 추출 비교 (vLLM /v1/completions, SGLang /generate 응답 형식)
+ * - treeBased: 기존 방식 (DataBuffer 결합 -> String -> readTree -> choices[0].text 또는 text)
+ * - streaming: CompletionResponseDecoder (DataBuffer 를 논블로킹 파서에 바로 공급)
+ *
+ * 실행: gradlew jmh (gc 프로파일러로 호출당 할당 바이트도 함께 출력)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseDecodingBenchmark {
+
+    // 생성 텍스트 길이 (문자 수)
+    @Param({"256", "16384", "262144"})
+    public int textLength;
+
+    @Param({"vllm", "sglang"})
+    public String format;
+
+    // 업스트림에서 받는 DataBuffer 크기 (Reactor Netty 기본 수신 버퍼 수준)
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        StringBuilder text = new StringBuilder(textLength);
+        while (text.length() < textLength) {
+            text.append("토큰 token ");
+        }
+        text.setLength(textLength);
+
+        String quoted = objectMapper.writeValueAsString(text.toString());
+        String json = "sglang".equals(format)
+                ? "{\"text\":" + quoted + ",\"meta_info\":{\"id\":\"bench\",\"prompt_tokens\":12,"
+                        + "\"completion_tokens\":500,\"finish_reason\":{\"type\":\"length\",\"length\":500}}}"
+                : "{\"id\":\"cmpl-bench\",\"object\":\"text_completion\",\"model\":\"default\","
+                        + "\"choices\":[{\"index\":0,\"text\":" + quoted
+                        + ",\"logprobs\":null,\"finish_reason\":\"length\"}],"
+                        + "\"usage\":{\"prompt_tokens\":12,\"total_tokens\":512,\"completion_tokens\":500}}";
+        payload = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String treeBased() throws Exception {
+        DataBuffer joined = DataBufferUtils.join(chunks()).block();
+        String response = joined.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(joined);
+
+        JsonNode root = objectMapper.readTree(response);
+        JsonNode choices = root.get("choices");
+        JsonNode text = choices != null ? choices.get(0).get("text") : root.get("text");
+        return text.asText().trim();
+    }
+
+    @Benchmark
+    public String streaming() {
+        CompletionResponseDecoder decoded = CompletionResponseDecoder
+                .decode(chunks(), objectMapper.getFactory())
+                .block();
+        String text = decoded.getChoicesText() != null ? decoded.getChoicesText() : decoded.getText();
+        return text.trim();
+    }
+
+    private Flux<DataBuffer> chunks() {
+        List<DataBuffer> buffers = new ArrayList<>(payload.length / CHUNK_SIZE + 1);
+        for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, payload.length - offset);
+            DataBuffer buffer = bufferFactory.allocateBuffer(length);
+            buffer.write(payload, offset, length);
+            buffers.add(buffer);
+        }
+        return Flux.fromIterable(buffers);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.example.simple.config;
+
+import com.example.simple.service.RequestTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 엔진 복제본별 전용 커넥션 풀을 가진 WebClient를 만들고, 종료 시 풀을 정리한다.
+ * 복제본마다 한 번만 생성되며 (EngineReplicaPools), 요청마다 만들지 않는다.
+ *
+ * 풀 메트릭:
+ * - reactor.netty.connection.provider.{total,active,idle,pending}.connections (name=llm-vllm-0, llm-sglang-0, ...)
+ * - llm.engine.connection.acquire (engine, replica 태그) - 커넥션 획득 대기 시간 (요청별로는 RequestTimings 의 CONNECT)
+ */
+@Component
+@Slf4j
+public class EngineWebClients implements DisposableBean {
+
+    private final MeterRegistry meterRegistry;
+    private final List<ConnectionProvider> providers = new CopyOnWriteArrayList<>();
+
+    public EngineWebClients(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 주어진 엔진 복제본 URL에 대해 전용 ConnectionProvider를 가진 WebClient를 생성한다.
+     *
+     * @param replica 복제본 식별자 (예: vllm-0)
+     */
+    public WebClient create(String engine, String replica, String baseUrl, LLMConfig.PoolConfig pool) {
+        ConnectionProvider provider = ConnectionProvider.builder("llm-" + replica)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .metrics(true)
+                .build();
+        providers.add(provider);
+
+        Timer acquireTimer = Timer.builder("llm.engine.connection.acquire")
+                .description("엔진 커넥션 풀에서 커넥션을 획득하기까지 걸린 시간")
+                .tag("engine", engine)
+                .tag("replica", replica)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .keepAlive(pool.isKeepAlive())
+                .tcpConfiguration(tcp -> tcp
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) pool.getConnectTimeout().toMillis())
+                        .option(ChannelOption.SO_KEEPALIVE, pool.isKeepAlive()))
+                // 획득 시간은 요청의 Reactor Context 에 RequestTimings 가 있으면 CONNECT 구간에도 더한다
+                .mapConnect((connection, bootstrap) -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return connection.doOnEach(signal -> {
+                        if (signal.isOnNext()) {
+                            long elapsed = System.nanoTime() - start;
+                            acquireTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                            RequestTimings.from(signal.getContext()).add(RequestTimings.Phase.CONNECT, elapsed);
+                        }
+                    });
+                }));
+
+        log.info("{} WebClient 생성: baseUrl={}, maxConnections={}, pendingAcquireTimeout={}",
+                replica, baseUrl, pool.getMaxConnections(), pool.getPendingAcquireTimeout());
+
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        providers.forEach(ConnectionProvider::dispose);
+        providers.clear();
+    }
+}
\ No newline at end of file
@@ -3,8 +3,14 @@ package com.example.simple.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @ConfigurationProperties(prefix = "llm")
@@ -14,6 +20,37 @@ public class LLMConfig {
     private VllmConfig vllm = new VllmConfig();
     private SglangConfig sglang = new SglangConfig();
     private FailoverConfig failover = new FailoverConfig();
+    private BatchingConfig batching = new BatchingConfig();
+    private CoalescingConfig coalescing = new CoalescingConfig();
+    private CacheConfig cache = new CacheConfig();
+    private HedgingConfig hedging = new HedgingConfig();
+    private LoadBalancingConfig loadBalancing = new LoadBalancingConfig();
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    private ConcurrencyLimitConfig concurrencyLimit = new ConcurrencyLimitConfig();
+    private AdmissionConfig admission = new AdmissionConfig();
+    private HealthCheckConfig healthCheck = new HealthCheckConfig();
+    private RequestLogConfig requestLog = new RequestLogConfig();
+    private StatsConfig stats = new StatsConfig();
+    
+    /**
+     * 요청에 max_tokens 가 없으면 엔진 기본값을 사용한다
+     */
+    public int effectiveMaxTokens(String engine, Integer requested) {
+        if (requested != null) {
+            return requested;
+        }
+        return "sglang".equals(engine) ? sglang.getMaxTokens() : vllm.getMaxTokens();
+    }
+    
+    /**
+     * 요청에 temperature 가 없으면 엔진 기본값을 사용한다
+     */
+    public double effectiveTemperature(String engine, Double requested) {
+        if (requested != null) {
+            return requested;
+        }
+        return "sglang".equals(engine) ? sglang.getTemperature() : vllm.getTemperature();
+    }
     
     @Data
     public static class VllmConfig {
@@ -22,6 +59,18 @@ public class LLMConfig {
         private Duration timeout = Duration.ofSeconds(30);
         private int maxTokens = 512;
         private double temperature = 0.7;
+        private PoolConfig pool = new PoolConfig();
+        // 복제본 URL 목록. 비어 있으면 baseUrl 하나만 사용
+        private List<String> replicas = new ArrayList<>();
+        
+        public List<String> resolveReplicaUrls() {
+            return replicas.isEmpty() ? Collections.singletonList(baseUrl) : replicas;
+        }
+        
+        // Lombok 은 같은 이름의 setter 가 있으면 생성하지 않으므로 직접 선언
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
         
         // 편의 메서드: 초 단위로 timeout 설정
         public void setTimeout(int seconds) {
@@ -49,6 +98,18 @@ public class LLMConfig {
         private Duration timeout = Duration.ofSeconds(30);
         private int maxTokens = 512;
         private double temperature = 0.7;
+        private PoolConfig pool = new PoolConfig();
+        // 복제본 URL 목록. 비어 있으면 baseUrl 하나만 사용
+        private List<String> replicas = new ArrayList<>();
+        
+        public List<String> resolveReplicaUrls() {
+            return replicas.isEmpty() ? Collections.singletonList(baseUrl) : replicas;
+        }
+        
+        // Lombok 은 같은 이름의 setter 가 있으면 생성하지 않으므로 직접 선언
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
         
         // 편의 메서드: 초 단위로 timeout 설정
         public void setTimeout(int seconds) {
@@ -69,11 +130,220 @@ public class LLMConfig {
         }
     }
     
+    /**
+     * 엔진별 HTTP 커넥션 풀 설정 (Reactor Netty ConnectionProvider)
+     */
+    @Data
+    public static class PoolConfig {
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+        private Duration maxIdleTime = Duration.ofSeconds(60);
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private boolean keepAlive = true;
+    }
+    
+    /**
+     * 마이크로 배칭 설정: 같은 엔진/max_tokens/temperature 요청을 maxWait 동안 모아 한 번에 보낸다
+     */
+    @Data
+    public static class BatchingConfig {
+        private boolean enabled = false;
+        private int maxBatchSize = 16;
+        private Duration maxWait = Duration.ofMillis(10);
+    }
+    
+    /**
+     * 진행 중인 동일 요청 합치기(single-flight) 설정
+     */
+    @Data
+    public static class CoalescingConfig {
+        private boolean enabled = true;
+    }
+    
+    /**
+     * 엔진 복제본 간 부하 분산 설정
+     */
+    @Data
+    public static class LoadBalancingConfig {
+        // p2c: 무작위 두 복제본 중 (EWMA 지연 x 진행 중 요청 수) 가 낮은 쪽, least-outstanding: 진행 중 요청이 가장 적은 쪽
+        private String strategy = "p2c";
+        private double ewmaAlpha = 0.3;
+        // EWMA 지연이 다른 복제본 중앙값의 ejectionFactor 배를 넘으면 ejectionDuration 동안 제외
+        private double ejectionFactor = 3.0;
+        private int ejectionMinSamples = 20;
+        private Duration ejectionDuration = Duration.ofSeconds(30);
+        private int maxEjectionPercent = 50;
+        private Duration ejectionCheckInterval = Duration.ofSeconds(1);
+        private PrefixAffinityConfig affinity = new PrefixAffinityConfig();
+    }
+    
+    /**
+     * 복제본별 서킷 브레이커 설정. 최근 slidingWindowSize 건 중 실패율이나 느린 호출 비율이 임계값(%)을 넘으면
+     * waitDurationInOpen 동안 호출을 즉시 거절하고, 이후 permittedCallsInHalfOpen 건만 시험 삼아 보낸다.
+     */
+    @Data
+    public static class CircuitBreakerConfig {
+        private boolean enabled = true;
+        private int slidingWindowSize = 50;
+        // 창에 이만큼 쌓이기 전에는 열지 않는다
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 80;
+        private Duration slowCallDuration = Duration.ofSeconds(20);
+        private Duration waitDurationInOpen = Duration.ofSeconds(15);
+        private int permittedCallsInHalfOpen = 3;
+    }
+    
+    /**
+     * 엔진별 적응형 동시 요청 한도 (Gradient2). 응답 시간이 장기 평균보다 늘어나면 한도를 줄이고,
+     * 한도를 채워 쓰는데 응답 시간이 유지되면 늘린다. 한도를 넘는 요청은 maxQueueWait 까지 대기 후 429.
+     */
+    @Data
+    public static class ConcurrencyLimitConfig {
+        private boolean enabled = true;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        // 장기 RTT 대비 이 배수까지는 혼잡으로 보지 않는다
+        private double rttTolerance = 1.5;
+        private double smoothing = 0.2;
+        // 장기 RTT 지수 평균 창 (표본 수)
+        private int longWindow = 600;
+        private int maxQueueSize = 50;
+        private Duration maxQueueWait = Duration.ofMillis(500);
+    }
+    
+    /**
+     * LLM_LOGS 비동기 기록: 요청 스레드는 제한된 큐에 넣기만 하고, 백그라운드 스레드가 batchSize 건씩
+     * (또는 flushInterval 마다) batchUpdate 로 쓴다. 큐가 차면 overflowPolicy 에 따라 버린다.
+     */
+    @Data
+    public static class RequestLogConfig {
+        private int queueCapacity = 10_000;
+        private int batchSize = 200;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        // drop: 큐가 가득 차면 새 기록을 버림, sample: highWatermark 를 넘으면 성공 기록은 sampleRate 건 중 1건만 남김
+        private String overflowPolicy = "drop";
+        private double sampleHighWatermark = 0.8;
+        private int sampleRate = 10;
+        // 종료 시 남은 기록을 쓰는 데 기다리는 최대 시간
+        private Duration shutdownTimeout = Duration.ofSeconds(5);
+        // 이 기간이 지난 LLM_LOGS 는 retentionInterval 마다 지운다 (Oracle: 파티션 DROP, 그 외: DELETE). 0 이면 보관
+        private Duration retention = Duration.ofDays(30);
+        private Duration retentionInterval = Duration.ofHours(1);
+        // inline: 본문을 LLM_LOGS 의 CLOB 에 그대로, dedup: 해시로 중복 제거해 LLM_LOG_BODIES 에 압축 저장
+        private String bodyStorage = "inline";
+        // dedup 에서 이미 저장했다고 기억하는 본문 해시 수 (넘치면 MERGE 로 확인)
+        private long bodyCacheSize = 100_000;
+    }
+    
+    /**
+     * /api/stats 용 프로세스 내 통계. window 는 초 단위 링 버퍼 길이로, 처리율과 최근 백분위수를 이 구간으로 계산한다.
+     */
+    @Data
+    public static class StatsConfig {
+        private Duration window = Duration.ofSeconds(60);
+        private RollupConfig rollup = new RollupConfig();
+    }
+    
+    /**
+     * LLM_STATS_HOURLY 시간별 롤업 (DB 설정 시). 로그 배치를 쓸 때마다 MERGE 로 더하고,
+     * 기동 시 backfillOnStartup 만큼의 지난 시간을 LLM_LOGS 에서 다시 집계한다 (0 이면 하지 않음).
+     * 백필 API 는 한 번에 maxBackfill 기간까지만 받는다 (시간마다 집계 쿼리를 하나씩 보낸다).
+     */
+    @Data
+    public static class RollupConfig {
+        private boolean enabled = true;
+        private Duration backfillOnStartup = Duration.ofHours(24);
+        private Duration maxBackfill = Duration.ofDays(7);
+    }
+    
+    /**
+     * 백그라운드 헬스 체크: interval 마다 모든 복제본의 path 를 병렬로 호출해 결과를 메모리에 둔다.
+     * 헬스 엔드포인트와 복제본 선택은 이 결과만 읽는다. failureThreshold 번 연속 실패하면 DOWN.
+     */
+    @Data
+    public static class HealthCheckConfig {
+        private boolean enabled = true;
+        private String path = "/health";
+        private Duration interval = Duration.ofSeconds(10);
+        private Duration timeout = Duration.ofSeconds(2);
+        private int failureThreshold = 2;
+    }
+    
+    /**
+     * 테넌트별 대기열 앞단 허용 제어. 전체 진행 중 요청이 maxInFlight 에 닿으면 테넌트별 대기열에 넣고
+     * deficit round-robin 으로 weight 비율만큼 번갈아 꺼낸다. 한 테넌트의 대량 요청이 다른 테넌트를 굶기지 않는다.
+     */
+    @Data
+    public static class AdmissionConfig {
+        private boolean enabled = true;
+        // 테넌트 식별 헤더. apiKeyHeader 가 없을 때만, tenants 에 설정된 이름일 때만 사용
+        private String tenantHeader = "X-Tenant-Id";
+        private String apiKeyHeader = "X-API-Key";
+        // 모든 테넌트를 합친 동시 처리 수
+        private int maxInFlight = 64;
+        private int maxQueueSize = 1000;
+        private Duration maxQueueWait = Duration.ofSeconds(10);
+        private int defaultWeight = 1;
+        // 설정에 없는 테넌트의 동시 처리 상한 (0 이면 전체 한도만 적용)
+        private int defaultMaxInFlight = 0;
+        // 테넌트 대기열 안의 순서. fifo: 도착 순, sjf: 예상 토큰 비용(입력 + 최대 출력)이 작은 순
+        private String ordering = "fifo";
+        // sjf 에서 대기 1초마다 깎아 주는 비용 (큰 요청이 계속 밀리지 않도록)
+        private double agingTokensPerSecond = 1000;
+        // 테넌트 ID -> 가중치/동시 처리 상한
+        private Map<String, TenantConfig> tenants = new HashMap<>();
+        // API 키 -> 테넌트 ID (설정에 없는 키는 default 테넌트)
+        private Map<String, String> apiKeys = new HashMap<>();
+    }
+    
+    @Data
+    public static class TenantConfig {
+        private int weight = 1;
+        // 0 이면 defaultMaxInFlight 사용
+        private int maxInFlight = 0;
+    }
+    
+    /**
+     * temperature 0 응답 캐시 설정 (Caffeine, W-TinyLFU)
+     */
+    @Data
+    public static class CacheConfig {
+        private boolean enabled = true;
+        // 캐시된 응답의 추정 메모리 상한
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+    
+    /**
+     * 헤지 요청 설정: 엔진의 최근 percentile 응답 시간 안에 응답이 없으면 같은 요청을 하나 더 보낸다
+     */
+    @Data
+    public static class HedgingConfig {
+        private boolean enabled = false;
+        private double percentile = 0.95;
+        // 표본이 적을 때 사용할 지연
+        private Duration initialDelay = Duration.ofSeconds(2);
+        private Duration minDelay = Duration.ofMillis(50);
+        // 헤지 요청이 전체 요청의 이 비율을 넘지 않도록 제한
+        private double maxHedgeRatio = 0.1;
+    }
+    
     @Data
     public static class FailoverConfig {
         private boolean enabled = false;
         private int retryAttempts = 3;
         private Duration retryDelay = Duration.ofSeconds(1);
+        private Duration maxRetryDelay = Duration.ofSeconds(10);
+        private RetryBudgetConfig budget = new RetryBudgetConfig();
+        
+        // Lombok 은 같은 이름의 setter 가 있으면 생성하지 않으므로 직접 선언
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
         
         // 편의 메서드: 초 단위로 retryDelay 설정
         public void setRetryDelay(int seconds) {
@@ -93,4 +363,29 @@ public class LLMConfig {
                 .replace("H", "H"));
         }
     }
+    
+    /**
+     * 재시도 예산 (토큰 버킷): 일반 요청마다 ratio 만큼, 초당 minPerSecond 만큼 토큰이 쌓이고
+     * 재시도/엔진 전환마다 토큰 1개를 쓴다. 장애 시 재시도가 트래픽의 ratio 를 넘지 않도록 막는다.
+     */
+    @Data
+    public static class RetryBudgetConfig {
+        private double ratio = 0.2;
+        private double minPerSecond = 1.0;
+        private int capacity = 20;
+    }
+    
+    /**
+     * 프롬프트 앞부분이 같은 요청을 같은 복제본으로 보내 엔진의 prefix cache (RadixAttention, APC) 적중을 높인다.
+     * 선호 복제본이 다른 후보보다 진행 중 요청이 maxOutstandingGap 개 넘게 많으면 부하 기준으로 고른다.
+     */
+    @Data
+    public static class PrefixAffinityConfig {
+        private boolean enabled = true;
+        // 해시할 프롬프트 앞부분 길이 (문자 수)
+        private int prefixLength = 512;
+        // prefix -> 복제본 테이블 최대 항목 수
+        private long maxEntries = 10_000;
+        private int maxOutstandingGap = 4;
+    }
 }
\ No newline at end of file
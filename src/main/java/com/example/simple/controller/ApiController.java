@@ -3,16 +3,25 @@ package com.example.simple.controller;
 import com.example.simple.config.LLMConfig;
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
+import com.example.simple.dto.LLMStreamChunk;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
+import com.example.simple.service.EngineHealthProber;
+import com.example.simple.service.EngineReplicaPools;
 import com.example.simple.service.LLMService;
+import com.example.simple.service.RequestTimings;
+import com.example.simple.service.TenantAdmissionQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
-import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,8 +32,10 @@ import java.util.Map;
  * - GET /api/health - 기본 헬스체크
  * - GET /api/health/detailed - 상세 헬스체크  
  * - GET /api/info - 애플리케이션 정보
- * - POST /api/generate - LLM 추론 요청
- * - GET /api/stats - 통계 정보 (Oracle DB 사용시)
+ * - POST /api/generate - LLM 추론 요청 (Server-Timing 헤더로 구간별 소요 시간 반환)
+ * - POST /api/generate/stream - LLM 스트리밍 추론 (SSE / NDJSON)
+ * - GET /api/stats - 통계 정보 (StatsController, 프로세스 내 집계)
+ * - GET /api/stats/history - 기간 통계 (StatsHistoryController, DB 사용시 시간별 롤업 조회)
  */
 @RestController
 @RequestMapping("/api")
@@ -32,9 +43,13 @@ import java.util.Map;
 @Slf4j
 public class ApiController {
     
+    private static final String SERVER_TIMING = "Server-Timing";
+    
     private final LLMService llmService;
     private final LLMConfig llmConfig;
-    private final WebClient.Builder webClientBuilder;
+    private final EngineReplicaPools replicaPools;
+    private final EngineHealthProber healthProber;
+    private final TenantAdmissionQueue admissionQueue;
     
     @Value("${spring.application.name:Simple LLM Backend}")
     private String applicationName;
@@ -59,53 +74,29 @@ public class ApiController {
         health.put("application", "UP");
         health.put("timestamp", System.currentTimeMillis());
         
-        // vLLM 상태 확인
+        // vLLM 상태 (백그라운드 헬스 체크 결과)
         if (llmConfig.getVllm().isEnabled()) {
-            boolean vllmHealthy = checkEngineHealth(
-                llmConfig.getVllm().getBaseUrl(), 
-                "/health"
-            );
-            health.put("vllm", vllmHealthy ? "UP" : "DOWN");
+            health.put("vllm", healthProber.engineStatus("vllm"));
             health.put("vllm_url", llmConfig.getVllm().getBaseUrl());
         } else {
             health.put("vllm", "DISABLED");
         }
         
-        // SGLang 상태 확인
+        // SGLang 상태 (백그라운드 헬스 체크 결과)
         if (llmConfig.getSglang().isEnabled()) {
-            boolean sglangHealthy = checkEngineHealth(
-                llmConfig.getSglang().getBaseUrl(), 
-                "/health"
-            );
-            health.put("sglang", sglangHealthy ? "UP" : "DOWN");
+            health.put("sglang", healthProber.engineStatus("sglang"));
             health.put("sglang_url", llmConfig.getSglang().getBaseUrl());
         } else {
             health.put("sglang", "DISABLED");
         }
         
+        // 복제본별 마지막 헬스 체크 결과와 서킷 브레이커 상태
+        health.put("replicas", healthProber.replicaStates());
+        health.put("circuit_breakers", replicaPools.circuitBreakerStates());
+        
         return ResponseEntity.ok(health);
     }
     
-    private boolean checkEngineHealth(String baseUrl, String healthPath) {
-        try {
-            WebClient webClient = webClientBuilder.baseUrl(baseUrl).build();
-            
-            String response = webClient
-                    .get()
-                    .uri(healthPath)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(5))
-                    .block();
-            
-            return response != null;
-            
-        } catch (Exception e) {
-            log.debug("Engine health check failed for {}: {}", baseUrl, e.getMessage());
-            return false;
-        }
-    }
-    
     // ===========================================
     // 애플리케이션 정보 엔드포인트
     // ===========================================
@@ -150,36 +141,76 @@ public class ApiController {
     // ===========================================
     
     @PostMapping("/generate")
-    public ResponseEntity<LLMResponse> generate(@Valid @RequestBody LLMRequest request) {
+    public Mono<ResponseEntity<LLMResponse>> generate(@Valid @RequestBody LLMRequest request,
+                                                     @RequestHeader HttpHeaders headers) {
+        RequestTimings timings = RequestTimings.start();
+        
         // 프롬프트 로깅 (보안을 위해 일부만 표시)
-        String promptPreview = request.getPrompt().length() > 50 ? 
-            request.getPrompt().substring(0, 50) + "..." : request.getPrompt();
-        
-        log.info("추론 요청: engine={}, prompt=[{}], maxTokens={}, temperature={}", 
-                request.getEngine(), promptPreview, request.getMaxTokens(), request.getTemperature());
-        
-        try {
-            LLMResponse response = llmService.generateResponse(request);
-            
-            if (response.isSuccess()) {
-                log.info("추론 성공: engine={}, responseTime={}ms, textLength={}", 
-                        response.getEngine(), response.getResponseTimeMs(), 
-                        response.getText() != null ? response.getText().length() : 0);
-                return ResponseEntity.ok(response);
-            } else {
-                log.warn("추론 실패: engine={}, error={}", request.getEngine(), response.getError());
-                return ResponseEntity.badRequest().body(response);
-            }
-        } catch (Exception e) {
-            log.error("추론 중 예외 발생: engine={}, error={}", request.getEngine(), e.getMessage(), e);
-            
-            LLMResponse errorResponse = LLMResponse.builder()
-                    .success(false)
-                    .error("서버 오류: " + e.getMessage())
-                    .responseTimeMs(0L)
-                    .build();
-            
-            return ResponseEntity.internalServerError().body(errorResponse);
-        }
+        String promptPreview = promptPreview(request.getPrompt());
+        String tenant = admissionQueue.resolveTenant(headers);
+        
+        log.info("추론 요청: tenant={}, engine={}, prompt=[{}], maxTokens={}, temperature={}", 
+                tenant, request.getEngine(), promptPreview, request.getMaxTokens(), request.getTemperature());
+        
+        timings.addSince(RequestTimings.Phase.VALIDATE, timings.getStartNanos());
+        
+        return llmService.generateResponse(request, tenant)
+                .map(response -> {
+                    if (response.isSuccess()) {
+                        log.info("추론 성공: engine={}, responseTime={}ms, textLength={}", 
+                                response.getEngine(), response.getResponseTimeMs(), 
+                                response.getText() != null ? response.getText().length() : 0);
+                        return ResponseEntity.ok()
+                                .header(SERVER_TIMING, timings.toServerTiming())
+                                .body(response);
+                    } else {
+                        log.warn("추론 실패: engine={}, error={}", request.getEngine(), response.getError());
+                        return ResponseEntity.badRequest()
+                                .header(SERVER_TIMING, timings.toServerTiming())
+                                .body(response);
+                    }
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof ConcurrencyLimitExceededException) {
+                        // GlobalExceptionHandler 에서 429 + Retry-After 로 응답
+                        return Mono.error(e);
+                    }
+                    log.error("추론 중 예외 발생: engine={}, error={}", request.getEngine(), e.getMessage(), e);
+                    
+                    LLMResponse errorResponse = LLMResponse.builder()
+                            .success(false)
+                            .error("서버 오류: " + e.getMessage())
+                            .responseTimeMs(0L)
+                            .build();
+                    
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .header(SERVER_TIMING, timings.toServerTiming())
+                            .body(errorResponse));
+                })
+                .subscriberContext(timings::putInto);
+    }
+    
+    @PostMapping(value = "/generate/stream",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE})
+    public Flux<LLMStreamChunk> generateStream(@Valid @RequestBody LLMRequest request,
+                                               @RequestHeader HttpHeaders headers) {
+        RequestTimings timings = RequestTimings.start();
+        String promptPreview = promptPreview(request.getPrompt());
+        String tenant = admissionQueue.resolveTenant(headers);
+        
+        log.info("스트리밍 추론 요청: tenant={}, engine={}, prompt=[{}], maxTokens={}, temperature={}", 
+                tenant, request.getEngine(), promptPreview, request.getMaxTokens(), request.getTemperature());
+        timings.addSince(RequestTimings.Phase.VALIDATE, timings.getStartNanos());
+        
+        // 헤더는 첫 토큰 전에 나가므로 Server-Timing 은 붙이지 않고 구간 시간은 LLM_LOGS 에만 남긴다
+        return llmService.generateStream(request, tenant)
+                .subscriberContext(timings::putInto);
+    }
+    
+    /**
+     * 로그용 프롬프트 미리보기 (앞 50자)
+     */
+    public static String promptPreview(String prompt) {
+        return prompt.length() > 50 ? prompt.substring(0, 50) + "..." : prompt;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@
 package com.example.simple.controller;
 
 import com.example.simple.config.LLMConfig;
+import com.example.simple.service.EngineHealthProber;
+import com.example.simple.service.EngineReplicaPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,9 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.reactive.function.client.WebClient;
 
-import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,7 +25,10 @@ public class HealthController {
     private LLMConfig llmConfig;
     
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    private EngineReplicaPools replicaPools;
+    
+    @Autowired
+    private EngineHealthProber healthProber;
     
     @GetMapping
     public ResponseEntity<String> health() {
@@ -40,44 +43,26 @@ public class HealthController {
         health.put("application", "UP");
         health.put("timestamp", System.currentTimeMillis());
         
-        // vLLM 상태 확인
+        // vLLM 상태 (백그라운드 헬스 체크 결과)
         if (llmConfig.getVllm().isEnabled()) {
-            boolean vllmHealthy = checkEngineHealth(llmConfig.getVllm().getBaseUrl(), "/health");
-            health.put("vllm", vllmHealthy ? "UP" : "DOWN");
+            health.put("vllm", healthProber.engineStatus("vllm"));
             health.put("vllm_url", llmConfig.getVllm().getBaseUrl());
         } else {
             health.put("vllm", "DISABLED");
         }
         
-        // SGLang 상태 확인
+        // SGLang 상태 (백그라운드 헬스 체크 결과)
         if (llmConfig.getSglang().isEnabled()) {
-            boolean sglangHealthy = checkEngineHealth(llmConfig.getSglang().getBaseUrl(), "/health");
-            health.put("sglang", sglangHealthy ? "UP" : "DOWN");
+            health.put("sglang", healthProber.engineStatus("sglang"));
             health.put("sglang_url", llmConfig.getSglang().getBaseUrl());
         } else {
             health.put("sglang", "DISABLED");
         }
         
+        // 복제본별 마지막 헬스 체크 결과와 서킷 브레이커 상태
+        health.put("replicas", healthProber.replicaStates());
+        health.put("circuit_breakers", replicaPools.circuitBreakerStates());
+        
         return ResponseEntity.ok(health);
     }
-    
-    private boolean checkEngineHealth(String baseUrl, String healthPath) {
-        try {
-            WebClient webClient = webClientBuilder.baseUrl(baseUrl).build();
-            
-            String response = webClient
-                    .get()
-                    .uri(healthPath)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(5))
-                    .block();
-            
-            return response != null;
-            
-        } catch (Exception e) {
-            logger.debug("Engine health check failed for {}: {}", baseUrl, e.getMessage());
-            return false;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.simple.controller;
+
+import com.example.simple.service.StatsRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * 기간 통계 (LLM_STATS_HOURLY 롤업 조회). from/to 는 ISO 날짜시간 (예: 2024-01-01T00:00:00), 기본은 최근 24시간.
+ */
+@RestController
+@RequestMapping("/api/stats/history")
+@ConditionalOnProperty(name = "spring.datasource.url", matchIfMissing = false)
+@RequiredArgsConstructor
+public class StatsHistoryController {
+    
+    private final StatsRollupService rollupService;
+    
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String engine) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        return ResponseEntity.ok(rollupService.summary(start, end, engine));
+    }
+    
+    @GetMapping("/hourly")
+    public ResponseEntity<Map<String, Object>> getHourly(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String engine) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        return ResponseEntity.ok(Map.of("hours", rollupService.hourly(start, end, engine)));
+    }
+    
+    /**
+     * [from, to) 의 롤업을 LLM_LOGS 에서 다시 집계한다. 기본은 최근 24시간 중 끝난 시간만.
+     * to 는 진행 중인 시간을 덮어쓰지 않도록 현재 시간의 시작으로 자르고, 기간이 maxBackfill 을 넘으면 400.
+     * 시간마다 집계 쿼리를 보내므로 boundedElastic 에서 실행한다.
+     */
+    @PostMapping("/backfill")
+    public Mono<ResponseEntity<Map<String, Object>>> backfill(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = to != null && to.isBefore(currentHour) ? to : currentHour;
+        LocalDateTime start = (from != null ? from : end.minusHours(24)).truncatedTo(ChronoUnit.HOURS);
+        Duration maxBackfill = rollupService.getMaxBackfill();
+        if (Duration.between(start, end).compareTo(maxBackfill) > 0) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.<String, Object>of(
+                    "error", "백필 기간은 " + maxBackfill.toHours() + "시간을 넘을 수 없습니다")));
+        }
+        return Mono.fromCallable(() -> rollupService.backfill(start, end))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(hours -> ResponseEntity.ok(Map.<String, Object>of(
+                        "from", start.toString(),
+                        "to", end.toString(),
+                        "hours", hours)));
+    }
+}
\ No newline at end of file
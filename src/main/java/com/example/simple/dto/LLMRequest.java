@@ -7,6 +7,7 @@ import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Pattern;
 
 @Data
 public class LLMRequest {
@@ -23,4 +24,11 @@ public class LLMRequest {
     @DecimalMin(value = "0.0", message = "Temperature는 0.0 이상이어야 합니다")
     @DecimalMax(value = "2.0", message = "Temperature는 2.0 이하여야 합니다")
     private Double temperature;
+    
+    // temperature > 0 이어도 동일한 진행 중 요청과 결과를 공유하도록 허용 (기본: temperature 0일 때만)
+    private Boolean coalesce;
+    
+    // 응답 캐시 제어: null/"default" - 조회 후 저장, "bypass" - 캐시 미사용, "refresh" - 조회 없이 새로 받아 저장
+    @Pattern(regexp = "default|bypass|refresh", message = "cacheMode는 default, bypass, refresh 중 하나여야 합니다")
+    private String cacheMode;
 }
\ No newline at end of file
@@ -6,7 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class LLMResponse {
@@ -15,4 +15,5 @@ public class LLMResponse {
     private long responseTimeMs;
     private boolean success;
     private String error;
+    private boolean cached; // temperature 0 응답 캐시에서 반환된 경우 true
 }
\ No newline at end of file
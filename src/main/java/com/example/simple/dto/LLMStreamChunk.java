@@ -0,0 +1,24 @@
+package com.example.simple.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 스트리밍 추론 응답의 한 조각 (SSE 이벤트 또는 NDJSON 한 줄)
+ * 
+ * 마지막 조각은 done=true 이며 전체 응답시간과 오류 정보를 담는다.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LLMStreamChunk {
+    private int index;
+    private String text;
+    private String engine;
+    private boolean done;
+    private Long responseTimeMs;
+    private String error;
+}
\ No newline at end of file
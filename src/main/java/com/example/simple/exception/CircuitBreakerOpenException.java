@@ -0,0 +1,11 @@
+package com.example.simple.exception;
+
+/**
+ * 서킷 브레이커가 열려 있어 업스트림을 호출하지 않고 바로 거절했음을 나타낸다.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(String replica) {
+        super(replica + " 서킷 브레이커가 열려 있어 호출을 거절했습니다");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.simple.exception;
+
+import java.time.Duration;
+
+/**
+ * 엔진 동시 요청 한도를 넘어 대기열에도 들어가지 못했거나 대기 시간이 지나 거절된 요청.
+ * 컨트롤러에서 429 Too Many Requests + Retry-After 로 변환된다.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ConcurrencyLimitExceededException(String engine, Duration retryAfter) {
+        super(engine + " 동시 요청 한도를 초과했습니다");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Retry-After 헤더 값 (초, 최소 1)
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.simple.exception;
 
 import com.example.simple.dto.LLMResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,6 +12,23 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @Slf4j
 public class GlobalExceptionHandler {
     
+    /**
+     * 엔진 동시 요청 한도 초과: 429 + Retry-After
+     */
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<LLMResponse> handleConcurrencyLimitExceeded(ConcurrencyLimitExceededException e) {
+        log.warn("동시 요청 한도 초과로 거절: {}", e.getMessage());
+        
+        LLMResponse response = LLMResponse.builder()
+                .success(false)
+                .error("요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요: " + e.getMessage())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<LLMResponse> handleException(Exception e) {
         log.error("예상하지 못한 오류", e);
@@ -0,0 +1,274 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 엔진 하나의 적응형 동시 요청 한도 (Netflix concurrency-limits 의 Gradient2 방식).
+ *
+ * 완료된 호출마다 RTT 를 장기 지수 평균(longRtt)과 비교한다.
+ *   gradient = clamp(rttTolerance * longRtt / rtt, 0.5, 1.0)
+ *   newLimit = limit * gradient + sqrt(limit)  (smoothing 으로 완만하게 반영)
+ * 응답이 느려지면 gradient < 1 로 한도가 줄고, 그렇지 않으면 sqrt(limit) 만큼씩 늘어난다.
+ * 한도의 절반도 쓰지 않을 때는 늘리지 않는다. 타임아웃은 혼잡 신호로 보고 한도를 10% 줄인다.
+ *
+ * 한도를 넘는 요청은 maxQueueSize 까지 FIFO 로 최대 maxQueueWait 동안 기다리고,
+ * 그래도 자리가 나지 않으면 ConcurrencyLimitExceededException 으로 거절한다.
+ * 획득/반납은 원자 변수로만 하고, 한도 재계산(완료 시 한 번)만 짧게 동기화한다.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int LONG_RTT_WARMUP = 10;
+
+    private final String engine;
+    private final LLMConfig.ConcurrencyLimitConfig config;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile int limit;
+    // 아래는 onSample 안에서만 (동기화되어) 갱신, longRttNanos 는 retryAfter 에서도 읽는다
+    private double estimatedLimit;
+    private volatile double longRttNanos;
+    private long longRttSamples;
+
+    public AdaptiveConcurrencyLimiter(String engine, LLMConfig.ConcurrencyLimitConfig config) {
+        this.engine = engine;
+        this.config = config;
+        this.estimatedLimit = config.getInitialLimit();
+        this.limit = config.getInitialLimit();
+    }
+
+    /**
+     * 자리를 얻은 뒤 call 을 구독하고, 끝나면 자리를 반납하며 RTT 를 한도 계산에 반영한다.
+     */
+    public <T> Mono<T> execute(Mono<T> call) {
+        if (!config.isEnabled()) {
+            return call;
+        }
+        return acquire().flatMap(startNanos -> {
+            AtomicBoolean released = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        int inflightAtCompletion = release(released);
+                        if (inflightAtCompletion > 0) {
+                            onSample(System.nanoTime() - startNanos, inflightAtCompletion, false);
+                        }
+                    })
+                    .doOnError(e -> {
+                        // 타임아웃만 혼잡 신호로 쓰고, 다른 실패(연결 거부, 5xx 등)의 RTT 는 반영하지 않는다
+                        int inflightAtCompletion = release(released);
+                        if (inflightAtCompletion > 0 && isDrop(e)) {
+                            onSample(System.nanoTime() - startNanos, inflightAtCompletion, true);
+                        }
+                    })
+                    .doOnCancel(() -> release(released));
+        });
+    }
+
+    private Mono<Long> acquire() {
+        return Mono.create(sink -> {
+            // 대기 중인 요청이 있으면 새치기하지 않는다
+            if (queued.get() == 0 && tryAcquire()) {
+                sink.success(System.nanoTime());
+                return;
+            }
+            if (queued.incrementAndGet() > config.getMaxQueueSize()) {
+                queued.decrementAndGet();
+                reject(sink);
+                return;
+            }
+            Waiter waiter = new Waiter(sink);
+            waiters.offer(waiter);
+            Disposable timer = Schedulers.parallel().schedule(() -> {
+                if (waiter.claim(Waiter.EXPIRED)) {
+                    queued.decrementAndGet();
+                    reject(sink);
+                }
+            }, config.getMaxQueueWait().toNanos(), TimeUnit.NANOSECONDS);
+            sink.onCancel(() -> {
+                int previous = waiter.cancel();
+                if (previous == Waiter.WAITING) {
+                    queued.decrementAndGet();
+                } else if (previous == Waiter.GRANTED) {
+                    // drain 이 자리를 넘겼지만 success 보다 취소가 먼저라 값이 버려졌다. 대신 반납한다
+                    inflight.decrementAndGet();
+                    drain();
+                }
+            });
+            sink.onDispose(timer::dispose);
+            // 큐에 넣는 사이에 자리가 났을 수 있다
+            drain();
+        });
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 자리를 반납하고 대기자를 깨운다. 반납 직전의 진행 중 요청 수를 돌려주며, 이미 반납했으면 0.
+     */
+    private int release(AtomicBoolean released) {
+        if (!released.compareAndSet(false, true)) {
+            return 0;
+        }
+        int inflightAtCompletion = inflight.getAndDecrement();
+        drain();
+        return inflightAtCompletion;
+    }
+
+    /**
+     * 자리가 나는 만큼 대기열 앞에서부터 깨운다. 이미 시간 초과/취소된 대기자는 건너뛴다.
+     * 넘기는 사이에 취소된 대기자의 자리는 acquire 의 onCancel 이 반납한다.
+     */
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null) {
+                inflight.decrementAndGet();
+                return;
+            }
+            if (waiter.claim(Waiter.GRANTED)) {
+                queued.decrementAndGet();
+                waiter.sink.success(System.nanoTime());
+            } else {
+                inflight.decrementAndGet();
+            }
+        }
+    }
+
+    private void reject(MonoSink<Long> sink) {
+        rejected.incrementAndGet();
+        sink.error(new ConcurrencyLimitExceededException(engine, retryAfter()));
+    }
+
+    synchronized void onSample(long rttNanos, int inflightAtCompletion, boolean didDrop) {
+        if (didDrop) {
+            estimatedLimit = Math.max(config.getMinLimit(), estimatedLimit * 0.9);
+            updateLimit();
+            return;
+        }
+
+        double rtt = rttNanos;
+        longRttSamples++;
+        if (longRttSamples <= LONG_RTT_WARMUP) {
+            longRttNanos += (rtt - longRttNanos) / longRttSamples;
+        } else {
+            double factor = 2.0 / (config.getLongWindow() + 1);
+            longRttNanos = longRttNanos * (1 - factor) + rtt * factor;
+        }
+        // 부하가 크게 줄어 RTT 가 장기 평균의 절반 아래면 장기 평균도 빨리 따라 내려가게 한다
+        if (longRttNanos / rtt > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // 한도의 절반도 쓰지 않으면 RTT 가 한도의 영향을 받지 않으므로 늘리지 않는다
+        if (inflightAtCompletion < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, config.getRttTolerance() * longRttNanos / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+        estimatedLimit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+        updateLimit();
+    }
+
+    private void updateLimit() {
+        int previous = limit;
+        limit = (int) estimatedLimit;
+        if (limit != previous) {
+            log.debug("{} 동시 요청 한도 변경: {} -> {} (longRtt={}ms)", engine, previous, limit,
+                    Math.round(longRttNanos / 1_000_000));
+        }
+    }
+
+    /**
+     * 대략 요청 하나가 끝나는 시간 뒤에 다시 시도하도록 안내한다.
+     */
+    Duration retryAfter() {
+        long rttMillis = (long) (longRttNanos / 1_000_000);
+        return Duration.ofMillis(Math.max(rttMillis, config.getMaxQueueWait().toMillis()));
+    }
+
+    private static boolean isDrop(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 대기자 하나. drain(GRANTED), 타이머(EXPIRED), 취소(CANCELLED) 중 먼저 상태를 바꾼 쪽이 처리한다.
+     * 취소는 항상 상태를 덮어쓰고 이전 상태를 돌려받아, 이미 자리를 받았으면 그 자리를 반납한다.
+     */
+    private static final class Waiter {
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int EXPIRED = 2;
+        private static final int CANCELLED = 3;
+
+        private final MonoSink<Long> sink;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Waiter(MonoSink<Long> sink) {
+            this.sink = sink;
+        }
+
+        private boolean claim(int next) {
+            return state.compareAndSet(WAITING, next);
+        }
+
+        private int cancel() {
+            return state.getAndSet(CANCELLED);
+        }
+    }
+}
\ No newline at end of file
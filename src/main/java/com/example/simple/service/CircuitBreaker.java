@@ -0,0 +1,215 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 복제본 하나의 서킷 브레이커 (CLOSED -> OPEN -> HALF_OPEN -> CLOSED/OPEN).
+ *
+ * - CLOSED: 최근 slidingWindowSize 건의 결과를 링 버퍼에 기록하고, minimumCalls 이상 쌓였을 때
+ *   실패율이나 느린 호출 비율이 임계값 이상이면 OPEN
+ * - OPEN: waitDurationInOpen 동안 모든 호출 거절, 이후 첫 호출이 HALF_OPEN 으로 전환
+ * - HALF_OPEN: permittedCallsInHalfOpen 건만 허용. 모두 성공하면 CLOSED, 하나라도 실패/느리면 다시 OPEN.
+ *   시험 호출이 취소되어 결과가 오지 않으면 waitDurationInOpen 뒤 다시 허용한다.
+ *
+ * 상태 전환은 CAS 로만 하고 창 집계는 원자 카운터로 유지하므로 요청 경로에 락이 없다.
+ * 4xx 응답(408/429 제외)은 요청 자체의 문제이므로 실패로 세지 않는다.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // 링 버퍼 칸 값: 0 은 비어 있음, 나머지는 RECORDED | FAILURE? | SLOW?
+    private static final int RECORDED = 1;
+    private static final int FAILURE = 2;
+    private static final int SLOW = 4;
+
+    private final LLMConfig.CircuitBreakerConfig config;
+    // 상태와 전환 시각을 한 객체로 묶어 CAS 한다 (둘이 어긋나 보이지 않도록)
+    private final AtomicReference<Snapshot> state = new AtomicReference<>(new Snapshot(State.CLOSED, System.nanoTime()));
+
+    private final AtomicIntegerArray window;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CircuitBreaker(LLMConfig.CircuitBreakerConfig config) {
+        this.config = config;
+        this.window = new AtomicIntegerArray(Math.max(1, config.getSlidingWindowSize()));
+    }
+
+    /**
+     * 호출 전에 허가를 받는다. false 면 호출하지 말고 바로 실패시켜야 한다.
+     */
+    public boolean tryAcquirePermission(long nowNanos) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        while (true) {
+            Snapshot current = state.get();
+            if (current.state == State.CLOSED) {
+                return true;
+            }
+            if (current.state == State.HALF_OPEN
+                    && halfOpenPermits.getAndUpdate(permits -> permits > 0 ? permits - 1 : permits) > 0) {
+                return true;
+            }
+            // OPEN 대기 시간이 지났거나, HALF_OPEN 시험 호출이 취소되어 결과 없이 대기 시간이 지난 경우
+            if (!current.waitElapsed(nowNanos, config)) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (transition(current, State.HALF_OPEN, nowNanos)) {
+                halfOpenSuccesses.set(0);
+                halfOpenPermits.set(config.getPermittedCallsInHalfOpen());
+            }
+        }
+    }
+
+    /**
+     * 허가를 소모하지 않고 지금 호출을 보낼 수 있는지만 본다 (라우팅용).
+     */
+    public boolean isCallPermitted(long nowNanos) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        Snapshot current = state.get();
+        switch (current.state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return current.waitElapsed(nowNanos, config);
+            default:
+                return halfOpenPermits.get() > 0 || current.waitElapsed(nowNanos, config);
+        }
+    }
+
+    public void onSuccess(long durationNanos) {
+        onResult(durationNanos, null);
+    }
+
+    public void onError(long durationNanos, Throwable error) {
+        onResult(durationNanos, error);
+    }
+
+    private void onResult(long durationNanos, Throwable error) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        boolean failure = error != null && countsAsFailure(error);
+        boolean slow = durationNanos >= config.getSlowCallDuration().toNanos();
+        long now = System.nanoTime();
+
+        Snapshot current = state.get();
+        if (current.state == State.HALF_OPEN) {
+            if (failure || slow) {
+                transition(current, State.OPEN, now);
+            } else if (halfOpenSuccesses.incrementAndGet() >= config.getPermittedCallsInHalfOpen()
+                    && transition(current, State.CLOSED, now)) {
+                resetWindow();
+            }
+            return;
+        }
+        if (current.state == State.OPEN) {
+            // 열리기 전에 나간 호출의 늦은 결과는 무시
+            return;
+        }
+
+        int outcome = RECORDED | (failure ? FAILURE : 0) | (slow ? SLOW : 0);
+        int previous = window.getAndSet((int) (cursor.getAndIncrement() % window.length()), outcome);
+        adjust(previous, -1);
+        adjust(outcome, 1);
+
+        int total = calls.get();
+        if (total >= config.getMinimumCalls()
+                && (failures.get() * 100 >= config.getFailureRateThreshold() * total
+                    || slowCalls.get() * 100 >= config.getSlowCallRateThreshold() * total)) {
+            transition(current, State.OPEN, now);
+        }
+    }
+
+    public State getState() {
+        return state.get().state;
+    }
+
+    /**
+     * 현재 창의 실패율 (%). 기록이 없으면 0.
+     */
+    public double failureRate() {
+        int total = calls.get();
+        return total == 0 ? 0.0 : failures.get() * 100.0 / total;
+    }
+
+    /**
+     * 현재 창의 느린 호출 비율 (%). 기록이 없으면 0.
+     */
+    public double slowCallRate() {
+        int total = calls.get();
+        return total == 0 ? 0.0 : slowCalls.get() * 100.0 / total;
+    }
+
+    public int getBufferedCalls() {
+        return calls.get();
+    }
+
+    public long getRejectedCalls() {
+        return rejected.get();
+    }
+
+    private boolean transition(Snapshot from, State to, long nowNanos) {
+        return state.compareAndSet(from, new Snapshot(to, nowNanos));
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < window.length(); i++) {
+            adjust(window.getAndSet(i, 0), -1);
+        }
+    }
+
+    private void adjust(int outcome, int delta) {
+        if (outcome == 0) {
+            return;
+        }
+        calls.addAndGet(delta);
+        if ((outcome & FAILURE) != 0) {
+            failures.addAndGet(delta);
+        }
+        if ((outcome & SLOW) != 0) {
+            slowCalls.addAndGet(delta);
+        }
+    }
+
+    private static boolean countsAsFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof WebClientResponseException) {
+                int status = ((WebClientResponseException) t).getRawStatusCode();
+                return status >= 500 || status == 408 || status == 429;
+            }
+        }
+        return true;
+    }
+
+    private static final class Snapshot {
+        private final State state;
+        private final long sinceNanos;
+
+        private Snapshot(State state, long sinceNanos) {
+            this.state = state;
+            this.sinceNanos = sinceNanos;
+        }
+
+        private boolean waitElapsed(long nowNanos, LLMConfig.CircuitBreakerConfig config) {
+            return nowNanos - sinceNanos >= config.getWaitDurationInOpen().toNanos();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,274 @@
+package com.example.simple.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 업스트림 응답 본문(DataBuffer 스트림)을 Jackson 논블로킹 파서로 한 번만 훑으면서
+ * 텍스트 추출에 필요한 필드만 꺼내는 디코더.
+ *
+ * 응답 전체를 String 으로 모으거나 JsonNode 트리를 만들지 않는다.
+ * 추출 대상: 최상위 text, 최상위 output, choices[0].text
+ * 배치 응답: choices[].text (choices[].index 기준), 최상위 배열 [].text (SGLang 배치)
+ * 토큰 수: usage.prompt_tokens/completion_tokens (vLLM), meta_info.prompt_tokens/completion_tokens (SGLang)
+ *
+ * 인스턴스는 응답 하나에만 사용하며 스레드 안전하지 않다.
+ */
+public class CompletionResponseDecoder {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private byte[] scratch = new byte[0];
+
+    // 현재 열린 컨테이너 깊이 (루트 객체 = 1)
+    private int depth = 0;
+    private String topField;
+    private boolean rootArray;
+
+    // choices 배열 추적
+    private int choicesArrayDepth = -1;
+    private int choicePosition = -1;
+    private int choiceDepth = -1;
+    private String choiceField;
+    private String currentChoiceText;
+    private int currentChoiceIndex;
+
+    // 최상위 배열 원소 추적 (SGLang 배치 응답)
+    private int itemPosition = -1;
+    private int itemDepth = -1;
+    private String itemField;
+
+    // usage / meta_info 객체 추적 (토큰 수)
+    private int usageDepth = -1;
+    private String usageField;
+
+    private String text;
+    private String output;
+    private String choicesText;
+    private Map<Integer, String> choiceTexts;
+    private Map<Integer, String> itemTexts;
+    private long promptTokens = -1;
+    private long completionTokens = -1;
+    private long parseNanos;
+
+    public CompletionResponseDecoder(JsonFactory jsonFactory) {
+        try {
+            this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * 응답 본문 스트림을 끝까지 디코딩한다. 각 DataBuffer는 읽은 즉시 해제된다.
+     */
+    public static Mono<CompletionResponseDecoder> decode(Flux<DataBuffer> body, JsonFactory jsonFactory) {
+        return body
+                .collect(() -> new CompletionResponseDecoder(jsonFactory), CompletionResponseDecoder::feed)
+                .map(CompletionResponseDecoder::finish);
+    }
+
+    public void feed(DataBuffer buffer) {
+        try {
+            int length = buffer.readableByteCount();
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            buffer.read(scratch, 0, length);
+            feed(scratch, 0, length);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    public void feed(byte[] bytes, int offset, int length) {
+        long start = System.nanoTime();
+        try {
+            feeder.feedInput(bytes, offset, offset + length);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException("응답 파싱 실패: " + e.getMessage(), e);
+        } finally {
+            parseNanos += System.nanoTime() - start;
+        }
+    }
+
+    public CompletionResponseDecoder finish() {
+        long start = System.nanoTime();
+        try {
+            feeder.endOfInput();
+            drain();
+            parser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("응답 파싱 실패: " + e.getMessage(), e);
+        } finally {
+            parseNanos += System.nanoTime() - start;
+        }
+        return this;
+    }
+
+    /** 최상위 text 필드 */
+    public String getText() {
+        return text;
+    }
+
+    /** 최상위 output 필드 */
+    public String getOutput() {
+        return output;
+    }
+
+    /** choices[0].text 필드 */
+    public String getChoicesText() {
+        return choicesText;
+    }
+
+    /** choices[].index 가 index 인 항목의 text (배치 응답) */
+    public String getChoiceText(int index) {
+        return choiceTexts != null ? choiceTexts.get(index) : null;
+    }
+
+    /** 최상위 배열 position 번째 원소의 text (SGLang 배치 응답) */
+    public String getItemText(int position) {
+        return itemTexts != null ? itemTexts.get(position) : null;
+    }
+
+    /** usage/meta_info 의 prompt_tokens, 없으면 -1 */
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+
+    /** usage/meta_info 의 completion_tokens, 없으면 -1 */
+    public long getCompletionTokens() {
+        return completionTokens;
+    }
+
+    /** feed/finish 에서 파싱에 쓴 시간 (나노초) */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                if (depth == choicesArrayDepth) {
+                    choicePosition++;
+                    choiceDepth = depth + 1;
+                    choiceField = null;
+                    currentChoiceText = null;
+                    currentChoiceIndex = choicePosition;
+                } else if (rootArray && depth == 1) {
+                    itemPosition++;
+                    itemDepth = depth + 1;
+                    itemField = null;
+                } else if (depth == 1 && ("usage".equals(topField) || "meta_info".equals(topField))) {
+                    usageDepth = depth + 1;
+                    usageField = null;
+                }
+                depth++;
+                break;
+            case START_ARRAY:
+                if (depth == choicesArrayDepth) {
+                    choicePosition++;
+                } else if (depth == 0) {
+                    rootArray = true;
+                } else if (rootArray && depth == 1) {
+                    itemPosition++;
+                }
+                depth++;
+                if (depth == 2 && !rootArray && "choices".equals(topField)) {
+                    choicesArrayDepth = depth;
+                }
+                break;
+            case END_OBJECT:
+                if (depth == choiceDepth) {
+                    finishChoice();
+                } else if (depth == itemDepth) {
+                    itemDepth = -1;
+                } else if (depth == usageDepth) {
+                    usageDepth = -1;
+                }
+                depth--;
+                break;
+            case END_ARRAY:
+                if (depth == choicesArrayDepth) {
+                    choicesArrayDepth = -1;
+                }
+                depth--;
+                break;
+            case FIELD_NAME:
+                if (depth == 1 && !rootArray) {
+                    topField = parser.getCurrentName();
+                } else if (depth == choiceDepth) {
+                    choiceField = parser.getCurrentName();
+                } else if (depth == itemDepth) {
+                    itemField = parser.getCurrentName();
+                } else if (depth == usageDepth) {
+                    usageField = parser.getCurrentName();
+                }
+                break;
+            default:
+                // 스칼라 값
+                if (depth == choicesArrayDepth) {
+                    choicePosition++;
+                } else if (rootArray && depth == 1) {
+                    itemPosition++;
+                } else if (depth == 1) {
+                    if ("text".equals(topField)) {
+                        text = parser.getText();
+                    } else if ("output".equals(topField)) {
+                        output = parser.getText();
+                    }
+                } else if (depth == choiceDepth) {
+                    if ("text".equals(choiceField)) {
+                        currentChoiceText = parser.getText();
+                    } else if ("index".equals(choiceField) && token == JsonToken.VALUE_NUMBER_INT) {
+                        currentChoiceIndex = parser.getIntValue();
+                    }
+                } else if (depth == itemDepth && "text".equals(itemField)) {
+                    if (itemTexts == null) {
+                        itemTexts = new HashMap<>();
+                    }
+                    itemTexts.put(itemPosition, parser.getText());
+                } else if (depth == usageDepth && token == JsonToken.VALUE_NUMBER_INT) {
+                    if ("prompt_tokens".equals(usageField)) {
+                        promptTokens = parser.getLongValue();
+                    } else if ("completion_tokens".equals(usageField)) {
+                        completionTokens = parser.getLongValue();
+                    }
+                }
+                break;
+        }
+    }
+
+    private void finishChoice() {
+        if (choicePosition == 0) {
+            choicesText = currentChoiceText;
+        }
+        if (currentChoiceText != null) {
+            if (choiceTexts == null) {
+                choiceTexts = new HashMap<>();
+            }
+            choiceTexts.put(currentChoiceIndex, currentChoiceText);
+        }
+        choiceDepth = -1;
+    }
+}
\ No newline at end of file
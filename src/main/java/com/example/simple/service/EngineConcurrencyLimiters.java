@@ -0,0 +1,57 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 엔진별 적응형 동시 요청 한도.
+ *
+ * 메트릭 (engine 태그): llm.concurrency.limit, llm.concurrency.inflight, llm.concurrency.queue.depth,
+ * llm.concurrency.rejected
+ */
+@Component
+public class EngineConcurrencyLimiters {
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new HashMap<>();
+
+    public EngineConcurrencyLimiters(LLMConfig llmConfig, MeterRegistry meterRegistry) {
+        for (String engine : new String[]{"vllm", "sglang"}) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(engine, llmConfig.getConcurrencyLimit());
+            registerMetrics(limiter, meterRegistry);
+            limiters.put(engine, limiter);
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter get(String engine) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(engine);
+        if (limiter == null) {
+            throw new IllegalArgumentException("알 수 없는 엔진: " + engine);
+        }
+        return limiter;
+    }
+
+    private void registerMetrics(AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        Gauge.builder("llm.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("현재 엔진 동시 요청 한도")
+                .tag("engine", limiter.getEngine())
+                .register(meterRegistry);
+        Gauge.builder("llm.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .description("한도 안에서 진행 중인 요청 수")
+                .tag("engine", limiter.getEngine())
+                .register(meterRegistry);
+        Gauge.builder("llm.concurrency.queue.depth", limiter, AdaptiveConcurrencyLimiter::getQueueDepth)
+                .description("한도에 막혀 대기 중인 요청 수")
+                .tag("engine", limiter.getEngine())
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                .description("한도 초과로 거절된 요청 수 (429)")
+                .tag("engine", limiter.getEngine())
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMResponse;
+import com.example.simple.exception.CircuitBreakerOpenException;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * llm.failover.* 설정에 따른 재시도 + 엔진 전환.
+ *
+ * 1. 선택된 엔진 호출이 실패하면 지터가 섞인 지수 백오프로 retryAttempts 번까지 재시도
+ * 2. 그래도 실패하면 다른 엔진이 활성화되어 있을 때 한 번 전환
+ * 재시도와 전환은 모두 공용 재시도 예산(토큰 버킷)에서 토큰을 써야 하므로,
+ * 한 엔진이 죽어도 살아있는 엔진으로 가는 부하가 요청량의 budget.ratio 이상 늘지 않는다.
+ *
+ * 메트릭: llm.failover.retries (engine), llm.failover.switches (from, to),
+ * llm.failover.budget.exhausted, llm.failover.budget.available
+ */
+@Component
+@Slf4j
+public class EngineFailover {
+
+    private final LLMConfig llmConfig;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget retryBudget;
+    private final Counter budgetExhaustedCounter;
+
+    public EngineFailover(LLMConfig llmConfig, MeterRegistry meterRegistry) {
+        this.llmConfig = llmConfig;
+        this.meterRegistry = meterRegistry;
+
+        LLMConfig.RetryBudgetConfig budget = llmConfig.getFailover().getBudget();
+        this.retryBudget = new RetryBudget(budget.getRatio(), budget.getMinPerSecond(), budget.getCapacity());
+
+        this.budgetExhaustedCounter = Counter.builder("llm.failover.budget.exhausted")
+                .description("재시도 예산이 없어 재시도/전환하지 못한 횟수")
+                .register(meterRegistry);
+        Gauge.builder("llm.failover.budget.available", retryBudget, RetryBudget::available)
+                .description("현재 사용 가능한 재시도 토큰 수")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return llmConfig.getFailover().isEnabled();
+    }
+
+    /**
+     * engine 으로 call 을 실행하고, 실패하면 재시도 후 다른 엔진으로 전환한다.
+     *
+     * @param call 엔진 이름("vllm"/"sglang")을 받아 실제 호출을 만드는 함수
+     */
+    public Mono<LLMResponse> execute(String engine, Function<String, Mono<LLMResponse>> call) {
+        return Mono.defer(() -> {
+            retryBudget.recordRequest();
+
+            AtomicBoolean retried = new AtomicBoolean();
+            // 재시도는 prefix 친화도를 무시해 방금 실패한 복제본이 아닌 곳으로 갈 기회를 준다
+            return Mono.defer(() -> call.apply(engine))
+                    .subscriberContext(context -> retried.getAndSet(true) ? EngineReplicaPools.bypassAffinity(context) : context)
+                    .retryWhen(Retry.from(signals -> signals.concatMap(signal ->
+                            retryOrGiveUp(engine, signal.failure(), signal.totalRetries()))))
+                    .onErrorResume(e -> failover(engine, e, call));
+        });
+    }
+
+    private Mono<Long> retryOrGiveUp(String engine, Throwable failure, long retries) {
+        LLMConfig.FailoverConfig config = llmConfig.getFailover();
+        if (retries >= config.getRetryAttempts() || !isEngineEnabled(engine) || !isRetryable(failure)
+                || isFastRejection(failure)) {
+            return Mono.error(failure);
+        }
+        if (!retryBudget.tryAcquire()) {
+            budgetExhaustedCounter.increment();
+            log.warn("재시도 예산 소진으로 재시도 생략: engine={}, error={}", engine, failure.getMessage());
+            return Mono.error(failure);
+        }
+
+        Duration delay = backoff(retries);
+        log.warn("{} 호출 실패, {}ms 후 재시도 ({}/{}): {}",
+                engine, delay.toMillis(), retries + 1, config.getRetryAttempts(), failure.getMessage());
+        meterRegistry.counter("llm.failover.retries", "engine", engine).increment();
+        return Mono.delay(delay);
+    }
+
+    private Mono<LLMResponse> failover(String engine, Throwable failure, Function<String, Mono<LLMResponse>> call) {
+        String other = "sglang".equals(engine) ? "vllm" : "sglang";
+        if (!isEngineEnabled(other) || !isRetryable(failure)) {
+            return Mono.error(failure);
+        }
+        if (!retryBudget.tryAcquire()) {
+            budgetExhaustedCounter.increment();
+            log.warn("재시도 예산 소진으로 엔진 전환 생략: {} -> {}", engine, other);
+            return Mono.error(failure);
+        }
+
+        log.warn("{} 호출 실패, {}(으)로 전환: {}", engine, other, failure.getMessage());
+        meterRegistry.counter("llm.failover.switches", "from", engine, "to", other).increment();
+        return Mono.defer(() -> call.apply(other));
+    }
+
+    /**
+     * 지수 백오프 (retryDelay * 2^n, 최대 maxRetryDelay) 의 절반은 고정, 나머지 절반은 무작위로 둔다.
+     * 동시에 실패한 요청들이 같은 순간에 다시 몰리지 않게 하기 위함.
+     */
+    Duration backoff(long retries) {
+        LLMConfig.FailoverConfig config = llmConfig.getFailover();
+        long base = config.getRetryDelay().toMillis();
+        long exponential = Math.min(config.getMaxRetryDelay().toMillis(), base << Math.min(retries, 20));
+        long half = exponential / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(exponential - half + 1));
+    }
+
+    /**
+     * 클라이언트 오류(4xx)는 다른 엔진에서도 같으므로 재시도하지 않는다. 단, 408/429 는 예외.
+     */
+    private boolean isRetryable(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof WebClientResponseException) {
+                int status = ((WebClientResponseException) t).getRawStatusCode();
+                return status >= 500 || status == 408 || status == 429;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 엔진의 모든 복제본이 차단되었거나 동시 요청 한도에 걸려 즉시 거절된 경우
+     * 같은 엔진 재시도는 부하만 더하므로 바로 전환한다.
+     */
+    private boolean isFastRejection(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof CircuitBreakerOpenException || t instanceof ConcurrencyLimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isEngineEnabled(String engine) {
+        return "sglang".equals(engine) ? llmConfig.getSglang().isEnabled() : llmConfig.getVllm().isEnabled();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엔진 복제본 백그라운드 헬스 체크.
+ *
+ * interval 마다 활성화된 엔진의 모든 복제본에 병렬로 GET {path} 를 보내고, 결과와 응답 시간을
+ * 각 EngineReplica 에 ReplicaHealth 로 저장한다. 헬스 엔드포인트와 복제본 선택은 저장된 결과만 읽으므로
+ * 요청 스레드가 엔진 응답을 기다리지 않는다. 한 라운드가 끝나기 전에 다음 주기가 오면 그 주기는 건너뛴다.
+ *
+ * 메트릭 (engine, replica 태그): llm.replica.health (0=unknown, 1=up, 2=down), llm.replica.health.latency
+ */
+@Component
+@Slf4j
+public class EngineHealthProber implements InitializingBean, DisposableBean {
+
+    private final LLMConfig llmConfig;
+    private final EngineReplicaPools replicaPools;
+
+    private volatile Disposable schedule;
+
+    public EngineHealthProber(LLMConfig llmConfig, EngineReplicaPools replicaPools, MeterRegistry meterRegistry) {
+        this.llmConfig = llmConfig;
+        this.replicaPools = replicaPools;
+        for (String engine : new String[]{"vllm", "sglang"}) {
+            for (EngineReplica replica : replicaPools.get(engine).getReplicas()) {
+                registerMetrics(replica, meterRegistry);
+            }
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        LLMConfig.HealthCheckConfig config = llmConfig.getHealthCheck();
+        if (!config.isEnabled()) {
+            return;
+        }
+        schedule = Flux.interval(Duration.ZERO, config.getInterval(), Schedulers.parallel())
+                .onBackpressureDrop()
+                .concatMap(tick -> probeAll(), 1)
+                .subscribe();
+        log.info("엔진 헬스 체크 시작: interval={}s, timeout={}ms", config.getInterval().getSeconds(),
+                config.getTimeout().toMillis());
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = schedule;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * 활성화된 엔진의 모든 복제본을 동시에 확인한다. 각 호출은 timeout 으로 끝나므로 라운드도 timeout 안에 끝난다.
+     */
+    public Mono<Void> probeAll() {
+        return Flux.fromIterable(enabledReplicas())
+                .flatMap(this::probe)
+                .then();
+    }
+
+    Mono<ReplicaHealth> probe(EngineReplica replica) {
+        LLMConfig.HealthCheckConfig config = llmConfig.getHealthCheck();
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return replica.getWebClient()
+                    .get()
+                    .uri(config.getPath())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(config.getTimeout())
+                    .map(response -> new ReplicaHealth(ReplicaHealth.Status.UP, elapsedMillis(start),
+                            System.currentTimeMillis(), 0, null))
+                    .onErrorResume(e -> Mono.just(failed(replica.getHealth(), elapsedMillis(start), e)))
+                    .doOnNext(health -> update(replica, health));
+        });
+    }
+
+    /**
+     * 연속 실패가 failureThreshold 에 닿기 전까지는 이전 상태를 유지한다 (한 번의 타임아웃으로 빼지 않는다).
+     */
+    private ReplicaHealth failed(ReplicaHealth previous, long latencyMs, Throwable error) {
+        int failures = previous.getConsecutiveFailures() + 1;
+        ReplicaHealth.Status status = failures >= llmConfig.getHealthCheck().getFailureThreshold()
+                ? ReplicaHealth.Status.DOWN
+                : previous.getStatus();
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        return new ReplicaHealth(status, latencyMs, System.currentTimeMillis(), failures, reason);
+    }
+
+    private void update(EngineReplica replica, ReplicaHealth health) {
+        ReplicaHealth.Status previous = replica.getHealth().getStatus();
+        replica.updateHealth(health);
+        if (previous != ReplicaHealth.Status.DOWN && health.getStatus() == ReplicaHealth.Status.DOWN) {
+            log.warn("{} 복제본 헬스 체크 실패로 제외: {} ({}회 연속, {})", replica.getEngine(), replica.getBaseUrl(),
+                    health.getConsecutiveFailures(), health.getError());
+        } else if (previous == ReplicaHealth.Status.DOWN && health.getStatus() == ReplicaHealth.Status.UP) {
+            log.info("{} 복제본 헬스 체크 복구: {}", replica.getEngine(), replica.getBaseUrl());
+        }
+    }
+
+    /**
+     * 엔진 전체 상태: 복제본 하나라도 UP 이면 UP, 모두 DOWN 이면 DOWN, 그 외(체크 전 등)는 UNKNOWN.
+     */
+    public String engineStatus(String engine) {
+        boolean allDown = true;
+        for (EngineReplica replica : replicaPools.get(engine).getReplicas()) {
+            ReplicaHealth.Status status = replica.getHealth().getStatus();
+            if (status == ReplicaHealth.Status.UP) {
+                return "UP";
+            }
+            allDown &= status == ReplicaHealth.Status.DOWN;
+        }
+        return allDown ? "DOWN" : "UNKNOWN";
+    }
+
+    /**
+     * 헬스 엔드포인트용 복제본별 마지막 헬스 체크 결과 (키: 복제본 id)
+     */
+    public Map<String, Object> replicaStates() {
+        Map<String, Object> states = new LinkedHashMap<>();
+        for (EngineReplica replica : enabledReplicas()) {
+            ReplicaHealth health = replica.getHealth();
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("url", replica.getBaseUrl());
+            state.put("status", health.getStatus().name());
+            state.put("latency_ms", health.getLatencyMs());
+            state.put("checked_at", health.getCheckedAt());
+            state.put("consecutive_failures", health.getConsecutiveFailures());
+            if (health.getError() != null) {
+                state.put("error", health.getError());
+            }
+            states.put(replica.getId(), state);
+        }
+        return states;
+    }
+
+    private List<EngineReplica> enabledReplicas() {
+        List<EngineReplica> replicas = new ArrayList<>();
+        if (llmConfig.getVllm().isEnabled()) {
+            replicas.addAll(replicaPools.get("vllm").getReplicas());
+        }
+        if (llmConfig.getSglang().isEnabled()) {
+            replicas.addAll(replicaPools.get("sglang").getReplicas());
+        }
+        return replicas;
+    }
+
+    private void registerMetrics(EngineReplica replica, MeterRegistry meterRegistry) {
+        Gauge.builder("llm.replica.health", replica, r -> r.getHealth().getStatus().ordinal())
+                .description("헬스 체크 상태 (0=unknown, 1=up, 2=down)")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .register(meterRegistry);
+        Gauge.builder("llm.replica.health.latency", replica, r -> r.getHealth().getLatencyMs())
+                .description("마지막 헬스 체크 응답 시간 (ms)")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,222 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.exception.CircuitBreakerOpenException;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 엔진 복제본 하나 (URL + 전용 WebClient) 와 부하 분산에 쓰는 실시간 상태.
+ *
+ * - outstanding: 진행 중 요청 수
+ * - EWMA 지연: 비스트리밍 호출의 완료 시간 (실패/타임아웃은 현재 EWMA 의 2배 이상으로 반영)
+ * - 제외(ejected) 상태: 느려진 복제본을 일정 시간 선택 대상에서 뺀다
+ * - prefix 친화도 적중/미적중 수
+ * - 서킷 브레이커: 열려 있으면 업스트림을 호출하지 않고 CircuitBreakerOpenException 으로 즉시 실패
+ * - 헬스 체크 결과: EngineHealthProber 가 주기적으로 갱신하며, DOWN 이면 선택 대상에서 뺀다
+ *
+ * 모든 상태는 원자 변수로만 갱신하므로 요청 경로에 락이 없다.
+ */
+public class EngineReplica {
+
+    private static final double DEFAULT_EWMA_ALPHA = 0.3;
+
+    private final String engine;
+    private final String id;
+    private final String baseUrl;
+    private final WebClient webClient;
+    private final double ewmaAlpha;
+    private final CircuitBreaker circuitBreaker;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong ewmaBits = new AtomicLong(Double.doubleToLongBits(0.0));
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong ejections = new AtomicLong();
+    private final AtomicLong affinityHits = new AtomicLong();
+    private final AtomicLong affinityMisses = new AtomicLong();
+    // 0 이면 정상, 아니면 System.nanoTime() 기준 재투입 시각
+    private volatile long ejectedUntilNanos;
+    private volatile ReplicaHealth health = ReplicaHealth.NOT_CHECKED;
+
+    public EngineReplica(String engine, String id, String baseUrl, WebClient webClient, double ewmaAlpha,
+                         CircuitBreaker circuitBreaker) {
+        this.engine = engine;
+        this.id = id;
+        this.baseUrl = baseUrl;
+        this.webClient = webClient;
+        this.ewmaAlpha = ewmaAlpha;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public EngineReplica(String engine, String id, String baseUrl, WebClient webClient, double ewmaAlpha) {
+        this(engine, id, baseUrl, webClient, ewmaAlpha, new CircuitBreaker(new LLMConfig.CircuitBreakerConfig()));
+    }
+
+    public EngineReplica(String engine, String baseUrl, WebClient webClient) {
+        this(engine, engine + "-0", baseUrl, webClient, DEFAULT_EWMA_ALPHA);
+    }
+
+    /**
+     * 비스트리밍 호출을 감싸 진행 중 요청 수와 완료 시간을 기록하고 서킷 브레이커에 결과를 알린다.
+     */
+    public <T> Mono<T> track(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            if (!circuitBreaker.tryAcquirePermission(start)) {
+                return Mono.error(new CircuitBreakerOpenException(id));
+            }
+            outstanding.incrementAndGet();
+            return call
+                    .doOnSuccess(value -> {
+                        long elapsed = System.nanoTime() - start;
+                        recordLatency(toMillis(elapsed));
+                        circuitBreaker.onSuccess(elapsed);
+                    })
+                    .doOnError(e -> {
+                        long elapsed = System.nanoTime() - start;
+                        recordLatency(Math.max(toMillis(elapsed), ewmaMillis() * 2));
+                        circuitBreaker.onError(elapsed, e);
+                    })
+                    .doFinally(signal -> outstanding.decrementAndGet());
+        });
+    }
+
+    /**
+     * 스트리밍 호출은 완료 시간이 출력 길이에 좌우되므로 진행 중 요청 수와 성공/실패만 기록한다.
+     */
+    public <T> Flux<T> trackStream(Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission(System.nanoTime())) {
+                return Flux.error(new CircuitBreakerOpenException(id));
+            }
+            outstanding.incrementAndGet();
+            return call
+                    .doOnComplete(() -> circuitBreaker.onSuccess(0))
+                    .doOnError(e -> circuitBreaker.onError(0, e))
+                    .doFinally(signal -> outstanding.decrementAndGet());
+        });
+    }
+
+    public void recordLatency(double millis) {
+        long count = samples.getAndIncrement();
+        while (true) {
+            long currentBits = ewmaBits.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double next = count == 0 ? millis : current + ewmaAlpha * (millis - current);
+            if (ewmaBits.compareAndSet(currentBits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * P2C 비교용 비용: 지연이 길고 진행 중 요청이 많을수록 크다.
+     */
+    public double cost() {
+        return (ewmaMillis() + 1.0) * (outstanding.get() + 1);
+    }
+
+    /**
+     * 헬스 체크에서 DOWN 이 아니고, 제외되지 않았고, 서킷 브레이커가 호출을 허용하면 선택 대상이다.
+     */
+    public boolean isAvailable(long nowNanos) {
+        return health.isRoutable() && !isEjected(nowNanos) && circuitBreaker.isCallPermitted(nowNanos);
+    }
+
+    public boolean isEjected(long nowNanos) {
+        long until = ejectedUntilNanos;
+        return until != 0 && nowNanos - until < 0;
+    }
+
+    boolean isEjectionExpired(long nowNanos) {
+        long until = ejectedUntilNanos;
+        return until != 0 && nowNanos - until >= 0;
+    }
+
+    void eject(long nowNanos, long durationNanos) {
+        ejectedUntilNanos = nowNanos + durationNanos;
+        ejections.incrementAndGet();
+    }
+
+    /**
+     * 재투입: EWMA 를 기준값으로 되돌려 다시 트래픽을 받을 기회를 준다.
+     */
+    void readmit(double baselineMillis) {
+        ejectedUntilNanos = 0;
+        ewmaBits.set(Double.doubleToLongBits(baselineMillis));
+    }
+
+    void recordAffinity(boolean hit) {
+        (hit ? affinityHits : affinityMisses).incrementAndGet();
+    }
+
+    /**
+     * prefix 친화도로 이 복제본에 온 요청 비율. 친화도 라우팅을 거친 요청이 없으면 0.
+     */
+    public double affinityHitRatio() {
+        long hits = affinityHits.get();
+        long total = hits + affinityMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public WebClient getWebClient() {
+        return webClient;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public ReplicaHealth getHealth() {
+        return health;
+    }
+
+    void updateHealth(ReplicaHealth health) {
+        this.health = health;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public double ewmaMillis() {
+        return Double.longBitsToDouble(ewmaBits.get());
+    }
+
+    public long getSamples() {
+        return samples.get();
+    }
+
+    public long getEjections() {
+        return ejections.get();
+    }
+
+    public long getAffinityHits() {
+        return affinityHits.get();
+    }
+
+    public long getAffinityMisses() {
+        return affinityMisses.get();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
\ No newline at end of file
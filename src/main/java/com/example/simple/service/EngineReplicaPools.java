@@ -0,0 +1,158 @@
+package com.example.simple.service;
+
+import com.example.simple.config.EngineWebClients;
+import com.example.simple.config.LLMConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엔진별 복제본 풀. 애플리케이션 시작 시 llm.{vllm,sglang}.replicas (없으면 base-url) 로 한 번 구성한다.
+ *
+ * 메트릭 (engine, replica 태그):
+ * llm.replica.outstanding, llm.replica.latency.ewma, llm.replica.ejected, llm.replica.ejections,
+ * llm.replica.affinity (result=hit|miss), llm.replica.affinity.hit.ratio, llm.replica.affinity.entries (engine),
+ * llm.replica.circuit.state (0=closed, 1=open, 2=half-open), llm.replica.circuit.rejected
+ */
+@Component
+@Slf4j
+public class EngineReplicaPools {
+
+    /**
+     * 이 키가 true 인 Reactor Context 로 구독된 호출은 prefix 친화도를 무시하고 부하 기준으로만 고른다.
+     * 헤지와 재시도가 주 요청과 같은 복제본으로 가지 않도록 할 때 쓴다.
+     */
+    public static final String BYPASS_AFFINITY = EngineReplicaPools.class.getName() + ".bypassAffinity";
+
+    private final Map<String, ReplicaPool> pools = new HashMap<>();
+
+    public EngineReplicaPools(LLMConfig llmConfig, EngineWebClients engineWebClients, MeterRegistry meterRegistry) {
+        pools.put("vllm", build("vllm", llmConfig.getVllm().resolveReplicaUrls(), llmConfig.getVllm().getPool(),
+                llmConfig, engineWebClients, meterRegistry));
+        pools.put("sglang", build("sglang", llmConfig.getSglang().resolveReplicaUrls(), llmConfig.getSglang().getPool(),
+                llmConfig, engineWebClients, meterRegistry));
+    }
+
+    public ReplicaPool get(String engine) {
+        ReplicaPool pool = pools.get(engine);
+        if (pool == null) {
+            throw new IllegalArgumentException("알 수 없는 엔진: " + engine);
+        }
+        return pool;
+    }
+
+    /**
+     * 부하 분산 정책에 따라 이번 호출에 사용할 복제본을 고른다.
+     */
+    public EngineReplica choose(String engine) {
+        return get(engine).choose();
+    }
+
+    /**
+     * 프롬프트 prefix 친화도를 반영해 복제본을 고른다. context 에 BYPASS_AFFINITY 가 있으면 부하 기준으로만 고른다.
+     */
+    public EngineReplica choose(String engine, String prompt, Context context) {
+        if (context.getOrDefault(BYPASS_AFFINITY, false)) {
+            return get(engine).choose();
+        }
+        return get(engine).choose(prompt);
+    }
+
+    public static Context bypassAffinity(Context context) {
+        return context.put(BYPASS_AFFINITY, true);
+    }
+
+    /**
+     * 헬스 엔드포인트용 복제본별 서킷 브레이커 상태 (키: 복제본 id)
+     */
+    public Map<String, Object> circuitBreakerStates() {
+        Map<String, Object> states = new LinkedHashMap<>();
+        for (String engine : Arrays.asList("vllm", "sglang")) {
+            for (EngineReplica replica : get(engine).getReplicas()) {
+                CircuitBreaker breaker = replica.getCircuitBreaker();
+                Map<String, Object> state = new LinkedHashMap<>();
+                state.put("url", replica.getBaseUrl());
+                state.put("state", breaker.getState().name());
+                state.put("failure_rate", Math.round(breaker.failureRate() * 10) / 10.0);
+                state.put("slow_call_rate", Math.round(breaker.slowCallRate() * 10) / 10.0);
+                state.put("buffered_calls", breaker.getBufferedCalls());
+                state.put("rejected_calls", breaker.getRejectedCalls());
+                states.put(replica.getId(), state);
+            }
+        }
+        return states;
+    }
+
+    private ReplicaPool build(String engine, List<String> urls, LLMConfig.PoolConfig poolConfig,
+                              LLMConfig llmConfig, EngineWebClients engineWebClients, MeterRegistry meterRegistry) {
+        LLMConfig.LoadBalancingConfig loadBalancing = llmConfig.getLoadBalancing();
+        List<EngineReplica> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            String id = engine + "-" + i;
+            String url = urls.get(i).trim();
+            EngineReplica replica = new EngineReplica(engine, id, url,
+                    engineWebClients.create(engine, id, url, poolConfig), loadBalancing.getEwmaAlpha(),
+                    new CircuitBreaker(llmConfig.getCircuitBreaker()));
+            registerMetrics(replica, meterRegistry);
+            replicas.add(replica);
+        }
+        log.info("{} 복제본 {}개 구성: strategy={}, affinity={}", engine, replicas.size(), loadBalancing.getStrategy(),
+                loadBalancing.getAffinity().isEnabled());
+        ReplicaPool pool = new ReplicaPool(engine, replicas, loadBalancing);
+        Gauge.builder("llm.replica.affinity.entries", pool, ReplicaPool::affinityEntries)
+                .description("prefix 친화도 테이블 항목 수")
+                .tag("engine", engine)
+                .register(meterRegistry);
+        return pool;
+    }
+
+    private void registerMetrics(EngineReplica replica, MeterRegistry meterRegistry) {
+        Gauge.builder("llm.replica.outstanding", replica, EngineReplica::getOutstanding)
+                .description("복제본에 진행 중인 요청 수")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .register(meterRegistry);
+        Gauge.builder("llm.replica.latency.ewma", replica, EngineReplica::ewmaMillis)
+                .description("복제본 응답 시간 EWMA (ms)")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("llm.replica.ejected", replica, r -> r.isEjected(System.nanoTime()) ? 1 : 0)
+                .description("복제본이 일시 제외 상태이면 1")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.replica.ejections", replica, EngineReplica::getEjections)
+                .description("복제본이 느려져 제외된 횟수")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.replica.affinity", replica, EngineReplica::getAffinityHits)
+                .description("prefix 친화도 라우팅 결과")
+                .tags("engine", replica.getEngine(), "replica", replica.getId(), "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.replica.affinity", replica, EngineReplica::getAffinityMisses)
+                .description("prefix 친화도 라우팅 결과")
+                .tags("engine", replica.getEngine(), "replica", replica.getId(), "result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("llm.replica.affinity.hit.ratio", replica, EngineReplica::affinityHitRatio)
+                .description("prefix 친화도로 이 복제본에 라우팅된 요청 비율")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .register(meterRegistry);
+        Gauge.builder("llm.replica.circuit.state", replica.getCircuitBreaker(), breaker -> breaker.getState().ordinal())
+                .description("서킷 브레이커 상태 (0=closed, 1=open, 2=half-open)")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.replica.circuit.rejected", replica.getCircuitBreaker(), CircuitBreaker::getRejectedCalls)
+                .description("서킷 브레이커가 열려 즉시 거절한 호출 수")
+                .tags("engine", replica.getEngine(), "replica", replica.getId())
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.example.simple.service;
+
+import com.example.simple.exception.CircuitBreakerOpenException;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 생성 경로 Micrometer 계측. 모든 Timer/DistributionSummary 는 백분위수 히스토그램을 내보내므로
+ * Prometheus(/actuator/prometheus)에서 histogram_quantile 로 인스턴스를 합쳐 백분위수를 계산할 수 있다.
+ * 시간은 모두 System.nanoTime 으로 잰다.
+ *
+ * 메트릭:
+ * - llm.request.duration (engine, outcome): LLMService 가 잰 요청 전체 시간 (캐시, 대기열, 재시도 포함)
+ * - llm.engine.queue.wait (engine, replica): 엔진 동시 요청 한도 앞에서 기다린 시간
+ * - llm.engine.request.duration (engine, replica, outcome): 복제본 업스트림 호출 한 번의 시간
+ * - llm.engine.ttft (engine, replica): 스트리밍 호출의 첫 토큰까지 시간
+ * - llm.engine.tokens (engine, replica, type=input|output): 업스트림 호출당 토큰 수
+ * - llm.engine.tokens.per.second (engine, replica): 출력 토큰 수 / 업스트림 호출 시간
+ *
+ * outcome: success, error, rejected (동시 요청 한도/대기열/서킷 브레이커로 즉시 거절), cancelled (헤징 등으로 취소),
+ * cached (응답 캐시 적중, llm.request.duration 에만 쓰며 success 의 지연 분포와 섞이지 않게 따로 둔다)
+ * 토큰 수는 비스트리밍 응답의 usage(vLLM) / meta_info(SGLang) 값이고, 스트리밍은 받은 텍스트 청크 수로 출력 토큰을 근사한다.
+ */
+@Component
+public class LLMMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+    public static final String REJECTED = "rejected";
+    public static final String CANCELLED = "cancelled";
+    public static final String CACHED = "cached";
+
+    private static final Duration MAX_EXPECTED_LATENCY = Duration.ofMinutes(5);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public LLMMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 요청 전체 시간 (LLMService)
+     */
+    public void recordRequest(String engine, String outcome, long nanos) {
+        timer("llm.request.duration", "LLM 요청 전체 처리 시간", engine, null, outcome)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Mono<CompletionResponseDecoder> recordCall(String engine, String replica, long queuedAtNanos,
+                                                      Mono<CompletionResponseDecoder> call) {
+        return recordCall(engine, replica, queuedAtNanos, RequestTimings.NONE, call);
+    }
+
+    /**
+     * 비스트리밍 업스트림 호출을 계측한다. 구독 시점까지를 queuedAtNanos 부터의 대기 시간으로 본다.
+     * 요청 구간 시간(timings)에는 대기 시간을 LIMIT, 호출 시간 중 파싱을 뺀 나머지를 UPSTREAM, 파싱을 PARSE 로 더한다.
+     */
+    public Mono<CompletionResponseDecoder> recordCall(String engine, String replica, long queuedAtNanos,
+                                                      RequestTimings timings, Mono<CompletionResponseDecoder> call) {
+        return Mono.defer(() -> {
+            long sentAt = System.nanoTime();
+            timer("llm.engine.queue.wait", "엔진 동시 요청 한도 앞에서 기다린 시간", engine, replica, null)
+                    .record(sentAt - queuedAtNanos, TimeUnit.NANOSECONDS);
+            timings.add(RequestTimings.Phase.LIMIT, sentAt - queuedAtNanos);
+            return call
+                    .doOnSuccess(decoded -> {
+                        long elapsed = System.nanoTime() - sentAt;
+                        recordEngineCall(engine, replica, SUCCESS, elapsed);
+                        if (decoded != null) {
+                            recordTokens(engine, replica, decoded.getPromptTokens(), decoded.getCompletionTokens(),
+                                    elapsed);
+                            timings.add(RequestTimings.Phase.UPSTREAM, elapsed - decoded.getParseNanos());
+                            timings.add(RequestTimings.Phase.PARSE, decoded.getParseNanos());
+                        } else {
+                            timings.add(RequestTimings.Phase.UPSTREAM, elapsed);
+                        }
+                    })
+                    .doOnError(e -> recordEngineCall(engine, replica, outcome(e), System.nanoTime() - sentAt))
+                    .doOnCancel(() -> recordEngineCall(engine, replica, CANCELLED, System.nanoTime() - sentAt));
+        });
+    }
+
+    public Flux<String> recordStream(String engine, String replica, Flux<String> deltas) {
+        return recordStream(engine, replica, RequestTimings.NONE, deltas);
+    }
+
+    /**
+     * 스트리밍 업스트림 호출을 계측한다. 첫 청크가 오면 TTFT 를, 끝나면 청크 수를 출력 토큰 수로 기록한다.
+     * 요청 구간 시간(timings)에는 TTFT 와 전체 호출 시간(UPSTREAM)을 더한다.
+     */
+    public Flux<String> recordStream(String engine, String replica, RequestTimings timings, Flux<String> deltas) {
+        return Flux.defer(() -> {
+            long sentAt = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            AtomicLong chunks = new AtomicLong();
+            return deltas
+                    .doOnNext(delta -> {
+                        if (first.compareAndSet(true, false)) {
+                            long ttft = System.nanoTime() - sentAt;
+                            timer("llm.engine.ttft", "스트리밍 첫 토큰까지 걸린 시간", engine, replica, null)
+                                    .record(ttft, TimeUnit.NANOSECONDS);
+                            timings.add(RequestTimings.Phase.TTFT, ttft);
+                        }
+                        chunks.incrementAndGet();
+                    })
+                    .doOnComplete(() -> {
+                        long elapsed = System.nanoTime() - sentAt;
+                        recordEngineCall(engine, replica, SUCCESS, elapsed);
+                        recordTokens(engine, replica, -1, chunks.get(), elapsed);
+                        timings.add(RequestTimings.Phase.UPSTREAM, elapsed);
+                    })
+                    .doOnError(e -> recordEngineCall(engine, replica, outcome(e), System.nanoTime() - sentAt))
+                    .doOnCancel(() -> recordEngineCall(engine, replica, CANCELLED, System.nanoTime() - sentAt));
+        });
+    }
+
+    /**
+     * 동시 요청 한도/대기열/서킷 브레이커의 즉시 거절은 rejected, 그 외 실패는 error
+     */
+    public static String outcome(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ConcurrencyLimitExceededException || t instanceof CircuitBreakerOpenException) {
+                return REJECTED;
+            }
+        }
+        return ERROR;
+    }
+
+    private void recordEngineCall(String engine, String replica, String outcome, long nanos) {
+        timer("llm.engine.request.duration", "복제본 업스트림 호출 시간", engine, replica, outcome)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordTokens(String engine, String replica, long inputTokens, long outputTokens, long nanos) {
+        if (inputTokens >= 0) {
+            tokens(engine, replica, "input").record(inputTokens);
+        }
+        if (outputTokens >= 0) {
+            tokens(engine, replica, "output").record(outputTokens);
+            if (nanos > 0) {
+                summary("llm.engine.tokens.per.second", "출력 토큰 생성 속도 (초당 토큰)", engine, replica, null, null)
+                        .record(outputTokens * 1e9 / nanos);
+            }
+        }
+    }
+
+    private DistributionSummary tokens(String engine, String replica, String type) {
+        return summary("llm.engine.tokens", "업스트림 호출당 토큰 수", engine, replica, type, "tokens");
+    }
+
+    private Timer timer(String name, String description, String engine, String replica, String outcome) {
+        String normalized = normalizeEngine(engine);
+        return timers.computeIfAbsent(name + '|' + normalized + '|' + replica + '|' + outcome, key -> {
+            Timer.Builder builder = Timer.builder(name)
+                    .description(description)
+                    .tag("engine", normalized)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(MAX_EXPECTED_LATENCY);
+            if (replica != null) {
+                builder.tag("replica", replica);
+            }
+            if (outcome != null) {
+                builder.tag("outcome", outcome);
+            }
+            return builder.register(meterRegistry);
+        });
+    }
+
+    private DistributionSummary summary(String name, String description, String engine, String replica, String type,
+                                        String unit) {
+        String normalized = normalizeEngine(engine);
+        return summaries.computeIfAbsent(name + '|' + normalized + '|' + replica + '|' + type, key -> {
+            DistributionSummary.Builder builder = DistributionSummary.builder(name)
+                    .description(description)
+                    .baseUnit(unit)
+                    .tag("engine", normalized)
+                    .tag("replica", replica)
+                    .publishPercentileHistogram();
+            if (type != null) {
+                builder.tag("type", type);
+            }
+            return builder.register(meterRegistry);
+        });
+    }
+
+    /**
+     * 요청의 engine 값은 사용자 입력이므로 태그 값이 늘어나지 않게 vllm/sglang 외에는 unknown 으로 묶는다
+     */
+    private static String normalizeEngine(String engine) {
+        if ("vllm".equalsIgnoreCase(engine)) {
+            return "vllm";
+        }
+        if ("sglang".equalsIgnoreCase(engine)) {
+            return "sglang";
+        }
+        return "unknown";
+    }
+}
\ No newline at end of file
@@ -2,10 +2,16 @@ package com.example.simple.service;
 
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
+import com.example.simple.dto.LLMStreamChunk;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -14,61 +20,268 @@ public class LLMService {
     
     private final VllmService vllmService;
     private final SglangService sglangService;
+    private final RequestBatcher requestBatcher;
+    private final RequestCoalescer requestCoalescer;
+    private final ResponseCache responseCache;
+    private final EngineFailover engineFailover;
+    private final RequestHedger requestHedger;
+    private final TenantAdmissionQueue admissionQueue;
+    private final TokenCostEstimator tokenCostEstimator;
+    private final StatsAggregator statsAggregator;
+    private final LLMMetrics llmMetrics;
     
     @Autowired(required = false)
     private LoggingService loggingService;
     
-    public LLMResponse generateResponse(LLMRequest request) {
+    public Mono<LLMResponse> generateResponse(LLMRequest request) {
+        return generateResponse(request, TenantAdmissionQueue.DEFAULT_TENANT);
+    }
+    
+    /**
+     * @param tenant 테넌트 대기열에서 차례를 나눌 때 쓰는 테넌트 ID
+     */
+    public Mono<LLMResponse> generateResponse(LLMRequest request, String tenant) {
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         
         // 요청 검증
         if (request.getPrompt() == null || request.getPrompt().trim().isEmpty()) {
-            return createErrorResponse("프롬프트가 비어있습니다", startTime);
+            return Mono.just(createErrorResponse("프롬프트가 비어있습니다", startTime));
         }
         
-        try {
-            String engine = request.getEngine();
-            LLMResponse response;
+        // 구간 시간은 컨트롤러가 Context 에 넣은 RequestTimings 에 더한다 (없으면 기록하지 않음)
+        return Mono.subscriberContext().flatMap(context -> {
+            RequestTimings timings = RequestTimings.from(context);
             
-            if ("vllm".equalsIgnoreCase(engine)) {
-                response = vllmService.generate(request, startTime);
-            } else if ("sglang".equalsIgnoreCase(engine)) {
-                response = sglangService.generate(request, startTime);
-            } else {
-                // 기본적으로 vLLM 사용
-                log.info("Unknown engine '{}', defaulting to vLLM", engine);
-                response = vllmService.generate(request, startTime);
-            }
+            return cacheIfEligible(request, tenant, startTime)
+                    // 성공 로깅
+                    .flatMap(response -> logRequest(
+                            response.getEngine(),
+                            request.getPrompt(),
+                            response.getText(),
+                            response.getResponseTimeMs(),
+                            outcomeOf(response),
+                            startNanos,
+                            timings
+                    ).thenReturn(response))
+                    .onErrorResume(e -> {
+                        ConcurrencyLimitExceededException limitExceeded = findLimitExceeded(e);
+                        if (limitExceeded != null) {
+                            // 과부하 거절은 컨트롤러에서 429 + Retry-After 로 응답하도록 그대로 전파
+                            log.warn("LLM 추론 거절: engine={}, error={}", request.getEngine(), limitExceeded.getMessage());
+                            return logRequest(request.getEngine(), request.getPrompt(), null,
+                                    System.currentTimeMillis() - startTime, LLMMetrics.REJECTED, startNanos, timings)
+                                    .then(Mono.<LLMResponse>error(limitExceeded));
+                        }
+                        
+                        log.error("LLM 추론 실패: engine={}, error={}", request.getEngine(), e.getMessage(), e);
+                        
+                        // 실패 로깅
+                        return logRequest(
+                                request.getEngine(),
+                                request.getPrompt(),
+                                null,
+                                System.currentTimeMillis() - startTime,
+                                LLMMetrics.ERROR,
+                                startNanos,
+                                timings
+                        ).then(Mono.fromSupplier(() -> createErrorResponse("추론 실패: " + e.getMessage(), startTime)));
+                    });
+        });
+    }
+    
+    /**
+     * 토큰 증분을 도착하는 대로 내보내는 스트리밍 추론.
+     * 마지막에 done=true 조각을 보내며, DB 로깅이 켜져 있을 때만 전체 텍스트를 누적한다.
+     */
+    public Flux<LLMStreamChunk> generateStream(LLMRequest request) {
+        return generateStream(request, TenantAdmissionQueue.DEFAULT_TENANT);
+    }
+    
+    public Flux<LLMStreamChunk> generateStream(LLMRequest request, String tenant) {
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        
+        if (request.getPrompt() == null || request.getPrompt().trim().isEmpty()) {
+            return Flux.just(createErrorChunk(request.getEngine(), 0, "프롬프트가 비어있습니다", startTime));
+        }
+        
+        String engine = "sglang".equalsIgnoreCase(request.getEngine()) ? "sglang" : "vllm";
+        
+        return Mono.subscriberContext().flatMapMany(context -> {
+            RequestTimings timings = RequestTimings.from(context);
+            StringBuilder fullText = loggingService != null ? new StringBuilder() : null;
+            AtomicInteger index = new AtomicInteger();
             
-            // 성공 로깅
-            if (loggingService != null) {
-                loggingService.logLLMRequest(
-                    response.getEngine(),
-                    request.getPrompt(),
-                    response.getText(),
-                    response.getResponseTimeMs(),
-                    response.isSuccess()
-                );
+            Flux<String> upstream = "sglang".equals(engine)
+                    ? sglangService.generateStream(request)
+                    : vllmService.generateStream(request);
+            // 스트림은 끝날 때까지 테넌트 자리를 차지한다
+            Flux<String> deltas = upstream;
+            if (admissionQueue.isEnabled()) {
+                long estimateStart = System.nanoTime();
+                long estimatedTokens = tokenCostEstimator.estimate(engine, request);
+                long queuedAt = timings.addSince(RequestTimings.Phase.TOKENIZE, estimateStart);
+                deltas = admissionQueue.admitMany(tenant, estimatedTokens, () -> {
+                    timings.addSince(RequestTimings.Phase.QUEUE, queuedAt);
+                    return upstream;
+                });
             }
             
-            return response;
-            
-        } catch (Exception e) {
-            log.error("LLM 추론 실패: engine={}, error={}", request.getEngine(), e.getMessage(), e);
-            
-            // 실패 로깅
+            return deltas
+                    .map(delta -> {
+                        if (fullText != null) {
+                            fullText.append(delta);
+                        }
+                        return LLMStreamChunk.builder()
+                                .index(index.getAndIncrement())
+                                .text(delta)
+                                .engine(engine)
+                                .build();
+                    })
+                    .concatWith(Mono.defer(() -> {
+                        long responseTime = System.currentTimeMillis() - startTime;
+                        return logRequest(engine, request.getPrompt(),
+                                fullText != null ? fullText.toString().trim() : null, responseTime,
+                                LLMMetrics.SUCCESS, startNanos, timings)
+                                .thenReturn(LLMStreamChunk.builder()
+                                        .index(index.get())
+                                        .engine(engine)
+                                        .done(true)
+                                        .responseTimeMs(responseTime)
+                                        .build());
+                    }))
+                    .onErrorResume(e -> {
+                        log.error("LLM 스트리밍 추론 실패: engine={}, error={}", engine, e.getMessage());
+                        return logRequest(engine, request.getPrompt(), null,
+                                System.currentTimeMillis() - startTime, LLMMetrics.outcome(e), startNanos, timings)
+                                .thenReturn(createErrorChunk(engine, index.get(), "추론 실패: " + e.getMessage(), startTime));
+                    });
+        });
+    }
+    
+    private Mono<LLMResponse> cacheIfEligible(LLMRequest request, String tenant, long startTime) {
+        String engine = "sglang".equalsIgnoreCase(request.getEngine()) ? "sglang" : "vllm";
+        if (responseCache.isEligible(engine, request)) {
+            return responseCache.getOrLoad(engine, request, startTime,
+                    () -> coalesceIfEligible(engine, request, tenant, startTime));
+        }
+        return coalesceIfEligible(engine, request, tenant, startTime);
+    }
+    
+    private Mono<LLMResponse> coalesceIfEligible(String engine, LLMRequest request, String tenant, long startTime) {
+        if (requestCoalescer.isEligible(engine, request)) {
+            return requestCoalescer.execute(engine, request, startTime,
+                    () -> admitIfEnabled(engine, request, tenant, startTime));
+        }
+        return admitIfEnabled(engine, request, tenant, startTime);
+    }
+    
+    private Mono<LLMResponse> admitIfEnabled(String engine, LLMRequest request, String tenant, long startTime) {
+        // 캐시 적중/합류한 요청은 대기열을 거치지 않고, 실제로 엔진을 부르는 요청만 테넌트 차례를 기다린다
+        if (admissionQueue.isEnabled()) {
+            return Mono.subscriberContext().flatMap(context -> {
+                RequestTimings timings = RequestTimings.from(context);
+                long estimateStart = System.nanoTime();
+                long estimatedTokens = tokenCostEstimator.estimate(engine, request);
+                long queuedAt = timings.addSince(RequestTimings.Phase.TOKENIZE, estimateStart);
+                return admissionQueue.admit(tenant, estimatedTokens, () -> {
+                    timings.addSince(RequestTimings.Phase.QUEUE, queuedAt);
+                    return dispatch(request, startTime);
+                });
+            });
+        }
+        return Mono.defer(() -> dispatch(request, startTime));
+    }
+    
+    private Mono<LLMResponse> dispatch(LLMRequest request, long startTime) {
+        String engine = request.getEngine();
+        
+        if (!"vllm".equalsIgnoreCase(engine) && !"sglang".equalsIgnoreCase(engine)) {
+            // 기본적으로 vLLM 사용
+            log.info("Unknown engine '{}', defaulting to vLLM", engine);
+        }
+        String target = "sglang".equalsIgnoreCase(engine) ? "sglang" : "vllm";
+        
+        // 실패 시 재시도 후 다른 엔진으로 전환
+        if (engineFailover.isEnabled()) {
+            return engineFailover.execute(target, selected -> hedgeIfEnabled(selected, request, startTime));
+        }
+        
+        return hedgeIfEnabled(target, request, startTime);
+    }
+    
+    private Mono<LLMResponse> hedgeIfEnabled(String engine, LLMRequest request, long startTime) {
+        // 응답이 늦으면 다른 대상으로 한 번 더 보내고 먼저 온 응답을 사용
+        if (requestHedger.isEnabled()) {
+            return requestHedger.execute(engine, selected -> callEngine(selected, request, startTime));
+        }
+        return callEngine(engine, request, startTime);
+    }
+    
+    private Mono<LLMResponse> callEngine(String engine, LLMRequest request, long startTime) {
+        // 마이크로 배칭이 켜져 있으면 호환 요청과 묶어서 보낸다
+        if (requestBatcher.isEnabled()) {
+            return requestBatcher.submit(engine, request, startTime);
+        }
+        
+        return "sglang".equals(engine)
+                ? sglangService.generate(request, startTime)
+                : vllmService.generate(request, startTime);
+    }
+    
+    /**
+     * 통계와 메트릭은 메모리에서 바로 더하고, 로그는 기록 큐에 넣기만 하고(블로킹 없음) DB 쓰기는 LoggingService 의
+     * 백그라운드 스레드가 한다.
+     *
+     * 여기서 쓴 시간은 timings 의 LOG 구간으로 더한다.
+     * 캐시 적중은 엔진을 부르지 않아 응답 시간이 0 에 가까우므로 llm.request.duration 에만 cached 로 따로 남기고,
+     * 엔진 응답 시간 통계(StatsAggregator, LLM_LOGS 와 시간별 집계)에는 넣지 않는다.
+     *
+     * @param outcome LLMMetrics.SUCCESS/ERROR/REJECTED/CACHED
+     */
+    private Mono<Void> logRequest(String engine, String prompt, String response, long responseTime, String outcome,
+                                  long startNanos, RequestTimings timings) {
+        return Mono.fromRunnable(() -> {
+            long logStart = System.nanoTime();
+            llmMetrics.recordRequest(engine, outcome, logStart - startNanos);
+            if (LLMMetrics.CACHED.equals(outcome)) {
+                timings.addSince(RequestTimings.Phase.LOG, logStart);
+                return;
+            }
+            boolean success = LLMMetrics.SUCCESS.equals(outcome);
+            statsAggregator.record(engine, responseTime, success);
             if (loggingService != null) {
-                loggingService.logLLMRequest(
-                    request.getEngine(),
-                    request.getPrompt(),
-                    null,
-                    System.currentTimeMillis() - startTime,
-                    false
-                );
+                loggingService.logLLMRequest(engine, prompt, response, responseTime, success, timings);
+            }
+            timings.addSince(RequestTimings.Phase.LOG, logStart);
+        });
+    }
+    
+    private static String outcomeOf(LLMResponse response) {
+        if (response.isCached()) {
+            return LLMMetrics.CACHED;
+        }
+        return response.isSuccess() ? LLMMetrics.SUCCESS : LLMMetrics.ERROR;
+    }
+    
+    private LLMStreamChunk createErrorChunk(String engine, int index, String error, long startTime) {
+        return LLMStreamChunk.builder()
+                .index(index)
+                .engine(engine)
+                .done(true)
+                .error(error)
+                .responseTimeMs(System.currentTimeMillis() - startTime)
+                .build();
+    }
+    
+    private static ConcurrencyLimitExceededException findLimitExceeded(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ConcurrencyLimitExceededException) {
+                return (ConcurrencyLimitExceededException) t;
             }
-            
-            return createErrorResponse("추론 실패: " + e.getMessage(), startTime);
         }
+        return null;
     }
     
     private LLMResponse createErrorResponse(String error, long startTime) {
@@ -0,0 +1,91 @@
+package com.example.simple.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 병합 가능한 고정 버킷 응답 시간 히스토그램 (ms).
+ *
+ * 64ms 미만은 1ms 단위로, 그 이상은 2의 거듭제곱 구간마다 32개 버킷으로 나눠 상대 오차 약 3% 로 센다.
+ * 버킷 수가 고정이라 기록은 락 없는 증가 한 번이고, 여러 히스토그램을 버킷별 합으로 합칠 수 있다.
+ * MAX_TRACKABLE_MILLIS 를 넘는 값은 마지막 버킷에 넣는다.
+ */
+public class LatencyHistogram {
+
+    static final long MAX_TRACKABLE_MILLIS = 3_600_000L;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 이 값 미만은 버킷 하나가 1ms
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_MILLIS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long millis) {
+        counts.incrementAndGet(bucketIndex(Math.min(Math.max(millis, 0), MAX_TRACKABLE_MILLIS)));
+    }
+
+    /**
+     * other 의 버킷 값을 이 히스토그램에 더한다.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 백분위수 응답 시간 (ms). 해당 버킷의 상한을 돌려주며, 기록이 없으면 0.
+     */
+    public long percentile(double percentile) {
+        long total = getTotalCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(BUCKET_COUNT - 1);
+    }
+
+    static int bucketIndex(long millis) {
+        if (millis < LINEAR_LIMIT) {
+            return (int) millis;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(millis);
+        int shift = msb - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (msb - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + (int) ((millis >> shift) - SUB_BUCKETS);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int shift = offset / SUB_BUCKETS + 1;
+        long subBucket = SUB_BUCKETS + offset % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
\ No newline at end of file
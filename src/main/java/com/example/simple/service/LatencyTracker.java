@@ -0,0 +1,65 @@
+package com.example.simple.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 최근 N개 응답 시간의 백분위수를 추적한다.
+ *
+ * 기록은 락 없이 링 버퍼에 덮어쓰고, 백분위수는 RECOMPUTE_EVERY 건마다 한 번만 다시 계산해
+ * volatile 필드에 보관한다. 읽는 쪽(매 요청)은 정렬 비용 없이 캐시된 값을 본다.
+ */
+public class LatencyTracker {
+
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private final int minSamples;
+
+    private volatile long cachedPercentileMillis = -1;
+
+    public LatencyTracker(int windowSize, double percentile, int minSamples) {
+        this.samples = new AtomicLongArray(windowSize);
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+    }
+
+    public void record(long millis) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % samples.length()), millis);
+        if ((n + 1) % RECOMPUTE_EVERY == 0 || n + 1 == minSamples) {
+            recompute();
+        }
+    }
+
+    /**
+     * 백분위수 응답 시간 (ms). 표본이 minSamples 보다 적으면 -1.
+     */
+    public long percentileMillis() {
+        return cachedPercentileMillis;
+    }
+
+    /**
+     * 지금까지 기록한 표본 수 (창 크기를 넘은 것 포함)
+     */
+    public long getSampleCount() {
+        return count.get();
+    }
+
+    private void recompute() {
+        int size = (int) Math.min(count.get(), samples.length());
+        if (size < minSamples) {
+            return;
+        }
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        int index = Math.max(0, (int) Math.ceil(percentile * size) - 1);
+        cachedPercentileMillis = copy[index];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.example.simple.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 요청 로그 본문(프롬프트/응답)의 중복 제거 저장소 (llm.request-log.body-storage=dedup).
+ *
+ * 본문은 UTF-8 바이트의 SHA-256 (64자리 16진수)를 키로 LLM_LOG_BODIES 에 gzip 으로 압축해 한 번만 넣고,
+ * LLM_LOGS 에는 PROMPT_HASH/RESPONSE_HASH 참조만 남긴다. 같은 시스템 프롬프트나 템플릿이 반복되면
+ * 로그 한 건의 쓰기는 참조 두 개로 줄어든다. gzip 형식이라 DB 에서도 UTL_COMPRESS.LZ_UNCOMPRESS 로 풀 수 있다.
+ *
+ * MERGE 는 해시가 같으면 본문을 비교하지 않으므로 충돌이 사실상 없는 암호학적 해시를 쓴다.
+ *
+ * 이미 저장한 해시는 knownHashes 에 기억해 MERGE 왕복도 건너뛴다. 다른 인스턴스가 먼저 넣은 본문은 MERGE 가 무시한다.
+ * 참조가 모두 지워진 본문은 LogRetentionService 가 지우므로, knownHashes 는 로그 보존 기간이 지나면 잊는다
+ * (기억한 해시는 그 시점에 쓴 로그가 참조하고 있으므로 보존 기간 안에는 지워지지 않는다).
+ *
+ * 메트릭: llm.log.body.stored, llm.log.body.deduplicated, llm.log.body.bytes (kind=original|compressed)
+ */
+class LogBodyStore {
+
+    static final String MERGE_BODY_SQL = "MERGE INTO LLM_LOG_BODIES t USING (SELECT ? AS HASH FROM DUAL) s"
+            + " ON (t.HASH = s.HASH)"
+            + " WHEN NOT MATCHED THEN INSERT (HASH, ORIGINAL_LENGTH, BODY) VALUES (s.HASH, ?, ?)";
+
+    static final String INSERT_LOG_SQL = "INSERT INTO LLM_LOGS"
+            + " (REQUEST_TIME, ENGINE, PROMPT_HASH, RESPONSE_HASH, RESPONSE_TIME_MS, SUCCESS, "
+            + LoggingService.PHASE_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Boolean> knownHashes;
+
+    private final Counter stored;
+    private final Counter deduplicated;
+    private final Counter originalBytes;
+    private final Counter compressedBytes;
+
+    /**
+     * @param knownHashTtl 로그 보존 기간 (0 이면 본문을 지우지 않으므로 크기로만 제한)
+     */
+    LogBodyStore(JdbcTemplate jdbcTemplate, long cacheSize, Duration knownHashTtl, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(cacheSize);
+        if (!knownHashTtl.isZero() && !knownHashTtl.isNegative()) {
+            builder.expireAfterWrite(knownHashTtl);
+        }
+        this.knownHashes = builder.build();
+        this.stored = Counter.builder("llm.log.body.stored")
+                .description("LLM_LOG_BODIES 에 새로 저장한 본문 수")
+                .register(meterRegistry);
+        this.deduplicated = Counter.builder("llm.log.body.deduplicated")
+                .description("이미 저장된 본문이라 참조만 남긴 수")
+                .register(meterRegistry);
+        this.originalBytes = bytesCounter(meterRegistry, "original");
+        this.compressedBytes = bytesCounter(meterRegistry, "compressed");
+    }
+
+    /**
+     * 배치의 새 본문을 LLM_LOG_BODIES 에 먼저 쓰고, INSERT_LOG_SQL 용 행(본문 대신 해시)을 돌려준다.
+     * 입력 행 형식은 LoggingService 큐와 같다: [REQUEST_TIME, ENGINE, PROMPT, RESPONSE, RESPONSE_TIME_MS, SUCCESS,
+     * 구간 시간...]. PROMPT/RESPONSE 자리만 해시로 바꾸고 나머지는 그대로 둔다.
+     */
+    List<Object[]> store(List<Object[]> batch) {
+        Map<String, byte[]> pending = new LinkedHashMap<>();
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (Object[] row : batch) {
+            Object[] stored = row.clone();
+            stored[2] = reference((String) row[2], pending);
+            stored[3] = reference((String) row[3], pending);
+            rows.add(stored);
+        }
+        if (!pending.isEmpty()) {
+            writeBodies(pending);
+        }
+        return rows;
+    }
+
+    private String reference(String body, Map<String, byte[]> pending) {
+        if (body == null) {
+            return null;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256Hex(bytes);
+        if (knownHashes.getIfPresent(hash) != null || pending.containsKey(hash)) {
+            deduplicated.increment();
+        } else {
+            pending.put(hash, bytes);
+        }
+        return hash;
+    }
+
+    private void writeBodies(Map<String, byte[]> pending) {
+        List<Object[]> bodies = new ArrayList<>(pending.size());
+        for (Map.Entry<String, byte[]> entry : pending.entrySet()) {
+            byte[] compressed = compress(entry.getValue());
+            bodies.add(new Object[]{entry.getKey(), entry.getValue().length, compressed});
+            originalBytes.increment(entry.getValue().length);
+            compressedBytes.increment(compressed.length);
+        }
+        try {
+            jdbcTemplate.batchUpdate(MERGE_BODY_SQL, bodies);
+        } catch (DuplicateKeyException e) {
+            // 다른 인스턴스가 같은 본문을 동시에 넣은 경우: 다시 MERGE 하면 이미 있는 행은 건너뛴다
+            jdbcTemplate.batchUpdate(MERGE_BODY_SQL, bodies);
+        }
+        for (String hash : pending.keySet()) {
+            knownHashes.put(hash, Boolean.TRUE);
+        }
+        stored.increment(pending.size());
+    }
+
+    static String sha256Hex(byte[] data) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            // 모든 JVM 이 SHA-256 을 제공해야 한다
+            throw new IllegalStateException(e);
+        }
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * LLM_LOG_BODIES.BODY 를 원문으로 되돌린다
+     */
+    static String decompress(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Counter bytesCounter(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("llm.log.body.bytes")
+                .description("LLM_LOG_BODIES 에 저장한 본문 크기")
+                .tag("kind", kind)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LLM_LOGS 보존 기간 관리.
+ *
+ * retentionInterval 마다 retention 보다 오래된 로그를 지운다. Oracle 에서 LLM_LOGS 가 일 단위 interval 파티션이면
+ * 상한(HIGH_VALUE)이 기준 시각 이전인 파티션을 통째로 DROP 하고 (행 단위 DELETE 와 달리 undo/redo 가 거의 없다),
+ * 파티션이 없는 테이블이나 H2 등에서는 REQUEST_TIME 인덱스로 DELETE 한다.
+ * body-storage=dedup 이면 로그를 지운 뒤 남은 LLM_LOGS 어느 행도 참조하지 않는 LLM_LOG_BODIES 본문도 지운다.
+ * 시간별 롤업(LLM_STATS_HOURLY)은 지우지 않으므로 기간 통계는 원본 로그가 지워진 뒤에도 남는다.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.datasource.url", matchIfMissing = false)
+@Slf4j
+public class LogRetentionService implements InitializingBean, DisposableBean {
+
+    static final String PARTITIONS_SQL = "SELECT PARTITION_NAME, PARTITION_POSITION, HIGH_VALUE FROM USER_TAB_PARTITIONS"
+            + " WHERE TABLE_NAME = 'LLM_LOGS' ORDER BY PARTITION_POSITION";
+    static final String DELETE_SQL = "DELETE FROM LLM_LOGS WHERE REQUEST_TIME < ?";
+    // 기준 시각 이후에 처음 저장된 본문은 아직 로그 INSERT 전일 수 있으므로 남긴다
+    static final String DELETE_ORPHAN_BODIES_SQL = "DELETE FROM LLM_LOG_BODIES b WHERE b.CREATED_DATE < ?"
+            + " AND NOT EXISTS (SELECT 1 FROM LLM_LOGS l WHERE l.PROMPT_HASH = b.HASH)"
+            + " AND NOT EXISTS (SELECT 1 FROM LLM_LOGS l WHERE l.RESPONSE_HASH = b.HASH)";
+
+    // HIGH_VALUE 예: TIMESTAMP' 2024-01-02 00:00:00'
+    private static final Pattern HIGH_VALUE = Pattern.compile("TIMESTAMP'\\s*(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2})");
+    private static final DateTimeFormatter HIGH_VALUE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // DDL 에 그대로 넣으므로 딕셔너리에서 읽은 이름도 식별자 형식인지 확인한다
+    private static final Pattern PARTITION_NAME = Pattern.compile("[A-Z][A-Z0-9_$#]*");
+
+    private final LLMConfig.RequestLogConfig config;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Disposable schedule;
+
+    public LogRetentionService(LLMConfig llmConfig, JdbcTemplate jdbcTemplate) {
+        this.config = llmConfig.getRequestLog();
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Duration retention = config.getRetention();
+        if (retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        Duration interval = config.getRetentionInterval();
+        schedule = Flux.interval(interval, interval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .concatMap(tick -> Mono.fromRunnable(() -> purge(LocalDateTime.now().minus(retention)))
+                        .onErrorResume(e -> {
+                            log.warn("요청 로그 보존 기간 정리 실패: {}", e.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+        log.info("요청 로그 보존 기간 정리 시작: retention={}d, interval={}m", retention.toDays(), interval.toMinutes());
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = schedule;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * cutoff 이전의 로그를 지운다. 파티션 단위로 지울 때는 cutoff 이후의 행이 섞인 파티션은 남긴다.
+     * dedup 저장이면 그다음 더 이상 참조되지 않는 로그 본문을 지운다.
+     */
+    public void purge(LocalDateTime cutoff) {
+        List<Partition> partitions = isOracle()
+                ? jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) ->
+                        new Partition(rs.getString("PARTITION_NAME"), rs.getInt("PARTITION_POSITION"),
+                                rs.getString("HIGH_VALUE")))
+                : List.of();
+        if (partitions.isEmpty()) {
+            int deleted = jdbcTemplate.update(DELETE_SQL, Timestamp.valueOf(cutoff));
+            if (deleted > 0) {
+                log.info("보존 기간이 지난 요청 로그 {}건 삭제 (< {})", deleted, cutoff);
+            }
+        } else {
+            dropPartitions(partitions, cutoff);
+        }
+        if ("dedup".equalsIgnoreCase(config.getBodyStorage())) {
+            deleteOrphanBodies(cutoff);
+        }
+    }
+
+    private void deleteOrphanBodies(LocalDateTime cutoff) {
+        int deleted = jdbcTemplate.update(DELETE_ORPHAN_BODIES_SQL, Timestamp.valueOf(cutoff));
+        if (deleted > 0) {
+            log.info("참조가 없는 요청 로그 본문 {}건 삭제", deleted);
+        }
+    }
+
+    private void dropPartitions(List<Partition> partitions, LocalDateTime cutoff) {
+        for (Partition partition : partitions) {
+            // 첫 번째(범위) 파티션은 interval 파티셔닝의 기준점이라 지울 수 없다
+            if (partition.position == 1) {
+                continue;
+            }
+            LocalDateTime highValue = parseHighValue(partition.highValue);
+            if (highValue == null || highValue.isAfter(cutoff) || !PARTITION_NAME.matcher(partition.name).matches()) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE LLM_LOGS DROP PARTITION " + partition.name);
+            log.info("보존 기간이 지난 요청 로그 파티션 삭제: {} (< {})", partition.name, highValue);
+        }
+    }
+
+    private boolean isOracle() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase().contains("oracle");
+    }
+
+    static LocalDateTime parseHighValue(String highValue) {
+        if (highValue == null) {
+            return null;
+        }
+        Matcher matcher = HIGH_VALUE.matcher(highValue);
+        return matcher.find() ? LocalDateTime.parse(matcher.group(1), HIGH_VALUE_FORMAT) : null;
+    }
+
+    static class Partition {
+
+        private final String name;
+        private final int position;
+        private final String highValue;
+
+        Partition(String name, int position, String highValue) {
+            this.name = name;
+            this.position = position;
+            this.highValue = highValue;
+        }
+    }
+}
\ No newline at end of file
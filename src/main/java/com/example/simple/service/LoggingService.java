@@ -1,33 +1,260 @@
 package com.example.simple.service;
 
+import com.example.simple.config.LLMConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LLM_LOGS 비동기 배치 기록.
+ *
+ * logLLMRequest 는 제한된 lock-free 큐에 넣기만 하고 바로 돌아온다. 전용 스레드 하나가 flushInterval 마다,
+ * 또는 큐에 batchSize 건이 쌓이면 바로 batchSize 건씩 batchUpdate 로 쓴다.
+ * 큐가 가득 차면 새 기록을 버리고(drop), sample 정책이면 highWatermark 를 넘은 뒤부터 성공 기록은
+ * sampleRate 건 중 1건만 남긴다 (실패 기록은 큐가 가득 찰 때까지 모두 남긴다).
+ * DB 가 느리거나 내려가도 요청 경로는 기다리지 않으며, 쓰기에 실패한 배치는 재시도하지 않고 버린다.
+ *
+ * 요청 구간별 소요 시간(RequestTimings)은 VALIDATE_US ~ PARSE_US 컬럼에 함께 남겨 느린 요청의 원인을 나중에 분석할 수 있게 한다.
+ *
+ * 쓴 배치는 StatsRollupService 로 시간별 롤업(LLM_STATS_HOURLY)에도 더한다.
+ * bodyStorage=dedup 이면 본문은 LogBodyStore 로 LLM_LOG_BODIES 에 압축해 한 번만 저장하고 LLM_LOGS 에는 해시만 남긴다.
+ *
+ * 메트릭: llm.log.queue.depth, llm.log.enqueued, llm.log.dropped (reason=overflow|sampled|write_failed),
+ * llm.log.written, llm.log.batch.write, llm.log.rollup.failed
+ */
 @Service
 @ConditionalOnProperty(name = "spring.datasource.url", matchIfMissing = false)
-public class LoggingService {
-    
+public class LoggingService implements DisposableBean {
+
     private static final Logger logger = LoggerFactory.getLogger(LoggingService.class);
-    
-    @Autowired(required = false)
-    private JdbcTemplate jdbcTemplate;
-    
+
+    // RequestTimings.LOGGED_PHASES 순서의 구간별 소요 시간 (마이크로초)
+    static final String PHASE_COLUMNS = "VALIDATE_US, TOKENIZE_US, QUEUE_US, LIMIT_US, CONNECT_US, UPSTREAM_US, TTFT_US, PARSE_US";
+
+    // REQUEST_TIME 은 큐에 넣은 시각으로 직접 넣는다 (롤업의 시간 구분과 맞추기 위해)
+    static final String INSERT_SQL = "INSERT INTO LLM_LOGS (REQUEST_TIME, ENGINE, PROMPT, RESPONSE, RESPONSE_TIME_MS, SUCCESS, "
+            + PHASE_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final LLMConfig.RequestLogConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final StatsRollupService rollupService;
+    private final LogBodyStore bodyStore;
+
+    private final Queue<Object[]> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() 는 O(n) 이므로 크기는 따로 센다 (자리를 먼저 확보한 뒤 넣는다)
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong sampleSequence = new AtomicLong();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final Counter droppedOverflow;
+    private final Counter droppedSampled;
+    private final Counter droppedWriteFailed;
+    private final Counter rollupFailed;
+    private final Timer batchWriteTimer;
+
+    private final Scheduler writer;
+
+    @Autowired
+    public LoggingService(LLMConfig llmConfig, MeterRegistry meterRegistry, ObjectProvider<JdbcTemplate> jdbcTemplate,
+                          ObjectProvider<StatsRollupService> rollupService) {
+        this(llmConfig, meterRegistry, jdbcTemplate.getIfAvailable(), rollupService.getIfAvailable());
+    }
+
+    LoggingService(LLMConfig llmConfig, MeterRegistry meterRegistry, JdbcTemplate jdbcTemplate,
+                   StatsRollupService rollupService) {
+        this.config = llmConfig.getRequestLog();
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupService = rollupService != null && rollupService.isEnabled() ? rollupService : null;
+        this.bodyStore = jdbcTemplate != null && "dedup".equalsIgnoreCase(config.getBodyStorage())
+                ? new LogBodyStore(jdbcTemplate, config.getBodyCacheSize(), config.getRetention(), meterRegistry)
+                : null;
+
+        Gauge.builder("llm.log.queue.depth", queued, AtomicInteger::get)
+                .description("DB 에 쓰기를 기다리는 요청 로그 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.log.enqueued", enqueued, AtomicLong::get)
+                .description("기록 큐에 들어간 요청 로그 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.log.written", written, AtomicLong::get)
+                .description("DB 에 기록된 요청 로그 수")
+                .register(meterRegistry);
+        this.droppedOverflow = droppedCounter(meterRegistry, "overflow");
+        this.droppedSampled = droppedCounter(meterRegistry, "sampled");
+        this.droppedWriteFailed = droppedCounter(meterRegistry, "write_failed");
+        this.rollupFailed = Counter.builder("llm.log.rollup.failed")
+                .description("LLM_LOGS 에는 썼지만 시간별 롤업에 반영하지 못한 요청 로그 수")
+                .register(meterRegistry);
+        this.batchWriteTimer = Timer.builder("llm.log.batch.write")
+                .description("요청 로그 배치 한 번을 쓰는 데 걸린 시간")
+                .register(meterRegistry);
+
+        this.writer = Schedulers.newSingle("llm-log-writer", true);
+        long intervalNanos = config.getFlushInterval().toNanos();
+        writer.schedulePeriodically(this::flush, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
     public void logLLMRequest(String engine, String prompt, String response, long responseTime, boolean success) {
+        logLLMRequest(engine, prompt, response, responseTime, success, RequestTimings.NONE);
+    }
+
+    /**
+     * 요청 로그를 기록 큐에 넣는다. 블로킹하지 않으며, 큐 상태에 따라 버려질 수 있다.
+     * timings 의 구간 시간은 지금 값으로 *_US 컬럼에 남는다 (기록되지 않은 구간은 NULL).
+     */
+    public void logLLMRequest(String engine, String prompt, String response, long responseTime, boolean success,
+                              RequestTimings timings) {
         if (jdbcTemplate == null) {
             return;
         }
-        
+
+        int capacity = config.getQueueCapacity();
+        int size;
+        do {
+            size = queued.get();
+            if (size >= capacity) {
+                droppedOverflow.increment();
+                return;
+            }
+            if (success && shouldSkipSample(size, capacity)) {
+                droppedSampled.increment();
+                return;
+            }
+        } while (!queued.compareAndSet(size, size + 1));
+
+        Object[] phases = timings.toLogColumns();
+        Object[] row = new Object[6 + phases.length];
+        row[0] = new Timestamp(System.currentTimeMillis());
+        row[1] = engine;
+        row[2] = prompt;
+        row[3] = response;
+        row[4] = responseTime;
+        row[5] = success ? 1 : 0;
+        System.arraycopy(phases, 0, row, 6, phases.length);
+        queue.offer(row);
+        enqueued.incrementAndGet();
+
+        if (size + 1 >= config.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            writer.schedule(this::flush);
+        }
+    }
+
+    private boolean shouldSkipSample(int size, int capacity) {
+        return "sample".equalsIgnoreCase(config.getOverflowPolicy())
+                && size >= capacity * config.getSampleHighWatermark()
+                && sampleSequence.incrementAndGet() % Math.max(1, config.getSampleRate()) != 0;
+    }
+
+    /**
+     * 큐가 빌 때까지 batchSize 건씩 쓴다. 항상 writer 스레드 하나에서만 실행된다.
+     */
+    void flush() {
+        flushRequested.set(false);
+        int batchSize = Math.max(1, config.getBatchSize());
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Object[] row;
+            while (batch.size() < batchSize && (row = queue.poll()) != null) {
+                queued.decrementAndGet();
+                batch.add(row);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            write(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        long start = System.nanoTime();
+        try {
+            if (bodyStore != null) {
+                jdbcTemplate.batchUpdate(LogBodyStore.INSERT_LOG_SQL, bodyStore.store(batch));
+            } else {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            }
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            droppedWriteFailed.increment(batch.size());
+            logger.warn("요청 로그 {}건 저장 실패: {}", batch.size(), e.getMessage());
+            return;
+        } finally {
+            batchWriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        rollup(batch);
+    }
+
+    /**
+     * 롤업 반영 실패는 원본 로그에 영향을 주지 않는다. 빠진 값은 StatsRollupService.backfill 로 다시 채운다.
+     */
+    private void rollup(List<Object[]> batch) {
+        if (rollupService == null) {
+            return;
+        }
         try {
-            jdbcTemplate.update(
-                "INSERT INTO LLM_LOGS (ENGINE, PROMPT, RESPONSE, RESPONSE_TIME_MS, SUCCESS) VALUES (?, ?, ?, ?, ?)",
-                engine, prompt, response, responseTime, success ? 1 : 0
-            );
+            rollupService.apply(batch);
         } catch (Exception e) {
-            logger.warn("로그 저장 실패", e);
+            rollupFailed.increment(batch.size());
+            logger.warn("요청 로그 {}건 롤업 반영 실패: {}", batch.size(), e.getMessage());
         }
     }
+
+    /**
+     * 종료 시 남은 기록을 shutdownTimeout 안에서 최대한 쓴다.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer.isDisposed()) {
+            return;
+        }
+        CountDownLatch flushed = new CountDownLatch(1);
+        writer.schedule(() -> {
+            flush();
+            flushed.countDown();
+        });
+        if (!flushed.await(config.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            logger.warn("종료 시 요청 로그 {}건을 쓰지 못했습니다", queued.get());
+        }
+        writer.dispose();
+    }
+
+    int getQueueDepth() {
+        return queued.get();
+    }
+
+    long getWritten() {
+        return written.get();
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("llm.log.dropped")
+                .description("DB 에 기록하지 못하고 버린 요청 로그 수")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.simple.service;
+
+import lombok.Value;
+
+/**
+ * 백그라운드 헬스 체크로 얻은 복제본 상태 (불변, 체크할 때마다 통째로 교체)
+ */
+@Value
+public class ReplicaHealth {
+
+    public enum Status { UNKNOWN, UP, DOWN }
+
+    public static final ReplicaHealth NOT_CHECKED = new ReplicaHealth(Status.UNKNOWN, 0, 0, 0, null);
+
+    Status status;
+    // 마지막 헬스 체크 응답 시간
+    long latencyMs;
+    // 마지막 체크 시각 (epoch millis), 체크 전이면 0
+    long checkedAt;
+    int consecutiveFailures;
+    // 마지막 실패 사유
+    String error;
+
+    /**
+     * DOWN 으로 확인된 복제본만 선택 대상에서 뺀다. 아직 체크 전(UNKNOWN)이면 보낸다.
+     */
+    public boolean isRoutable() {
+        return status != Status.DOWN;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 한 엔진의 복제본 묶음과 복제본 선택 정책.
+ *
+ * 선택: p2c (무작위 두 복제본 중 cost 가 낮은 쪽) 또는 least-outstanding (진행 중 요청이 가장 적은 쪽).
+ * 제외되었거나 서킷 브레이커가 열린 복제본은 후보에서 뺀다.
+ * 제외/재투입: choose() 호출 시 ejectionCheckInterval 마다 한 스레드만 검사한다 (별도 스레드 없음).
+ * prefix 친화도: choose(prompt) 는 프롬프트 앞부분 해시로 이전에 보낸 복제본을 우선 고른다.
+ * 테이블은 maxEntries 로 크기가 제한된 Caffeine 캐시다.
+ */
+@Slf4j
+public class ReplicaPool {
+
+    private final String engine;
+    private final List<EngineReplica> replicas;
+    private final LLMConfig.LoadBalancingConfig config;
+    private final AtomicLong lastEjectionCheckNanos = new AtomicLong(System.nanoTime());
+    // 복제본이 하나거나 비활성화면 null
+    private final Cache<ContentHash, EngineReplica> affinity;
+
+    public ReplicaPool(String engine, List<EngineReplica> replicas, LLMConfig.LoadBalancingConfig config) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException(engine + " 복제본이 하나 이상 필요합니다");
+        }
+        this.engine = engine;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.config = config;
+        this.affinity = config.getAffinity().isEnabled() && replicas.size() > 1
+                ? Caffeine.newBuilder().maximumSize(config.getAffinity().getMaxEntries()).build()
+                : null;
+    }
+
+    /**
+     * 프롬프트 prefix 에 묶인 복제본을 우선 고른다. 묶인 복제본이 없거나 제외/차단되었으면 부하 기준으로 고르고
+     * 그 복제본으로 다시 묶는다. 과부하일 때는 이번 요청만 다른 복제본으로 보내고 묶음은 유지한다.
+     */
+    public EngineReplica choose(String prompt) {
+        if (affinity == null || prompt == null || prompt.isEmpty()) {
+            return choose();
+        }
+
+        ContentHash key = prefixKey(prompt);
+        EngineReplica balanced = choose();
+        EngineReplica preferred = affinity.getIfPresent(key);
+
+        if (preferred != null && preferred.isAvailable(System.nanoTime())) {
+            if (preferred == balanced || !isOverloaded(preferred, balanced)) {
+                preferred.recordAffinity(true);
+                return preferred;
+            }
+        } else {
+            affinity.put(key, balanced);
+        }
+        balanced.recordAffinity(false);
+        return balanced;
+    }
+
+    public EngineReplica choose() {
+        if (replicas.size() == 1) {
+            return replicas.get(0);
+        }
+
+        long now = System.nanoTime();
+        maybeCheckEjections(now);
+
+        List<EngineReplica> available = new ArrayList<>(replicas.size());
+        for (EngineReplica replica : replicas) {
+            if (replica.isAvailable(now)) {
+                available.add(replica);
+            }
+        }
+        // 모두 제외/차단 상태면 전체에서 고른다 (차단된 복제본은 track 에서 즉시 실패)
+        if (available.isEmpty()) {
+            available = replicas;
+        }
+
+        return "least-outstanding".equals(config.getStrategy())
+                ? leastOutstanding(available)
+                : powerOfTwoChoices(available);
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public List<EngineReplica> getReplicas() {
+        return replicas;
+    }
+
+    public long affinityEntries() {
+        return affinity == null ? 0 : affinity.estimatedSize();
+    }
+
+    ContentHash prefixKey(String prompt) {
+        int length = Math.min(prompt.length(), config.getAffinity().getPrefixLength());
+        return ContentHash.of(prompt.substring(0, length));
+    }
+
+    private boolean isOverloaded(EngineReplica preferred, EngineReplica balanced) {
+        return preferred.getOutstanding() > balanced.getOutstanding() + config.getAffinity().getMaxOutstandingGap();
+    }
+
+    private EngineReplica powerOfTwoChoices(List<EngineReplica> available) {
+        int size = available.size();
+        if (size == 1) {
+            return available.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        EngineReplica a = available.get(first);
+        EngineReplica b = available.get(second);
+        return a.cost() <= b.cost() ? a : b;
+    }
+
+    private EngineReplica leastOutstanding(List<EngineReplica> available) {
+        // 동률일 때 항상 첫 복제본으로 몰리지 않도록 시작 위치를 무작위로 둔다
+        int size = available.size();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        EngineReplica best = null;
+        for (int i = 0; i < size; i++) {
+            EngineReplica candidate = available.get((start + i) % size);
+            if (best == null
+                    || candidate.getOutstanding() < best.getOutstanding()
+                    || (candidate.getOutstanding() == best.getOutstanding() && candidate.ewmaMillis() < best.ewmaMillis())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    void maybeCheckEjections(long now) {
+        long last = lastEjectionCheckNanos.get();
+        if (now - last < config.getEjectionCheckInterval().toNanos() || !lastEjectionCheckNanos.compareAndSet(last, now)) {
+            return;
+        }
+        checkEjections(now);
+    }
+
+    /**
+     * 만료된 제외를 풀고, EWMA 지연이 중앙값의 ejectionFactor 배를 넘는 복제본을 제외한다.
+     * 동시에 제외되는 복제본은 maxEjectionPercent 를 넘지 않으며 최소 하나는 남긴다.
+     */
+    void checkEjections(long now) {
+        double baseline = medianEwma(now);
+
+        int ejected = 0;
+        for (EngineReplica replica : replicas) {
+            if (replica.isEjectionExpired(now)) {
+                replica.readmit(baseline > 0 ? baseline : replica.ewmaMillis());
+                log.info("{} 복제본 재투입: {}", engine, replica.getBaseUrl());
+            } else if (replica.isEjected(now)) {
+                ejected++;
+            }
+        }
+
+        if (baseline <= 0) {
+            return;
+        }
+
+        int maxEjected = Math.min(replicas.size() - 1, replicas.size() * config.getMaxEjectionPercent() / 100);
+        for (EngineReplica replica : replicas) {
+            if (ejected >= maxEjected) {
+                break;
+            }
+            if (!replica.isEjected(now)
+                    && replica.getSamples() >= config.getEjectionMinSamples()
+                    && replica.ewmaMillis() > baseline * config.getEjectionFactor()) {
+                replica.eject(now, config.getEjectionDuration().toNanos());
+                ejected++;
+                log.warn("{} 복제본 일시 제외: {} (EWMA {}ms, 중앙값 {}ms, {}초)", engine, replica.getBaseUrl(),
+                        Math.round(replica.ewmaMillis()), Math.round(baseline), config.getEjectionDuration().getSeconds());
+            }
+        }
+    }
+
+    private double medianEwma(long now) {
+        double[] values = new double[replicas.size()];
+        int count = 0;
+        for (EngineReplica replica : replicas) {
+            if (!replica.isEjected(now) && replica.getSamples() >= config.getEjectionMinSamples()) {
+                values[count++] = replica.ewmaMillis();
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(values, 0, count);
+        // 짝수 개면 낮은 쪽 (두 복제본 중 하나만 느린 경우 빠른 쪽이 기준이 되도록)
+        return values[(count - 1) / 2];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,241 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import com.example.simple.dto.LLMResponse;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 동시에 들어온 호환 요청(같은 엔진, max_tokens, temperature)을 짧은 시간 동안 모아
+ * 업스트림 한 번의 호출로 보내고, 결과를 기다리던 호출자들에게 나눠준다.
+ *
+ * 배치는 maxBatchSize 에 도달하거나 첫 요청 이후 maxWait 가 지나면 전송된다.
+ * 모인 요청이 하나뿐이면 배치 형식 대신 일반 단건 호출을 사용한다.
+ *
+ * 전송 전에 취소된 요청(헤지 패배, 타임아웃 등)은 배치에서 빼고, 남은 요청이 없으면 보내지 않는다.
+ * 전송 후 기다리던 요청이 모두 취소되면 업스트림 호출도 취소한다.
+ * 업스트림 호출은 남은 첫 요청의 Reactor Context 로 구독한다 (BYPASS_AFFINITY, RequestTimings 전달).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RequestBatcher {
+
+    private final LLMConfig llmConfig;
+    private final VllmService vllmService;
+    private final SglangService sglangService;
+
+    // this 로 보호
+    private final Map<BatchKey, PendingBatch> openBatches = new HashMap<>();
+
+    public boolean isEnabled() {
+        return llmConfig.getBatching().isEnabled();
+    }
+
+    /**
+     * 요청을 배치에 넣고, 배치 응답 중 자기 몫의 결과를 LLMResponse 로 돌려받는다.
+     *
+     * @param engine "vllm" 또는 "sglang" (정규화된 엔진 이름)
+     */
+    public Mono<LLMResponse> submit(String engine, LLMRequest request, long startTime) {
+        BatchKey key = new BatchKey(engine,
+                llmConfig.effectiveMaxTokens(engine, request.getMaxTokens()),
+                llmConfig.effectiveTemperature(engine, request.getTemperature()));
+
+        return Mono.<String>create(sink -> {
+                    PendingPrompt prompt = new PendingPrompt(request, sink);
+                    sink.onCancel(prompt::cancel);
+                    enqueue(key, prompt);
+                })
+                .map(text -> LLMResponse.builder()
+                        .text(text)
+                        .engine(engine)
+                        .responseTimeMs(System.currentTimeMillis() - startTime)
+                        .success(true)
+                        .build());
+    }
+
+    private void enqueue(BatchKey key, PendingPrompt prompt) {
+        List<PendingPrompt> ready = null;
+
+        synchronized (this) {
+            PendingBatch batch = openBatches.get(key);
+            if (batch == null) {
+                batch = new PendingBatch();
+                openBatches.put(key, batch);
+                PendingBatch scheduled = batch;
+                batch.timer = Schedulers.parallel().schedule(() -> flushIfOpen(key, scheduled),
+                        llmConfig.getBatching().getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.prompts.add(prompt);
+
+            if (batch.prompts.size() >= llmConfig.getBatching().getMaxBatchSize()) {
+                openBatches.remove(key);
+                batch.timer.dispose();
+                ready = batch.prompts;
+            }
+        }
+
+        if (ready != null) {
+            send(key, ready);
+        }
+    }
+
+    private void flushIfOpen(BatchKey key, PendingBatch batch) {
+        synchronized (this) {
+            // 크기 제한으로 이미 전송된 배치면 무시
+            if (!openBatches.remove(key, batch)) {
+                return;
+            }
+        }
+        send(key, batch.prompts);
+    }
+
+    private void send(BatchKey key, List<PendingPrompt> pending) {
+        List<PendingPrompt> batch = new ArrayList<>(pending.size());
+        for (PendingPrompt prompt : pending) {
+            if (!prompt.isCancelled()) {
+                batch.add(prompt);
+            }
+        }
+        if (batch.isEmpty()) {
+            log.debug("배치 전송 생략 (모두 취소됨): engine={}, cancelled={}", key.getEngine(), pending.size());
+            return;
+        }
+        
+        log.debug("배치 전송: engine={}, batchSize={}, cancelled={}, maxTokens={}, temperature={}",
+                key.getEngine(), batch.size(), pending.size() - batch.size(), key.getMaxTokens(), key.getTemperature());
+        
+        Context context = batch.get(0).getSink().currentContext();
+        InFlight inFlight = new InFlight(batch.size());
+        batch.forEach(prompt -> prompt.attach(inFlight));
+
+        if (batch.size() == 1) {
+            PendingPrompt single = batch.get(0);
+            inFlight.start(callSingle(key.getEngine(), single.getRequest())
+                    .subscriberContext(context)
+                    .subscribe(response -> single.getSink().success(response.getText()),
+                            e -> single.getSink().error(e)));
+            return;
+        }
+
+        List<String> prompts = new ArrayList<>(batch.size());
+        for (PendingPrompt prompt : batch) {
+            prompts.add(prompt.getRequest().getPrompt());
+        }
+
+        inFlight.start(callBatch(key, prompts)
+                .subscriberContext(context)
+                .subscribe(
+                        texts -> {
+                            for (int i = 0; i < batch.size(); i++) {
+                                batch.get(i).getSink().success(texts.get(i));
+                            }
+                        },
+                        e -> batch.forEach(prompt -> prompt.getSink().error(e))));
+    }
+
+    private Mono<LLMResponse> callSingle(String engine, LLMRequest request) {
+        long startTime = System.currentTimeMillis();
+        return "sglang".equals(engine)
+                ? sglangService.generate(request, startTime)
+                : vllmService.generate(request, startTime);
+    }
+
+    private Mono<List<String>> callBatch(BatchKey key, List<String> prompts) {
+        return "sglang".equals(key.getEngine())
+                ? sglangService.generateBatch(prompts, key.getMaxTokens(), key.getTemperature())
+                : vllmService.generateBatch(prompts, key.getMaxTokens(), key.getTemperature());
+    }
+
+    @Value
+    private static class BatchKey {
+        String engine;
+        int maxTokens;
+        double temperature;
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingPrompt {
+        @Getter
+        private final LLMRequest request;
+        @Getter
+        private final MonoSink<String> sink;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean cancelled;
+        // 전송된 뒤에만 설정된다
+        private volatile InFlight inFlight;
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        void attach(InFlight inFlight) {
+            this.inFlight = inFlight;
+            releaseIfCancelled();
+        }
+
+        void cancel() {
+            cancelled = true;
+            releaseIfCancelled();
+        }
+
+        // attach 와 cancel 이 경합해도 한 번만 센다
+        private void releaseIfCancelled() {
+            InFlight current = inFlight;
+            if (cancelled && current != null && released.compareAndSet(false, true)) {
+                current.waiterCancelled();
+            }
+        }
+    }
+
+    /**
+     * 전송된 업스트림 호출 하나. 기다리는 요청이 모두 취소되면 호출을 취소한다.
+     */
+    private static class InFlight {
+        private final AtomicInteger waiting;
+        private volatile Disposable subscription;
+
+        InFlight(int waiters) {
+            this.waiting = new AtomicInteger(waiters);
+        }
+
+        void start(Disposable subscription) {
+            this.subscription = subscription;
+            if (waiting.get() <= 0) {
+                subscription.dispose();
+            }
+        }
+
+        void waiterCancelled() {
+            if (waiting.decrementAndGet() == 0) {
+                Disposable current = subscription;
+                if (current != null) {
+                    current.dispose();
+                }
+            }
+        }
+    }
+
+    private static class PendingBatch {
+        private final List<PendingPrompt> prompts = new ArrayList<>();
+        private Disposable timer;
+    }
+}
\ No newline at end of file
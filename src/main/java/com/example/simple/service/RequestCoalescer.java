@@ -0,0 +1,112 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import com.example.simple.dto.LLMResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 진행 중인 동일 요청 합치기(single-flight).
+ *
+ * (engine, prompt, maxTokens, temperature) 가 같은 요청이 동시에 들어오면 업스트림 호출은 하나만 하고
+ * 모든 호출자가 그 결과(성공/실패)를 함께 받는다. 결과가 나오면 키는 즉시 제거되므로 캐시가 아니다.
+ * 결과가 같아야 의미가 있으므로 temperature 0 요청 또는 coalesce=true 로 명시한 요청에만 적용한다.
+ *
+ * 메트릭: llm.coalescing.requests (result=hit|miss), llm.coalescing.inflight
+ */
+@Component
+@Slf4j
+public class RequestCoalescer {
+
+    private final LLMConfig llmConfig;
+    private final Map<CoalescingKey, Mono<LLMResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public RequestCoalescer(LLMConfig llmConfig, MeterRegistry meterRegistry) {
+        this.llmConfig = llmConfig;
+        this.hitCounter = Counter.builder("llm.coalescing.requests")
+                .description("진행 중인 동일 요청에 합류한 요청 수")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("llm.coalescing.requests")
+                .description("새 업스트림 호출을 시작한 합치기 대상 요청 수")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("llm.coalescing.inflight", inFlight, Map::size)
+                .description("현재 진행 중인 합치기 대상 업스트림 호출 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 합치기 대상 여부: 기능이 켜져 있고, 실제 적용될 temperature 가 0 이거나 클라이언트가 opt-in 한 경우
+     */
+    public boolean isEligible(String engine, LLMRequest request) {
+        if (!llmConfig.getCoalescing().isEnabled()) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(request.getCoalesce())) {
+            return true;
+        }
+        return llmConfig.effectiveTemperature(engine, request.getTemperature()) == 0.0;
+    }
+
+    /**
+     * 같은 키의 호출이 진행 중이면 그 결과를 공유하고, 없으면 call 로 새 호출을 시작한다.
+     * 각 호출자의 responseTimeMs 는 자기 startTime 기준으로 다시 계산된다.
+     */
+    public Mono<LLMResponse> execute(String engine, LLMRequest request, long startTime,
+                                     Supplier<Mono<LLMResponse>> call) {
+        CoalescingKey key = new CoalescingKey(engine, request.getPrompt(),
+                llmConfig.effectiveMaxTokens(engine, request.getMaxTokens()),
+                llmConfig.effectiveTemperature(engine, request.getTemperature()));
+
+        return Mono.defer(() -> {
+            boolean[] leader = new boolean[1];
+            Mono<LLMResponse> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return startShared(k, call);
+            });
+
+            if (leader[0]) {
+                missCounter.increment();
+            } else {
+                hitCounter.increment();
+                log.debug("진행 중인 동일 요청에 합류: engine={}, promptLength={}", engine, request.getPrompt().length());
+            }
+
+            return shared.map(response -> response.toBuilder()
+                    .responseTimeMs(System.currentTimeMillis() - startTime)
+                    .build());
+        });
+    }
+
+    private Mono<LLMResponse> startShared(CoalescingKey key, Supplier<Mono<LLMResponse>> call) {
+        AtomicReference<Mono<LLMResponse>> self = new AtomicReference<>();
+        // 일부 호출자가 취소해도 나머지가 결과를 받을 수 있도록 cache() 로 한 번만 구독한다
+        Mono<LLMResponse> shared = Mono.defer(call)
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+
+    @Value
+    private static class CoalescingKey {
+        String engine;
+        String prompt;
+        int maxTokens;
+        double temperature;
+    }
+}
\ No newline at end of file
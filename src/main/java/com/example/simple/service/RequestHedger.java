@@ -0,0 +1,162 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 헤지 요청: 엔진의 최근 p95 응답 시간이 지나도 응답이 없으면 같은 요청을 다른 대상으로 한 번 더 보내고
+ * 먼저 성공한 응답을 사용한다. 진 쪽 요청은 구독 취소되어 업스트림 연결이 끊긴다.
+ *
+ * - 주 요청이 헤지 시작 전에 실패하면 헤지 없이 바로 실패를 돌려준다 (재시도/전환은 EngineFailover 담당)
+ * - 헤지가 이미 나갔다면 둘 중 하나라도 성공하면 성공
+ * - 헤지 수는 토큰 버킷으로 전체 요청의 maxHedgeRatio 이하로 제한
+ *
+ * 메트릭: llm.hedging.issued / llm.hedging.won / llm.hedging.skipped (engine), llm.hedging.delay (engine)
+ */
+@Component
+@Slf4j
+public class RequestHedger {
+
+    private static final int LATENCY_WINDOW = 512;
+    private static final int MIN_SAMPLES = 20;
+    private static final int HEDGE_BURST = 10;
+
+    private final LLMConfig llmConfig;
+    private final MeterRegistry meterRegistry;
+    private final EngineReplicaPools replicaPools;
+    private final RetryBudget hedgeBudget;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    public RequestHedger(LLMConfig llmConfig, MeterRegistry meterRegistry, EngineReplicaPools replicaPools) {
+        this.llmConfig = llmConfig;
+        this.meterRegistry = meterRegistry;
+        this.replicaPools = replicaPools;
+        this.hedgeBudget = new RetryBudget(llmConfig.getHedging().getMaxHedgeRatio(), 0.0, HEDGE_BURST);
+    }
+
+    public boolean isEnabled() {
+        return llmConfig.getHedging().isEnabled();
+    }
+
+    /**
+     * engine 으로 call 을 실행하되, 지연 시간 안에 응답이 없으면 헤지 대상으로 한 번 더 보낸다.
+     *
+     * @param call 엔진 이름을 받아 실제 호출을 만드는 함수
+     */
+    public Mono<LLMResponse> execute(String engine, Function<String, Mono<LLMResponse>> call) {
+        return Mono.defer(() -> {
+            hedgeBudget.recordRequest();
+            Duration delay = hedgeDelay(engine);
+            String hedgeTarget = hedgeTarget(engine);
+            MonoProcessor<Boolean> primaryFailed = MonoProcessor.create();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            long primaryStart = System.nanoTime();
+
+            Mono<Tuple2<LLMResponse, Boolean>> primary = timed(engine, call)
+                    .doOnError(e -> {
+                        primaryError.set(e);
+                        primaryFailed.onNext(true);
+                    })
+                    .map(response -> Tuples.of(response, false));
+
+            Mono<Tuple2<LLMResponse, Boolean>> hedge = Mono.delay(delay)
+                    .takeUntilOther(primaryFailed)
+                    .flatMap(tick -> {
+                        if (!hedgeBudget.tryAcquire()) {
+                            meterRegistry.counter("llm.hedging.skipped", "engine", engine).increment();
+                            return Mono.empty();
+                        }
+                        log.debug("헤지 요청 전송: {} -> {}, delay={}ms", engine, hedgeTarget, delay.toMillis());
+                        meterRegistry.counter("llm.hedging.issued", "engine", engine).increment();
+                        // 헤지는 prefix 친화도를 무시해 주 요청과 다른 복제본으로 가게 한다
+                        return timed(hedgeTarget, call)
+                                .subscriberContext(EngineReplicaPools::bypassAffinity)
+                                .map(response -> Tuples.of(response, true));
+                    });
+
+            // 먼저 도착한 성공 응답을 쓰고 나머지는 취소. 둘 다 실패하면 주 요청의 오류를 돌려준다.
+            return Flux.mergeDelayError(2, primary, hedge)
+                    .next()
+                    .map(result -> {
+                        if (result.getT2()) {
+                            meterRegistry.counter("llm.hedging.won", "engine", engine).increment();
+                            // 헤지에 져서 곧 취소될 주 요청은 지금까지의 시간을 하한값으로 남긴다. 빠지면 느린 호출이
+                            // percentile 에서 사라져 지연이 낮아지고, 헤지가 더 자주 나가는 쏠림이 생긴다.
+                            if (primaryError.get() == null) {
+                                recordSince(engine, primaryStart);
+                            }
+                        }
+                        return result.getT1();
+                    })
+                    .onErrorMap(e -> primaryError.get() != null ? primaryError.get() : Exceptions.unwrapMultiple(e).get(0));
+        });
+    }
+
+    /**
+     * 헤지 지연: 엔진 최근 응답 시간의 percentile (표본이 부족하면 initialDelay), 최소 minDelay
+     */
+    Duration hedgeDelay(String engine) {
+        LLMConfig.HedgingConfig config = llmConfig.getHedging();
+        long observed = tracker(engine).percentileMillis();
+        Duration delay = observed < 0 ? config.getInitialDelay() : Duration.ofMillis(observed);
+        return delay.compareTo(config.getMinDelay()) < 0 ? config.getMinDelay() : delay;
+    }
+
+    /**
+     * 같은 엔진에 복제본이 둘 이상이면 같은 엔진으로 헤지한다 (P2C 가 주 요청이 잡고 있는 복제본을 피한다).
+     * 복제본이 하나뿐이면 다른 엔진이 켜져 있을 때 그쪽으로, 아니면 같은 엔진으로 헤지한다.
+     */
+    String hedgeTarget(String engine) {
+        if (replicaPools.get(engine).getReplicas().size() > 1) {
+            return engine;
+        }
+        String other = "sglang".equals(engine) ? "vllm" : "sglang";
+        boolean otherEnabled = "sglang".equals(other) ? llmConfig.getSglang().isEnabled() : llmConfig.getVllm().isEnabled();
+        return otherEnabled ? other : engine;
+    }
+
+    /**
+     * 성공한 호출의 응답 시간만 기록한다. 취소된 호출(주 요청이 이겨 취소된 헤지, 클라이언트 연결 끊김/타임아웃)의
+     * 짧은 경과 시간은 실제 응답 시간보다 낮은 값이라 남기지 않는다.
+     */
+    private Mono<LLMResponse> timed(String engine, Function<String, Mono<LLMResponse>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.apply(engine)
+                    .doOnSuccess(response -> recordSince(engine, start));
+        });
+    }
+
+    private void recordSince(String engine, long startNanos) {
+        tracker(engine).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    LatencyTracker tracker(String engine) {
+        return latencies.computeIfAbsent(engine, key -> {
+            LatencyTracker tracker = new LatencyTracker(LATENCY_WINDOW, llmConfig.getHedging().getPercentile(), MIN_SAMPLES);
+            Gauge.builder("llm.hedging.delay", this, hedger -> hedger.hedgeDelay(key).toMillis())
+                    .description("현재 적용 중인 헤지 지연 (ms)")
+                    .tag("engine", key)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            return tracker;
+        });
+    }
+}
\ No newline at end of file
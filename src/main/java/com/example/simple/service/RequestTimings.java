@@ -0,0 +1,136 @@
+package com.example.simple.service;
+
+import reactor.util.context.Context;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 요청 한 건의 구간별 소요 시간 (System.nanoTime 기준).
+ *
+ * 컨트롤러가 요청마다 하나 만들어 Reactor Context(CONTEXT_KEY)에 넣고, LLMService 와 엔진 서비스가 Context 에서
+ * 꺼내 자기 구간을 더한다. CONNECT 는 EngineWebClients 의 커넥션 획득 훅이 같은 Context 에서 꺼내 더한다.
+ * 결과는 Server-Timing 응답 헤더와 LLM_LOGS 의 *_US 컬럼으로 남는다.
+ * Context 에 없으면 NONE 을 돌려주며 NONE 은 아무것도 기록하지 않는다.
+ *
+ * 같은 구간은 더해진다. 재시도/페일오버는 시도마다 더해지고, 헤지 요청은 두 호출이 겹치므로 upstream 이 total 보다
+ * 클 수 있다. 캐시 적중이나 합류(coalescing)한 요청은 엔진 구간이 비어 있고, 마이크로 배치는 첫 요청에만 엔진 구간이 남는다.
+ */
+public final class RequestTimings {
+
+    public static final String CONTEXT_KEY = RequestTimings.class.getName();
+
+    public static final RequestTimings NONE = new RequestTimings(0, false);
+
+    public enum Phase {
+        /** 컨트롤러 진입부터 LLMService 호출까지 (요청 본문 @Valid 검증은 컨트롤러 진입 전이라 빠진다) */
+        VALIDATE("validate"),
+        /** 토큰 비용 추정 */
+        TOKENIZE("tokenize"),
+        /** 테넌트 대기열 대기 */
+        QUEUE("queue"),
+        /** 엔진 동시 요청 한도 대기 */
+        LIMIT("limit"),
+        /** 커넥션 풀에서 커넥션 획득 (새 커넥션이면 TCP 연결 포함). UPSTREAM 에 포함된다 */
+        CONNECT("connect"),
+        /** 업스트림 호출 (커넥션 획득, 요청 전송, prefill/decode, 응답 수신). 응답 파싱 시간은 뺀다 */
+        UPSTREAM("upstream"),
+        /** 스트리밍 첫 토큰까지 (prefill). UPSTREAM 에 포함된다 */
+        TTFT("ttft"),
+        /** 업스트림 응답 JSON 파싱 */
+        PARSE("parse"),
+        /** 통계/메트릭 반영과 로그 큐 적재 */
+        LOG("log");
+
+        private final String headerName;
+
+        Phase(String headerName) {
+            this.headerName = headerName;
+        }
+    }
+
+    /** LLM_LOGS 에 남기는 구간 (LOG 는 기록하는 시점에 아직 끝나지 않았으므로 뺀다) */
+    static final Phase[] LOGGED_PHASES = {
+            Phase.VALIDATE, Phase.TOKENIZE, Phase.QUEUE, Phase.LIMIT, Phase.CONNECT, Phase.UPSTREAM, Phase.TTFT,
+            Phase.PARSE
+    };
+
+    private final long startNanos;
+    private final boolean enabled;
+    private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+
+    private RequestTimings(long startNanos, boolean enabled) {
+        this.startNanos = startNanos;
+        this.enabled = enabled;
+    }
+
+    public static RequestTimings start() {
+        return new RequestTimings(System.nanoTime(), true);
+    }
+
+    public static RequestTimings from(Context context) {
+        return context.getOrDefault(CONTEXT_KEY, NONE);
+    }
+
+    public Context putInto(Context context) {
+        return context.put(CONTEXT_KEY, this);
+    }
+
+    public void add(Phase phase, long elapsedNanos) {
+        if (enabled && elapsedNanos > 0) {
+            nanos.addAndGet(phase.ordinal(), elapsedNanos);
+        }
+    }
+
+    /**
+     * startNanos 부터 지금까지를 phase 에 더하고 지금 시각을 돌려준다
+     */
+    public long addSince(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        add(phase, now - startNanos);
+        return now;
+    }
+
+    public long get(Phase phase) {
+        return nanos.get(phase.ordinal());
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Server-Timing 헤더 값. 기록된 구간과 total 을 ms 단위로 적는다.
+     * 예: validate;dur=0.081, upstream;dur=812.400, parse;dur=0.153, total;dur=815.200
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder(256);
+        for (Phase phase : Phase.values()) {
+            long value = get(phase);
+            if (value > 0) {
+                appendEntry(header, phase.headerName, value);
+            }
+        }
+        appendEntry(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    /**
+     * LOGGED_PHASES 순서의 마이크로초 값. 기록되지 않은 구간은 null
+     */
+    Object[] toLogColumns() {
+        Object[] columns = new Object[LOGGED_PHASES.length];
+        for (int i = 0; i < LOGGED_PHASES.length; i++) {
+            long value = get(LOGGED_PHASES[i]);
+            columns[i] = value > 0 ? value / 1_000 : null;
+        }
+        return columns;
+    }
+
+    private static void appendEntry(StringBuilder header, String name, long value) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", value / 1_000_000.0));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import com.example.simple.dto.LLMResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * temperature 0 (결정적) 생성 결과 캐시.
+ *
+ * 키는 엔진, max_tokens, temperature, 프롬프트 원문 전체다. 모든 테넌트가 캐시를 공유하므로 해시만으로 찾으면
+ * 충돌하도록 만든 프롬프트로 다른 호출자의 응답을 읽거나 덮어쓸 수 있어 원문까지 비교한다.
+ * 추정 메모리 크기(maxSize, 프롬프트 포함)와 TTL 로 제거되며, 제거 정책은 Caffeine 의 W-TinyLFU 를 따른다.
+ * 성공한 응답만 저장한다.
+ *
+ * 메트릭: cache.gets/puts/evictions/size (cache=llm.response),
+ * llm.response.cache.hit.ratio, llm.response.cache.memory.bytes
+ */
+@Component
+@Slf4j
+public class ResponseCache {
+
+    // 응답 객체, 문자열 헤더, 키 등 텍스트 외 고정 비용 추정치
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final LLMConfig llmConfig;
+    private final Cache<CacheKey, LLMResponse> cache;
+
+    public ResponseCache(LLMConfig llmConfig, MeterRegistry meterRegistry) {
+        this.llmConfig = llmConfig;
+        LLMConfig.CacheConfig config = llmConfig.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxSize().toBytes())
+                .weigher((CacheKey key, LLMResponse value) -> estimateBytes(key, value))
+                .expireAfterWrite(config.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "llm.response");
+        Gauge.builder("llm.response.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("응답 캐시 적중률 (기동 이후 누적)")
+                .register(meterRegistry);
+        Gauge.builder("llm.response.cache.memory.bytes", cache,
+                c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .description("캐시된 응답의 추정 메모리 사용량")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 캐시 대상 여부: 기능이 켜져 있고, bypass 가 아니며, 실제 적용될 temperature 가 0 인 경우
+     */
+    public boolean isEligible(String engine, LLMRequest request) {
+        return llmConfig.getCache().isEnabled()
+                && !"bypass".equals(request.getCacheMode())
+                && llmConfig.effectiveTemperature(engine, request.getTemperature()) == 0.0;
+    }
+
+    /**
+     * 캐시에 있으면 cached=true 로 바로 돌려주고, 없거나 refresh 요청이면 loader 결과를 저장 후 돌려준다.
+     */
+    public Mono<LLMResponse> getOrLoad(String engine, LLMRequest request, long startTime,
+                                       Supplier<Mono<LLMResponse>> loader) {
+        return Mono.defer(() -> {
+            CacheKey key = keyOf(engine, request);
+
+            if (!"refresh".equals(request.getCacheMode())) {
+                LLMResponse hit = cache.getIfPresent(key);
+                if (hit != null) {
+                    log.debug("응답 캐시 적중: engine={}, promptLength={}", engine, request.getPrompt().length());
+                    return Mono.just(hit.toBuilder()
+                            .cached(true)
+                            .responseTimeMs(System.currentTimeMillis() - startTime)
+                            .build());
+                }
+            }
+
+            return loader.get().doOnNext(response -> {
+                if (response.isSuccess()) {
+                    cache.put(key, response);
+                }
+            });
+        });
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private CacheKey keyOf(String engine, LLMRequest request) {
+        return new CacheKey(engine, request.getPrompt(),
+                llmConfig.effectiveMaxTokens(engine, request.getMaxTokens()),
+                llmConfig.effectiveTemperature(engine, request.getTemperature()));
+    }
+
+    private static int estimateBytes(CacheKey key, LLMResponse response) {
+        String text = response.getText();
+        // Java 9+ compact string 이라도 한글이 섞이면 UTF-16 이므로 보수적으로 2바이트/문자
+        return ENTRY_OVERHEAD_BYTES + key.getPrompt().length() * 2 + (text != null ? text.length() * 2 : 0);
+    }
+
+    @Value
+    private static class CacheKey {
+        String engine;
+        String prompt;
+        int maxTokens;
+        double temperature;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.example.simple.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 락 없는 토큰 버킷 재시도 예산.
+ *
+ * - 일반 요청 1건마다 ratio 토큰 적립 (재시도 비율 상한)
+ * - 시간 경과에 따라 초당 minPerSecond 토큰 적립 (트래픽이 적을 때도 최소 재시도 허용)
+ * - 재시도 1회마다 토큰 1개 소비, 잔량은 capacity 를 넘지 않는다
+ *
+ * 토큰은 정수 연산을 위해 백만 분의 1 단위로 저장한다.
+ */
+public class RetryBudget {
+
+    private static final long UNIT = 1_000_000L;
+    // 너무 잦은 시간 기반 적립으로 CAS 경합이 생기지 않도록 최소 간격을 둔다
+    private static final long REFILL_INTERVAL_NANOS = 10_000_000L;
+
+    private final long depositPerRequest;
+    private final double refillPerNano;
+    private final long capacity;
+
+    private final AtomicLong tokens;
+    private final AtomicLong lastRefillNanos;
+
+    public RetryBudget(double ratio, double minPerSecond, int capacity) {
+        this.depositPerRequest = (long) (ratio * UNIT);
+        this.refillPerNano = minPerSecond * UNIT / 1_000_000_000d;
+        this.capacity = capacity * UNIT;
+        // 기동 직후 장애에도 최소한의 재시도는 가능하도록 가득 찬 상태로 시작
+        this.tokens = new AtomicLong(this.capacity);
+        this.lastRefillNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 일반(첫 시도) 요청 1건을 기록하고 토큰을 적립한다.
+     */
+    public void recordRequest() {
+        deposit(depositPerRequest);
+    }
+
+    /**
+     * 재시도 1회에 필요한 토큰을 얻으면 true. 예산이 바닥나면 false (재시도하지 말 것).
+     */
+    public boolean tryAcquire() {
+        refill();
+        while (true) {
+            long current = tokens.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 현재 사용 가능한 재시도 횟수 (소수점 포함)
+     */
+    public double available() {
+        refill();
+        return tokens.get() / (double) UNIT;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long last = lastRefillNanos.get();
+        long elapsed = now - last;
+        if (elapsed >= REFILL_INTERVAL_NANOS && lastRefillNanos.compareAndSet(last, now)) {
+            deposit((long) (elapsed * refillPerNano));
+        }
+    }
+
+    private void deposit(long amount) {
+        if (amount > 0) {
+            tokens.accumulateAndGet(amount, (current, add) -> Math.min(capacity, current + add));
+        }
+    }
+}
\ No newline at end of file
@@ -3,17 +3,24 @@ package com.example.simple.service;
 import com.example.simple.config.LLMConfig;
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -22,99 +29,203 @@ public class SglangService {
     
     private final LLMConfig llmConfig;
     private final ObjectMapper objectMapper;
-    private final WebClient.Builder webClientBuilder;
+    private final EngineReplicaPools replicaPools;
+    private final EngineConcurrencyLimiters concurrencyLimiters;
+    private final UpstreamRequestEncoder requestEncoder;
+    private final LLMMetrics llmMetrics;
     
-    public LLMResponse generate(LLMRequest request, long startTime) {
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<ServerSentEvent<String>>() {};
+    
+    public Mono<LLMResponse> generate(LLMRequest request, long startTime) {
         if (!llmConfig.getSglang().isEnabled()) {
-            throw new RuntimeException("SGLang이 비활성화되어 있습니다");
+            return Mono.error(new RuntimeException("SGLang이 비활성화되어 있습니다"));
         }
         
-        try {
-            WebClient webClient = webClientBuilder
-                    .baseUrl(llmConfig.getSglang().getBaseUrl())
-                    .build();
-            
-            Map<String, Object> requestBody = createRequestBody(request);
-            
-            log.debug("SGLang 요청: URL={}, Body={}", llmConfig.getSglang().getBaseUrl(), requestBody);
-            
-            String response = webClient
-                    .post()
-                    .uri("/generate")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(llmConfig.getSglang().getTimeout())
-                    .block();
-            
-            String text = extractText(response);
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            log.debug("SGLang 응답 성공: responseTime={}ms, textLength={}", responseTime, text.length());
-            
-            return LLMResponse.builder()
-                    .text(text)
-                    .engine("sglang")
-                    .responseTimeMs(responseTime)
-                    .success(true)
-                    .build();
+        BodyInserter<?, ? super ClientHttpRequest> requestBody = createRequestBody(request, false);
+        
+        return Mono.defer(() -> {
+                    long queuedAt = System.nanoTime();
+                    return concurrencyLimiters.get("sglang").execute(Mono.subscriberContext().flatMap(context -> {
+                        EngineReplica replica = replicaPools.choose("sglang", request.getPrompt(), context);
+                        log.debug("SGLang 요청: URL={}, promptLength={}", replica.getBaseUrl(), request.getPrompt().length());
+                        RequestTimings timings = RequestTimings.from(context);
                     
-        } catch (WebClientException e) {
-            log.error("SGLang 네트워크 오류: {}", e.getMessage());
-            throw new RuntimeException("SGLang 네트워크 오류: " + e.getMessage(), e);
-        } catch (Exception e) {
-            log.error("SGLang 호출 실패: {}", e.getMessage(), e);
-            throw new RuntimeException("SGLang 호출 실패: " + e.getMessage(), e);
-        }
+                        return replica.track(llmMetrics.recordCall("sglang", replica.getId(), queuedAt, timings,
+                                replica.getWebClient()
+                                        .post()
+                                        .uri("/generate")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .body(requestBody)
+                                        .retrieve()
+                                        .bodyToFlux(DataBuffer.class)
+                                        .as(body -> CompletionResponseDecoder.decode(body, objectMapper.getFactory()))
+                                        .timeout(llmConfig.getSglang().getTimeout())));
+                    }));
+                })
+                .map(decoded -> {
+                    String text = extractText(decoded);
+                    long responseTime = System.currentTimeMillis() - startTime;
+                    
+                    log.debug("SGLang 응답 성공: responseTime={}ms, textLength={}", responseTime, text.length());
+                    
+                    return LLMResponse.builder()
+                            .text(text)
+                            .engine("sglang")
+                            .responseTimeMs(responseTime)
+                            .success(true)
+                            .build();
+                })
+                .onErrorMap(e -> {
+                    if (e instanceof ConcurrencyLimitExceededException) {
+                        return e;
+                    }
+                    if (e instanceof WebClientException) {
+                        log.error("SGLang 네트워크 오류: {}", e.getMessage());
+                        return new RuntimeException("SGLang 네트워크 오류: " + e.getMessage(), e);
+                    }
+                    log.error("SGLang 호출 실패: {}", e.getMessage(), e);
+                    return new RuntimeException("SGLang 호출 실패: " + e.getMessage(), e);
+                });
     }
     
-    private Map<String, Object> createRequestBody(LLMRequest request) {
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("text", request.getPrompt());
+    /**
+     * 여러 프롬프트를 text 리스트로 묶어 한 번의 /generate 호출로 보낸다.
+     * 결과 텍스트는 응답 배열 순서대로 입력 프롬프트와 같은 순서로 돌려준다.
+     */
+    public Mono<List<String>> generateBatch(List<String> prompts, int maxTokens, double temperature) {
+        if (!llmConfig.getSglang().isEnabled()) {
+            return Mono.error(new RuntimeException("SGLang이 비활성화되어 있습니다"));
+        }
         
-        Map<String, Object> samplingParams = new HashMap<>();
-        samplingParams.put("max_new_tokens", request.getMaxTokens() != null ? 
-                request.getMaxTokens() : llmConfig.getSglang().getMaxTokens());
-        samplingParams.put("temperature", request.getTemperature() != null ? 
-                request.getTemperature() : llmConfig.getSglang().getTemperature());
-        samplingParams.put("top_p", 0.9);
-        samplingParams.put("stream", false);
+        return Mono.defer(() -> {
+                    long queuedAt = System.nanoTime();
+                    return concurrencyLimiters.get("sglang").execute(Mono.subscriberContext().flatMap(context -> {
+                        // 배치는 첫 프롬프트 기준으로 복제본을 고른다
+                        EngineReplica replica = replicaPools.choose("sglang", prompts.get(0), context);
+                        log.debug("SGLang 배치 요청: URL={}, batchSize={}", replica.getBaseUrl(), prompts.size());
+                        RequestTimings timings = RequestTimings.from(context);
+                    
+                        return replica.track(llmMetrics.recordCall("sglang", replica.getId(), queuedAt, timings,
+                                replica.getWebClient()
+                                        .post()
+                                        .uri("/generate")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .body(requestEncoder.sglangBatchBody(prompts, maxTokens, temperature))
+                                        .retrieve()
+                                        .bodyToFlux(DataBuffer.class)
+                                        .as(body -> CompletionResponseDecoder.decode(body, objectMapper.getFactory()))
+                                        .timeout(llmConfig.getSglang().getTimeout())));
+                    }));
+                })
+                .map(decoded -> {
+                    List<String> texts = new ArrayList<>(prompts.size());
+                    for (int i = 0; i < prompts.size(); i++) {
+                        String text = decoded.getItemText(i);
+                        if (text == null) {
+                            throw new RuntimeException("배치 응답에서 " + i + "번째 텍스트를 추출할 수 없습니다");
+                        }
+                        texts.add(text.trim());
+                    }
+                    return texts;
+                })
+                .onErrorMap(e -> {
+                    if (e instanceof ConcurrencyLimitExceededException) {
+                        return e;
+                    }
+                    log.error("SGLang 배치 호출 실패: batchSize={}, error={}", prompts.size(), e.getMessage());
+                    return new RuntimeException("SGLang 배치 호출 실패: " + e.getMessage(), e);
+                });
+    }
+    
+    /**
+     * 업스트림을 stream=true 로 호출하고 SSE 청크에서 텍스트 증분만 뽑아 순서대로 내보낸다.
+     * timeout 은 청크 사이의 최대 대기 시간으로 적용된다.
+     */
+    public Flux<String> generateStream(LLMRequest request) {
+        if (!llmConfig.getSglang().isEnabled()) {
+            return Flux.error(new RuntimeException("SGLang이 비활성화되어 있습니다"));
+        }
         
-        requestBody.put("sampling_params", samplingParams);
+        BodyInserter<?, ? super ClientHttpRequest> requestBody = createRequestBody(request, true);
         
-        return requestBody;
+        return Mono.subscriberContext().flatMapMany(context -> {
+                    EngineReplica replica = replicaPools.choose("sglang", request.getPrompt(), context);
+                    log.debug("SGLang 스트리밍 요청: URL={}, promptLength={}", replica.getBaseUrl(), request.getPrompt().length());
+                    RequestTimings timings = RequestTimings.from(context);
+                    
+                    return replica.trackStream(llmMetrics.recordStream("sglang", replica.getId(), timings,
+                            replica.getWebClient()
+                                    .post()
+                                    .uri("/generate")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .accept(MediaType.TEXT_EVENT_STREAM)
+                                    .body(requestBody)
+                                    .retrieve()
+                                    .bodyToFlux(SSE_TYPE)
+                                    .filter(event -> event.data() != null)
+                                    .map(ServerSentEvent::data)
+                                    .takeWhile(data -> !"[DONE]".equals(data.trim()))
+                                    .map(new CumulativeTextDelta()::next)
+                                    .filter(delta -> !delta.isEmpty())));
+                })
+                .timeout(llmConfig.getSglang().getTimeout())
+                .onErrorMap(e -> {
+                    log.error("SGLang 스트리밍 호출 실패: {}", e.getMessage());
+                    return new RuntimeException("SGLang 스트리밍 호출 실패: " + e.getMessage(), e);
+                });
     }
     
-    private String extractText(String response) throws Exception {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(response);
-            
-            // SGLang 표준 응답 형식
-            JsonNode text = jsonNode.get("text");
-            if (text != null) {
-                return text.asText().trim();
-            }
-            
-            // 다른 가능한 형식들
-            JsonNode output = jsonNode.get("output");
-            if (output != null) {
-                return output.asText().trim();
+    private BodyInserter<?, ? super ClientHttpRequest> createRequestBody(LLMRequest request, boolean stream) {
+        return requestEncoder.sglangBody(
+                request.getPrompt(),
+                request.getMaxTokens() != null ? 
+                        request.getMaxTokens() : llmConfig.getSglang().getMaxTokens(),
+                request.getTemperature() != null ? 
+                        request.getTemperature() : llmConfig.getSglang().getTemperature(),
+                stream);
+    }
+    
+    /**
+     * SGLang 스트리밍 청크의 text 는 누적 텍스트이므로 직전까지 전달한 길이 이후만 잘라 증분으로 만든다.
+     * 구독마다 새 인스턴스를 사용한다.
+     */
+    private class CumulativeTextDelta {
+        private int emitted = 0;
+        
+        String next(String chunk) {
+            String text;
+            try {
+                JsonNode node = objectMapper.readTree(chunk).get("text");
+                text = node != null ? node.asText() : "";
+            } catch (Exception e) {
+                log.error("스트리밍 청크 파싱 실패: chunk={}", chunk);
+                throw new RuntimeException("스트리밍 청크 파싱 실패: " + e.getMessage(), e);
             }
-            
-            JsonNode choices = jsonNode.get("choices");
-            if (choices != null && choices.isArray() && choices.size() > 0) {
-                JsonNode choiceText = choices.get(0).get("text");
-                if (choiceText != null) {
-                    return choiceText.asText().trim();
-                }
+            if (text.length() <= emitted) {
+                return "";
             }
-            
-            throw new RuntimeException("응답에서 텍스트를 추출할 수 없습니다. Response: " + response);
-            
-        } catch (Exception e) {
-            log.error("JSON 파싱 실패: response={}", response);
-            throw new RuntimeException("응답 파싱 실패: " + e.getMessage(), e);
+            String delta = text.substring(emitted);
+            emitted = text.length();
+            return delta;
+        }
+    }
+    
+    private String extractText(CompletionResponseDecoder decoded) {
+        // SGLang 표준 응답 형식
+        if (decoded.getText() != null) {
+            return decoded.getText().trim();
+        }
+        
+        // 다른 가능한 형식들
+        if (decoded.getOutput() != null) {
+            return decoded.getOutput().trim();
         }
+        
+        if (decoded.getChoicesText() != null) {
+            return decoded.getChoicesText().trim();
+        }
+        
+        throw new RuntimeException("응답에서 텍스트를 추출할 수 없습니다");
     }
 }
\ No newline at end of file
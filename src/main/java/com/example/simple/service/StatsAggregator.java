@@ -0,0 +1,232 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 프로세스 내 요청 통계.
+ *
+ * LLMService 가 요청이 끝날 때마다 record 를 부르고, 엔진별로 누적 카운터와 응답 시간 히스토그램,
+ * 초 단위 링 버퍼(최근 window), 분 단위 요청 수 링 버퍼(최근 24시간)를 갱신한다.
+ * snapshot 은 고정 크기 버퍼만 합치므로 쌓인 로그 양과 무관하게 일정한 비용으로 답한다.
+ * 값은 프로세스가 뜬 뒤부터의 통계이며, 응답 시간은 성공한 요청만 센다.
+ */
+@Component
+public class StatsAggregator {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final String UNKNOWN_ENGINE = "unknown";
+
+    private final int windowSeconds;
+    private final LongSupplier clock;
+    private final long startedAt;
+    private final Map<String, EngineStats> engines = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public StatsAggregator(LLMConfig llmConfig) {
+        this(llmConfig, System::currentTimeMillis);
+    }
+
+    StatsAggregator(LLMConfig llmConfig, LongSupplier clock) {
+        this.windowSeconds = (int) Math.max(1, llmConfig.getStats().getWindow().getSeconds());
+        this.clock = clock;
+        this.startedAt = clock.getAsLong();
+    }
+
+    /**
+     * 끝난 요청 하나를 기록한다. 엔진 이름은 vllm, sglang 외에는 unknown 으로 묶는다.
+     */
+    public void record(String engine, long responseTimeMs, boolean success) {
+        String key = "vllm".equalsIgnoreCase(engine) || "sglang".equalsIgnoreCase(engine)
+                ? engine.toLowerCase()
+                : UNKNOWN_ENGINE;
+        engines.computeIfAbsent(key, k -> new EngineStats(windowSeconds))
+                .record(clock.getAsLong(), responseTimeMs, success);
+    }
+
+    /**
+     * /api/stats 응답. 전체 값과 엔진별 값(engine_stats)을 같은 모양으로 담는다.
+     */
+    public Map<String, Object> snapshot() {
+        long now = clock.getAsLong();
+        Totals all = new Totals();
+        List<Map<String, Object>> engineStats = new ArrayList<>();
+        engines.forEach((engine, stats) -> {
+            Totals totals = stats.totals(now);
+            all.add(totals);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("engine", engine);
+            entry.putAll(totals.toMap(windowSeconds));
+            engineStats.add(entry);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", Instant.ofEpochMilli(startedAt).toString());
+        result.putAll(all.toMap(windowSeconds));
+        result.put("engine_stats", engineStats);
+        return result;
+    }
+
+    /**
+     * 엔진 하나의 누적 값과 링 버퍼. 기록은 모두 락 없이 더하기만 하고, 칸을 새 시각으로 넘길 때만 칸 단위로 잠근다.
+     */
+    private static class EngineStats {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder latencySum = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Slot[] seconds;
+        private final Slot[] minutes = new Slot[MINUTES_PER_DAY];
+
+        EngineStats(int windowSeconds) {
+            this.seconds = new Slot[windowSeconds];
+            for (int i = 0; i < seconds.length; i++) {
+                seconds[i] = new Slot(true);
+            }
+            for (int i = 0; i < minutes.length; i++) {
+                minutes[i] = new Slot(false);
+            }
+        }
+
+        void record(long now, long responseTimeMs, boolean success) {
+            requests.increment();
+            if (success) {
+                successes.increment();
+                latencySum.add(responseTimeMs);
+                latency.record(responseTimeMs);
+            }
+            slot(seconds, now / 1000).record(responseTimeMs, success);
+            slot(minutes, now / 60_000).record(responseTimeMs, success);
+        }
+
+        Totals totals(long now) {
+            Totals totals = new Totals();
+            totals.requests = requests.sum();
+            totals.successes = successes.sum();
+            totals.latencySum = latencySum.sum();
+            totals.latency.add(latency);
+
+            long second = now / 1000;
+            for (Slot slot : seconds) {
+                if (slot.epoch > second - seconds.length && slot.epoch <= second) {
+                    totals.windowRequests += slot.requests.sum();
+                    totals.windowFailures += slot.failures.sum();
+                    totals.windowLatency.add(slot.latency);
+                }
+            }
+            long minute = now / 60_000;
+            for (Slot slot : minutes) {
+                if (slot.epoch > minute - minutes.length && slot.epoch <= minute) {
+                    totals.requestsLast24h += slot.requests.sum();
+                }
+            }
+            return totals;
+        }
+
+        private static Slot slot(Slot[] ring, long epoch) {
+            Slot slot = ring[(int) (epoch % ring.length)];
+            slot.roll(epoch);
+            return slot;
+        }
+    }
+
+    private static class Slot {
+
+        private volatile long epoch = -1;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latency;
+
+        Slot(boolean withLatency) {
+            this.latency = withLatency ? new LatencyHistogram() : null;
+        }
+
+        /**
+         * 칸이 이전 주기의 값을 들고 있으면 비우고 epoch 로 넘긴다.
+         */
+        void roll(long epoch) {
+            if (this.epoch == epoch) {
+                return;
+            }
+            synchronized (this) {
+                if (this.epoch != epoch) {
+                    requests.reset();
+                    failures.reset();
+                    if (latency != null) {
+                        latency.reset();
+                    }
+                    this.epoch = epoch;
+                }
+            }
+        }
+
+        void record(long responseTimeMs, boolean success) {
+            requests.increment();
+            if (!success) {
+                failures.increment();
+            } else if (latency != null) {
+                latency.record(responseTimeMs);
+            }
+        }
+    }
+
+    private static class Totals {
+
+        private long requests;
+        private long successes;
+        private long latencySum;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long windowRequests;
+        private long windowFailures;
+        private final LatencyHistogram windowLatency = new LatencyHistogram();
+        private long requestsLast24h;
+
+        void add(Totals other) {
+            requests += other.requests;
+            successes += other.successes;
+            latencySum += other.latencySum;
+            latency.add(other.latency);
+            windowRequests += other.windowRequests;
+            windowFailures += other.windowFailures;
+            windowLatency.add(other.windowLatency);
+            requestsLast24h += other.requestsLast24h;
+        }
+
+        Map<String, Object> toMap(int windowSeconds) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("total_requests", requests);
+            map.put("success_rate", requests > 0 ? round(successes * 100.0 / requests) : null);
+            map.put("avg_response_time_ms", successes > 0 ? round((double) latencySum / successes) : null);
+            map.put("p50_ms", latency.percentile(0.50));
+            map.put("p95_ms", latency.percentile(0.95));
+            map.put("p99_ms", latency.percentile(0.99));
+            map.put("requests_last_24h", requestsLast24h);
+
+            Map<String, Object> window = new LinkedHashMap<>();
+            window.put("seconds", windowSeconds);
+            window.put("requests", windowRequests);
+            window.put("requests_per_second", round((double) windowRequests / windowSeconds));
+            window.put("error_rate", windowRequests > 0 ? round(windowFailures * 100.0 / windowRequests) : null);
+            window.put("p50_ms", windowLatency.percentile(0.50));
+            window.put("p95_ms", windowLatency.percentile(0.95));
+            window.put("p99_ms", windowLatency.percentile(0.99));
+            map.put("window", window);
+            return map;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,375 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 엔진 x 시간 단위 요청 통계 롤업 (LLM_STATS_HOURLY).
+ *
+ * LoggingService 가 LLM_LOGS 배치를 쓴 직후 apply 로 같은 배치를 (시간, 엔진) 별로 묶어 MERGE 로 더한다.
+ * 기간 통계는 이 테이블만 읽으므로 LLM_LOGS 의 CLOB 행을 훑지 않는다.
+ * backfill 은 LLM_LOGS 에서 한 시간씩 다시 집계해 롤업 행을 덮어쓴다 (원본 로그가 없는 시간은 건드리지 않는다).
+ * 응답 시간(합계/최소/최대/구간별 건수)은 성공한 요청만 센다.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.datasource.url", matchIfMissing = false)
+@Slf4j
+public class StatsRollupService implements InitializingBean {
+
+    /**
+     * 응답 시간 히스토그램 구간 상한 (ms). 마지막 BUCKET_INF 는 그보다 긴 요청.
+     */
+    static final long[] BUCKET_BOUNDS_MS = {250, 500, 1000, 2500, 5000, 10_000, 30_000, 60_000};
+
+    static final List<String> BUCKET_COLUMNS = bucketColumns();
+
+    // HOUR_START, ENGINE 뒤에 오는 값 컬럼 (Rollup.toArgs 순서)
+    private static final List<String> VALUE_COLUMNS = valueColumns();
+
+    // 배치 적용: 기존 값에 더한다 (최소/최대는 성공 요청이 있을 때만 갱신)
+    static final String UPSERT_INCREMENT_SQL = mergeSql(true);
+    // 백필: 다시 집계한 값으로 덮어쓴다
+    static final String UPSERT_REPLACE_SQL = mergeSql(false);
+
+    static final String BACKFILL_SELECT_SQL = "SELECT ENGINE, COUNT(*) AS REQUEST_COUNT, "
+            + "SUM(CASE WHEN SUCCESS = 1 THEN 1 ELSE 0 END) AS SUCCESS_COUNT, "
+            + "SUM(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS ELSE 0 END) AS LATENCY_SUM_MS, "
+            + "MIN(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END) AS LATENCY_MIN_MS, "
+            + "MAX(CASE WHEN SUCCESS = 1 THEN RESPONSE_TIME_MS END) AS LATENCY_MAX_MS, "
+            + IntStream.range(0, BUCKET_COLUMNS.size())
+                    .mapToObj(i -> "SUM(CASE WHEN SUCCESS = 1" + bucketCondition(i) + " THEN 1 ELSE 0 END) AS "
+                            + BUCKET_COLUMNS.get(i))
+                    .collect(Collectors.joining(", "))
+            + " FROM LLM_LOGS WHERE REQUEST_TIME >= ? AND REQUEST_TIME < ? GROUP BY ENGINE";
+
+    static final String RANGE_SQL = "SELECT HOUR_START, ENGINE, " + String.join(", ", VALUE_COLUMNS)
+            + " FROM LLM_STATS_HOURLY WHERE HOUR_START >= ? AND HOUR_START < ?";
+
+    private final LLMConfig.RollupConfig config;
+    private final JdbcTemplate jdbcTemplate;
+
+    public StatsRollupService(LLMConfig llmConfig, JdbcTemplate jdbcTemplate) {
+        this.config = llmConfig.getStats().getRollup();
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public Duration getMaxBackfill() {
+        return config.getMaxBackfill();
+    }
+
+    /**
+     * 기동 시 backfillOnStartup 만큼의 지난 (끝난) 시간을 백그라운드에서 다시 집계한다.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        Duration lookback = config.getBackfillOnStartup();
+        if (!config.isEnabled() || lookback.isZero() || lookback.isNegative()) {
+            return;
+        }
+        LocalDateTime to = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = to.minus(lookback);
+        Mono.fromCallable(() -> backfill(from, to))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        hours -> log.info("통계 롤업 백필 완료: {} ~ {} ({}시간)", from, to, hours),
+                        e -> log.warn("통계 롤업 백필 실패: {}", e.getMessage()));
+    }
+
+    /**
+     * LLM_LOGS 에 방금 쓴 배치를 롤업에 더한다. 행 형식은 LoggingService.INSERT_SQL 의 인자 순서와 같다.
+     */
+    public void apply(List<Object[]> rows) {
+        Map<String, Rollup> groups = new TreeMap<>();
+        for (Object[] row : rows) {
+            LocalDateTime hour = ((Timestamp) row[0]).toLocalDateTime().truncatedTo(ChronoUnit.HOURS);
+            String engine = (String) row[1];
+            groups.computeIfAbsent(hour + "|" + engine, k -> new Rollup(hour, engine))
+                    .add((Long) row[4], ((Number) row[5]).intValue() == 1);
+        }
+        List<Object[]> args = groups.values().stream().map(Rollup::toArgs).collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(UPSERT_INCREMENT_SQL, args);
+    }
+
+    /**
+     * [from, to) 의 각 시간을 LLM_LOGS 에서 다시 집계해 롤업에 덮어쓴다. 진행 중인 시간은 to 에 넣지 않는 것이 좋다
+     * (그 사이 apply 로 더해진 값이 덮어써질 수 있다). 시간마다 JDBC 호출을 하므로 요청 스레드에서 부르지 않는다.
+     *
+     * @return 처리한 시간 수
+     */
+    public int backfill(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime hour = from.truncatedTo(ChronoUnit.HOURS);
+        int hours = 0;
+        while (hour.isBefore(to)) {
+            LocalDateTime start = hour;
+            List<Object[]> args = jdbcTemplate.query(BACKFILL_SELECT_SQL,
+                    (rs, rowNum) -> Rollup.fromResultSet(start, rs).toArgs(),
+                    Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)));
+            if (!args.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_REPLACE_SQL, args);
+            }
+            hour = hour.plusHours(1);
+            hours++;
+        }
+        return hours;
+    }
+
+    /**
+     * [from, to) 기간의 합계와 엔진별 값. from 은 시간 단위로 내림한다.
+     */
+    public Map<String, Object> summary(LocalDateTime from, LocalDateTime to, String engine) {
+        Rollup total = new Rollup(null, null);
+        Map<String, Rollup> engines = new TreeMap<>();
+        for (Rollup row : query(from, to, engine)) {
+            total.merge(row);
+            engines.computeIfAbsent(row.engine, k -> new Rollup(null, k)).merge(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from.truncatedTo(ChronoUnit.HOURS).toString());
+        result.put("to", to.toString());
+        result.putAll(total.toMap());
+        List<Map<String, Object>> engineStats = new ArrayList<>();
+        for (Rollup rollup : engines.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("engine", rollup.engine);
+            entry.putAll(rollup.toMap());
+            engineStats.add(entry);
+        }
+        result.put("engine_stats", engineStats);
+        return result;
+    }
+
+    /**
+     * [from, to) 기간의 시간별 값 (시간, 엔진 순)
+     */
+    public List<Map<String, Object>> hourly(LocalDateTime from, LocalDateTime to, String engine) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Rollup row : query(from, to, engine)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hour", row.hour.toString());
+            entry.put("engine", row.engine);
+            entry.putAll(row.toMap());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private List<Rollup> query(LocalDateTime from, LocalDateTime to, String engine) {
+        Timestamp start = Timestamp.valueOf(from.truncatedTo(ChronoUnit.HOURS));
+        Timestamp end = Timestamp.valueOf(to);
+        if (engine != null) {
+            return jdbcTemplate.query(RANGE_SQL + " AND ENGINE = ? ORDER BY HOUR_START, ENGINE",
+                    (rs, rowNum) -> Rollup.fromResultSet(rs.getTimestamp("HOUR_START").toLocalDateTime(), rs),
+                    start, end, engine);
+        }
+        return jdbcTemplate.query(RANGE_SQL + " ORDER BY HOUR_START, ENGINE",
+                (rs, rowNum) -> Rollup.fromResultSet(rs.getTimestamp("HOUR_START").toLocalDateTime(), rs),
+                start, end);
+    }
+
+    /**
+     * (시간, 엔진) 롤업 한 행. 행끼리 더할 수 있다.
+     */
+    static class Rollup {
+
+        private final LocalDateTime hour;
+        private final String engine;
+        private long requests;
+        private long successes;
+        private long latencySum;
+        private long latencyMin = Long.MAX_VALUE;
+        private long latencyMax;
+        private final long[] buckets = new long[BUCKET_COLUMNS.size()];
+
+        Rollup(LocalDateTime hour, String engine) {
+            this.hour = hour;
+            this.engine = engine;
+        }
+
+        void add(long responseTimeMs, boolean success) {
+            requests++;
+            if (success) {
+                successes++;
+                latencySum += responseTimeMs;
+                latencyMin = Math.min(latencyMin, responseTimeMs);
+                latencyMax = Math.max(latencyMax, responseTimeMs);
+                buckets[bucketIndex(responseTimeMs)]++;
+            }
+        }
+
+        void merge(Rollup other) {
+            requests += other.requests;
+            successes += other.successes;
+            latencySum += other.latencySum;
+            if (other.successes > 0) {
+                latencyMin = Math.min(latencyMin, other.latencyMin);
+                latencyMax = Math.max(latencyMax, other.latencyMax);
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+
+        /**
+         * MERGE 인자: HOUR_START, ENGINE, 그 뒤 VALUE_COLUMNS 순서. 성공 요청이 없으면 최소/최대는 0 (SQL 에서 NULL 로 바꾼다).
+         */
+        Object[] toArgs() {
+            Object[] args = new Object[7 + buckets.length];
+            args[0] = Timestamp.valueOf(hour);
+            args[1] = engine;
+            args[2] = requests;
+            args[3] = successes;
+            args[4] = latencySum;
+            args[5] = successes > 0 ? latencyMin : 0L;
+            args[6] = successes > 0 ? latencyMax : 0L;
+            for (int i = 0; i < buckets.length; i++) {
+                args[7 + i] = buckets[i];
+            }
+            return args;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("total_requests", requests);
+            map.put("success_count", successes);
+            map.put("success_rate", requests > 0 ? round(successes * 100.0 / requests) : null);
+            map.put("avg_response_time_ms", successes > 0 ? round((double) latencySum / successes) : null);
+            map.put("min_response_time_ms", successes > 0 ? latencyMin : null);
+            map.put("max_response_time_ms", successes > 0 ? latencyMax : null);
+            map.put("p50_ms", percentile(0.50));
+            map.put("p95_ms", percentile(0.95));
+            map.put("p99_ms", percentile(0.99));
+            return map;
+        }
+
+        /**
+         * 백분위수가 들어 있는 구간의 상한 (최대 응답 시간을 넘지 않게 자른다). 구간이 넓으므로 대략적인 값이다.
+         */
+        Long percentile(double percentile) {
+            if (successes == 0) {
+                return null;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * successes));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(BUCKET_BOUNDS_MS[i], latencyMax);
+                }
+            }
+            return latencyMax;
+        }
+
+        static Rollup fromResultSet(LocalDateTime hour, ResultSet rs) throws SQLException {
+            Rollup rollup = new Rollup(hour, rs.getString("ENGINE"));
+            rollup.requests = rs.getLong("REQUEST_COUNT");
+            rollup.successes = rs.getLong("SUCCESS_COUNT");
+            rollup.latencySum = rs.getLong("LATENCY_SUM_MS");
+            if (rollup.successes > 0) {
+                rollup.latencyMin = rs.getLong("LATENCY_MIN_MS");
+                rollup.latencyMax = rs.getLong("LATENCY_MAX_MS");
+            }
+            for (int i = 0; i < rollup.buckets.length; i++) {
+                rollup.buckets[i] = rs.getLong(BUCKET_COLUMNS.get(i));
+            }
+            return rollup;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+
+    static int bucketIndex(long responseTimeMs) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (responseTimeMs <= BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    private static List<String> bucketColumns() {
+        List<String> columns = new ArrayList<>();
+        for (long bound : BUCKET_BOUNDS_MS) {
+            columns.add("BUCKET_" + bound);
+        }
+        columns.add("BUCKET_INF");
+        return columns;
+    }
+
+    private static List<String> valueColumns() {
+        List<String> columns = new ArrayList<>(List.of(
+                "REQUEST_COUNT", "SUCCESS_COUNT", "LATENCY_SUM_MS", "LATENCY_MIN_MS", "LATENCY_MAX_MS"));
+        columns.addAll(BUCKET_COLUMNS);
+        return columns;
+    }
+
+    private static String bucketCondition(int index) {
+        String condition = "";
+        if (index > 0) {
+            condition += " AND RESPONSE_TIME_MS > " + BUCKET_BOUNDS_MS[index - 1];
+        }
+        if (index < BUCKET_BOUNDS_MS.length) {
+            condition += " AND RESPONSE_TIME_MS <= " + BUCKET_BOUNDS_MS[index];
+        }
+        return condition;
+    }
+
+    private static String mergeSql(boolean increment) {
+        List<String> columns = VALUE_COLUMNS;
+        String source = "SELECT ? AS HOUR_START, ? AS ENGINE, "
+                + columns.stream().map(c -> "? AS " + c).collect(Collectors.joining(", ")) + " FROM DUAL";
+
+        List<String> updates = new ArrayList<>();
+        for (String column : columns) {
+            if ("LATENCY_MIN_MS".equals(column) || "LATENCY_MAX_MS".equals(column)) {
+                String op = "LATENCY_MIN_MS".equals(column) ? "<" : ">";
+                updates.add(increment
+                        ? column + " = CASE WHEN s.SUCCESS_COUNT = 0 THEN t." + column
+                                + " WHEN t." + column + " IS NULL OR s." + column + " " + op + " t." + column
+                                + " THEN s." + column + " ELSE t." + column + " END"
+                        : column + " = CASE WHEN s.SUCCESS_COUNT = 0 THEN NULL ELSE s." + column + " END");
+            } else {
+                updates.add(increment ? column + " = t." + column + " + s." + column : column + " = s." + column);
+            }
+        }
+        updates.add("UPDATED_DATE = CURRENT_TIMESTAMP");
+
+        List<String> values = columns.stream()
+                .map(c -> "LATENCY_MIN_MS".equals(c) || "LATENCY_MAX_MS".equals(c)
+                        ? "CASE WHEN s.SUCCESS_COUNT = 0 THEN NULL ELSE s." + c + " END"
+                        : "s." + c)
+                .collect(Collectors.toList());
+
+        return "MERGE INTO LLM_STATS_HOURLY t USING (" + source + ") s"
+                + " ON (t.HOUR_START = s.HOUR_START AND t.ENGINE = s.ENGINE)"
+                + " WHEN MATCHED THEN UPDATE SET " + String.join(", ", updates)
+                + " WHEN NOT MATCHED THEN INSERT (HOUR_START, ENGINE, " + String.join(", ", columns) + ")"
+                + " VALUES (s.HOUR_START, s.ENGINE, " + String.join(", ", values) + ")";
+    }
+}
\ No newline at end of file
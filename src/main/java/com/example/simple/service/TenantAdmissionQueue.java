@@ -0,0 +1,396 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 테넌트별 대기열을 둔 허용 제어 (deficit round-robin).
+ *
+ * 전체 진행 중 요청이 maxInFlight 에 닿으면 요청을 테넌트별 FIFO 대기열에 넣는다.
+ * 자리가 날 때마다 대기 중인 테넌트를 돌며, 차례가 온 테넌트에 weight 만큼 deficit 을 주고
+ * 요청 하나에 1 씩 써서 꺼낸다. 그래서 대기가 생기면 테넌트들은 weight 비율로 처리되고,
+ * 요청을 많이 쌓아 둔 테넌트도 다른 테넌트의 차례를 빼앗지 못한다.
+ * 테넌트별 maxInFlight 에 닿은 테넌트는 자리가 나도 건너뛴다.
+ *
+ * ordering 이 sjf 이면 테넌트 대기열 안에서는 도착 순서 대신 예상 토큰 비용
+ * (입력 + 최대 출력) 이 작은 요청부터 꺼낸다. 기다린 초당 agingTokensPerSecond 만큼 비용을 깎아 주므로
+ * 큰 요청도 작은 요청이 계속 들어오는 동안 무한정 밀리지 않는다.
+ * 우선순위 = cost - aging * (now - enqueued) 의 순서는 now 와 무관하게 cost + aging * enqueued 로 정해지므로
+ * 대기열에 넣을 때 한 번만 계산해 힙에 넣는다.
+ *
+ * 대기열이 가득 찼거나 maxQueueWait 안에 차례가 오지 않으면 ConcurrencyLimitExceededException (429).
+ *
+ * 메트릭: llm.admission.queue.wait (tenant 태그), llm.admission.rejected (tenant 태그),
+ * llm.admission.inflight, llm.admission.queue.depth
+ */
+@Component
+@Slf4j
+public class TenantAdmissionQueue {
+
+    public static final String DEFAULT_TENANT = "default";
+    private static final String OTHER_TENANT_TAG = "other";
+    private static final Comparator<Ticket> TICKET_ORDER = Comparator
+            .comparingDouble((Ticket ticket) -> ticket.priority)
+            .thenComparingLong(ticket -> ticket.sequence);
+
+    private final LLMConfig.AdmissionConfig config;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    // 우선순위 계산 기준 시각 (double 정밀도를 위해 nanoTime 을 그대로 쓰지 않는다)
+    private final long originNanos;
+
+    // 아래 상태는 this 로 보호
+    private final Map<String, TenantState> tenants = new HashMap<>();
+    // 대기 요청이 있는 테넌트의 라운드 로빈 순서
+    private final Deque<TenantState> activeTenants = new ArrayDeque<>();
+    private int inFlight;
+    private int queued;
+    private long sequence;
+
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TenantAdmissionQueue(LLMConfig llmConfig, MeterRegistry meterRegistry) {
+        this(llmConfig, meterRegistry, System::nanoTime);
+    }
+
+    TenantAdmissionQueue(LLMConfig llmConfig, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.config = llmConfig.getAdmission();
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.originNanos = nanoClock.getAsLong();
+
+        Gauge.builder("llm.admission.inflight", this, TenantAdmissionQueue::getInFlight)
+                .description("허용 제어를 통과해 진행 중인 요청 수")
+                .register(meterRegistry);
+        Gauge.builder("llm.admission.queue.depth", this, TenantAdmissionQueue::getQueueDepth)
+                .description("테넌트 대기열에서 차례를 기다리는 요청 수")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public boolean isShortestJobFirst() {
+        return "sjf".equalsIgnoreCase(config.getOrdering());
+    }
+
+    /**
+     * API 키가 있으면 API 키로, 없으면 테넌트 헤더로 테넌트를 식별한다.
+     * 키와 헤더 모두 클라이언트가 마음대로 보낼 수 있으므로 api-keys / tenants 에 설정된 것만 믿고,
+     * 그 밖의 값은 모두 기본 테넌트 하나로 모은다 (요청마다 새 키나 ID 를 보내 대기열을 늘리거나
+     * 가중치가 높은 테넌트를 흉내 내지 못하도록).
+     */
+    public String resolveTenant(HttpHeaders headers) {
+        String apiKey = headers.getFirst(config.getApiKeyHeader());
+        if (apiKey != null && !apiKey.isBlank()) {
+            return config.getApiKeys().getOrDefault(apiKey.trim(), DEFAULT_TENANT);
+        }
+        String tenant = headers.getFirst(config.getTenantHeader());
+        if (tenant != null && config.getTenants().containsKey(tenant.trim())) {
+            return tenant.trim();
+        }
+        return DEFAULT_TENANT;
+    }
+
+    public <T> Mono<T> admit(String tenant, Supplier<Mono<T>> call) {
+        return admit(tenant, 0, call);
+    }
+
+    /**
+     * 테넌트 차례가 오면 call 을 구독하고, 끝나면(성공/실패/취소) 자리를 반납한다.
+     *
+     * @param estimatedTokens 예상 토큰 비용 (sjf 순서에 사용)
+     */
+    public <T> Mono<T> admit(String tenant, long estimatedTokens, Supplier<Mono<T>> call) {
+        if (!config.isEnabled()) {
+            return Mono.defer(call);
+        }
+        return acquire(tenant, estimatedTokens).flatMap(ticket -> Mono.defer(call)
+                .doFinally(signal -> release(ticket)));
+    }
+
+    /**
+     * 스트리밍 요청용. 스트림이 끝날 때까지 자리를 차지한다.
+     */
+    public <T> Flux<T> admitMany(String tenant, long estimatedTokens, Supplier<Flux<T>> call) {
+        if (!config.isEnabled()) {
+            return Flux.defer(call);
+        }
+        return acquire(tenant, estimatedTokens).flatMapMany(ticket -> Flux.defer(call)
+                .doFinally(signal -> release(ticket)));
+    }
+
+    private Mono<Ticket> acquire(String tenant, long estimatedTokens) {
+        return Mono.create(sink -> {
+            Ticket ticket;
+
+            synchronized (this) {
+                TenantState state = tenants.computeIfAbsent(tenant, this::newTenantState);
+                if (queued >= config.getMaxQueueSize()) {
+                    removeIfIdle(state);
+                    ticket = null;
+                } else {
+                    long now = nanoClock.getAsLong();
+                    ticket = new Ticket(state, sink, now, priority(estimatedTokens, now), sequence++);
+                    state.queue.add(ticket);
+                    queued++;
+                    if (!state.active) {
+                        state.active = true;
+                        activeTenants.addLast(state);
+                    }
+                }
+            }
+            if (ticket == null) {
+                reject(tenant, sink);
+                return;
+            }
+
+            Disposable timer = Schedulers.parallel().schedule(() -> {
+                if (withdraw(ticket)) {
+                    reject(tenant, sink);
+                }
+            }, config.getMaxQueueWait().toNanos(), TimeUnit.NANOSECONDS);
+            sink.onDispose(timer::dispose);
+            sink.onCancel(() -> {
+                // 대기열에서 꺼내져 자리를 받았는데 차례를 알리기 전에 취소됐으면 그 자리를 돌려준다.
+                // 타이머가 먼저 빼낸 요청은 자리를 받은 적이 없으므로 반납하지 않는다
+                if (!withdraw(ticket) && ticket.granted) {
+                    release(ticket);
+                }
+            });
+
+            // 자리가 있으면 DRR 순서대로 바로 꺼낸다 (새 요청도 대기 중인 다른 테넌트와 같은 규칙을 따른다)
+            dispatch();
+        });
+    }
+
+    /**
+     * 아직 대기열에 있는 요청을 빼낸다 (시간 초과/취소). 이미 꺼내졌으면 false.
+     */
+    private boolean withdraw(Ticket ticket) {
+        TenantState state = ticket.state;
+        synchronized (this) {
+            if (!state.queue.remove(ticket)) {
+                return false;
+            }
+            queued--;
+            if (state.queue.isEmpty()) {
+                deactivate(state);
+            }
+            removeIfIdle(state);
+            return true;
+        }
+    }
+
+    private void release(Ticket ticket) {
+        if (!ticket.released.compareAndSet(false, true)) {
+            return;
+        }
+        TenantState state = ticket.state;
+        synchronized (this) {
+            inFlight--;
+            state.inFlight--;
+            removeIfIdle(state);
+        }
+        dispatch();
+    }
+
+    /**
+     * 자리가 나는 만큼 deficit round-robin 으로 대기 요청을 꺼내고, 락 밖에서 깨운다.
+     * 깨우기 전에 취소된 요청의 자리는 acquire 의 onCancel 이 반납한다.
+     */
+    private void dispatch() {
+        List<Ticket> ready = new ArrayList<>();
+
+        synchronized (this) {
+            // 상한에 걸려 건너뛴 테넌트만 남으면 한 바퀴 돌고 멈춘다
+            int skipped = 0;
+            while (inFlight < config.getMaxInFlight() && skipped < activeTenants.size()) {
+                TenantState state = activeTenants.peekFirst();
+                if (state.isAtCapacity()) {
+                    activeTenants.addLast(activeTenants.pollFirst());
+                    skipped++;
+                    continue;
+                }
+                if (state.deficit < 1) {
+                    state.deficit += state.weight;
+                }
+
+                Ticket ticket = state.queue.poll();
+                ticket.granted = true;
+                ready.add(ticket);
+                queued--;
+                state.deficit--;
+                state.inFlight++;
+                inFlight++;
+                skipped = 0;
+
+                if (state.queue.isEmpty()) {
+                    deactivate(state);
+                } else if (state.deficit < 1) {
+                    // 이번 차례 몫을 다 썼으면 다음 테넌트로
+                    activeTenants.addLast(activeTenants.pollFirst());
+                }
+            }
+        }
+
+        long now = nanoClock.getAsLong();
+        for (Ticket ticket : ready) {
+            ticket.state.waitTimer.record(now - ticket.enqueuedNanos, TimeUnit.NANOSECONDS);
+            ticket.sink.success(ticket);
+        }
+    }
+
+    private double priority(long estimatedTokens, long enqueuedNanos) {
+        if (!isShortestJobFirst()) {
+            return 0;
+        }
+        double waitedSeconds = (enqueuedNanos - originNanos) / 1e9;
+        return estimatedTokens + config.getAgingTokensPerSecond() * waitedSeconds;
+    }
+
+    private void deactivate(TenantState state) {
+        if (state.active) {
+            activeTenants.remove(state);
+            state.active = false;
+            // 대기열이 빈 테넌트는 deficit 을 쌓아 두지 않는다 (DRR 규칙)
+            state.deficit = 0;
+        }
+    }
+
+    private void removeIfIdle(TenantState state) {
+        if (state.inFlight == 0 && state.queue.isEmpty() && !state.active) {
+            tenants.remove(state.id);
+        }
+    }
+
+    private TenantState newTenantState(String tenant) {
+        LLMConfig.TenantConfig tenantConfig = config.getTenants().get(tenant);
+        int weight = tenantConfig != null ? tenantConfig.getWeight() : config.getDefaultWeight();
+        int maxInFlight = tenantConfig != null && tenantConfig.getMaxInFlight() > 0
+                ? tenantConfig.getMaxInFlight()
+                : config.getDefaultMaxInFlight();
+        Queue<Ticket> queue = isShortestJobFirst()
+                ? new PriorityQueue<>(TICKET_ORDER)
+                : new ArrayDeque<>();
+        return new TenantState(tenant, Math.max(1, weight), maxInFlight, queue, waitTimer(metricTag(tenant)));
+    }
+
+    private void reject(String tenant, MonoSink<Ticket> sink) {
+        rejectedCounters.computeIfAbsent(metricTag(tenant), tag -> Counter.builder("llm.admission.rejected")
+                        .description("테넌트 대기열이 가득 찼거나 대기 시간이 지나 거절된 요청 수 (429)")
+                        .tag("tenant", tag)
+                        .register(meterRegistry))
+                .increment();
+        log.warn("테넌트 대기열 거절: tenant={}, queued={}, inFlight={}", tenant, getQueueDepth(), getInFlight());
+        sink.error(new ConcurrencyLimitExceededException("테넌트 " + tenant, config.getMaxQueueWait()));
+    }
+
+    private Timer waitTimer(String tag) {
+        return waitTimers.computeIfAbsent(tag, t -> Timer.builder("llm.admission.queue.wait")
+                .description("테넌트 대기열에서 차례를 기다린 시간")
+                .tag("tenant", t)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 메트릭 태그가 늘어나지 않도록 설정된 테넌트만 이름으로, 나머지는 other 로 묶는다.
+     */
+    private String metricTag(String tenant) {
+        if (DEFAULT_TENANT.equals(tenant) || config.getTenants().containsKey(tenant)) {
+            return tenant;
+        }
+        return OTHER_TENANT_TAG;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queued;
+    }
+
+    synchronized int getInFlight(String tenant) {
+        TenantState state = tenants.get(tenant);
+        return state != null ? state.inFlight : 0;
+    }
+
+    private static final class TenantState {
+        private final String id;
+        private final int weight;
+        // 0 이면 테넌트 상한 없음
+        private final int maxInFlight;
+        private final Timer waitTimer;
+        private final Queue<Ticket> queue;
+        private int inFlight;
+        private int deficit;
+        private boolean active;
+
+        private TenantState(String id, int weight, int maxInFlight, Queue<Ticket> queue, Timer waitTimer) {
+            this.id = id;
+            this.weight = weight;
+            this.maxInFlight = maxInFlight;
+            this.queue = queue;
+            this.waitTimer = waitTimer;
+        }
+
+        private boolean isAtCapacity() {
+            return maxInFlight > 0 && inFlight >= maxInFlight;
+        }
+    }
+
+    /**
+     * 대기열 항목이자, 차례를 받은 뒤에는 자리를 반납할 때 쓰는 표식 (반납은 한 번만)
+     */
+    private static final class Ticket {
+        private final TenantState state;
+        private final MonoSink<Ticket> sink;
+        private final long enqueuedNanos;
+        private final double priority;
+        private final long sequence;
+        private final AtomicBoolean released = new AtomicBoolean();
+        // dispatch 가 대기열에서 꺼내 자리를 줬는지 (this 로 보호된 구간에서 설정, 취소 경로에서 읽음)
+        private volatile boolean granted;
+
+        private Ticket(TenantState state, MonoSink<Ticket> sink, long enqueuedNanos, double priority, long sequence) {
+            this.state = state;
+            this.sink = sink;
+            this.enqueuedNanos = enqueuedNanos;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 대기열 정렬용 요청 비용 추정: 입력 토큰 추정치 + 최대 출력 토큰(max_tokens 또는 엔진 기본값).
+ *
+ * 실제 토크나이저(webflux/ 의 LocalTokenCalculationService, jtokkit)는 이 빌드에 없고,
+ * 순서를 정하는 데는 상대적인 크기만 맞으면 되므로 문자 종류별 평균 비율로 센다.
+ * BPE 토크나이저에서 ASCII 는 대략 4자당 1토큰, 한글/한자 등은 대략 1자당 1토큰이다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenCostEstimator {
+
+    private static final double ASCII_CHARS_PER_TOKEN = 4.0;
+
+    private final LLMConfig llmConfig;
+
+    /**
+     * @param engine "vllm" 또는 "sglang" (정규화된 엔진 이름)
+     */
+    public long estimate(String engine, LLMRequest request) {
+        return estimateInputTokens(request.getPrompt()) + llmConfig.effectiveMaxTokens(engine, request.getMaxTokens());
+    }
+
+    static long estimateInputTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        long ascii = 0;
+        long other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ascii++;
+            } else if (!Character.isLowSurrogate(c)) {
+                // 서로게이트 쌍은 한 글자로 센다
+                other++;
+            }
+        }
+        return (long) Math.ceil(ascii / ASCII_CHARS_PER_TOKEN) + other;
+    }
+}
\ No newline at end of file
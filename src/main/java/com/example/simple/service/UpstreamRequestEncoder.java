@@ -0,0 +1,173 @@
+package com.example.simple.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * vLLM / SGLang 요청 본문을 중간 Map 없이 JsonGenerator 로 풀링된 Netty 버퍼에 바로 쓴다.
+ *
+ * 버퍼는 구독 시점에 만들어지며 (재시도마다 새로 인코딩), 전송 후 Reactor Netty 가 해제한다.
+ */
+@Component
+public class UpstreamRequestEncoder {
+
+    // 프롬프트 외 필드 + JSON 구조 여유분
+    private static final int BASE_CAPACITY = 160;
+
+    private final JsonFactory jsonFactory;
+    private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    public UpstreamRequestEncoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * vLLM /v1/completions 요청 본문
+     */
+    public BodyInserter<Mono<DataBuffer>, ReactiveHttpOutputMessage> vllmBody(String prompt, int maxTokens,
+                                                                       double temperature, boolean stream) {
+        return BodyInserters.fromDataBuffers(Mono.fromCallable(() -> encodeVllm(prompt, maxTokens, temperature, stream))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release));
+    }
+
+    /**
+     * SGLang /generate 요청 본문
+     */
+    public BodyInserter<Mono<DataBuffer>, ReactiveHttpOutputMessage> sglangBody(String prompt, int maxNewTokens,
+                                                                         double temperature, boolean stream) {
+        return BodyInserters.fromDataBuffers(Mono.fromCallable(() -> encodeSglang(prompt, maxNewTokens, temperature, stream))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release));
+    }
+
+    /**
+     * vLLM /v1/completions 배치 요청 본문 (prompt 배열)
+     */
+    public BodyInserter<Mono<DataBuffer>, ReactiveHttpOutputMessage> vllmBatchBody(List<String> prompts, int maxTokens,
+                                                                            double temperature) {
+        return BodyInserters.fromDataBuffers(Mono.fromCallable(() -> encodeVllmBatch(prompts, maxTokens, temperature))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release));
+    }
+
+    /**
+     * SGLang /generate 배치 요청 본문 (text 리스트)
+     */
+    public BodyInserter<Mono<DataBuffer>, ReactiveHttpOutputMessage> sglangBatchBody(List<String> prompts, int maxNewTokens,
+                                                                              double temperature) {
+        return BodyInserters.fromDataBuffers(Mono.fromCallable(() -> encodeSglangBatch(prompts, maxNewTokens, temperature))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release));
+    }
+
+    public DataBuffer encodeVllm(String prompt, int maxTokens, double temperature, boolean stream) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(estimateCapacity(prompt));
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("model", "default");
+            generator.writeStringField("prompt", prompt);
+            writeVllmParams(generator, maxTokens, temperature, stream);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException("vLLM 요청 인코딩 실패", e);
+        }
+        return buffer;
+    }
+
+    public DataBuffer encodeVllmBatch(List<String> prompts, int maxTokens, double temperature) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(estimateCapacity(prompts));
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("model", "default");
+            generator.writeArrayFieldStart("prompt");
+            for (String prompt : prompts) {
+                generator.writeString(prompt);
+            }
+            generator.writeEndArray();
+            writeVllmParams(generator, maxTokens, temperature, false);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException("vLLM 배치 요청 인코딩 실패", e);
+        }
+        return buffer;
+    }
+
+    public DataBuffer encodeSglang(String prompt, int maxNewTokens, double temperature, boolean stream) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(estimateCapacity(prompt));
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("text", prompt);
+            writeSglangSamplingParams(generator, maxNewTokens, temperature);
+            if (stream) {
+                generator.writeBooleanField("stream", true);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException("SGLang 요청 인코딩 실패", e);
+        }
+        return buffer;
+    }
+
+    public DataBuffer encodeSglangBatch(List<String> prompts, int maxNewTokens, double temperature) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(estimateCapacity(prompts));
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("text");
+            for (String prompt : prompts) {
+                generator.writeString(prompt);
+            }
+            generator.writeEndArray();
+            writeSglangSamplingParams(generator, maxNewTokens, temperature);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException("SGLang 배치 요청 인코딩 실패", e);
+        }
+        return buffer;
+    }
+
+    private void writeVllmParams(JsonGenerator generator, int maxTokens, double temperature,
+                                 boolean stream) throws IOException {
+        generator.writeNumberField("max_tokens", maxTokens);
+        generator.writeNumberField("temperature", temperature);
+        generator.writeBooleanField("stream", stream);
+    }
+
+    private void writeSglangSamplingParams(JsonGenerator generator, int maxNewTokens,
+                                           double temperature) throws IOException {
+        generator.writeObjectFieldStart("sampling_params");
+        generator.writeNumberField("max_new_tokens", maxNewTokens);
+        generator.writeNumberField("temperature", temperature);
+        generator.writeNumberField("top_p", 0.9);
+        generator.writeBooleanField("stream", false);
+        generator.writeEndObject();
+    }
+
+    private int estimateCapacity(List<String> prompts) {
+        int capacity = BASE_CAPACITY;
+        for (String prompt : prompts) {
+            capacity += 4 + (prompt != null ? prompt.length() * 3 : 0);
+        }
+        return capacity;
+    }
+
+    private int estimateCapacity(String prompt) {
+        // UTF-8 한글은 3바이트이므로 대략적인 상한으로 잡고, 부족하면 버퍼가 스스로 늘어난다
+        return BASE_CAPACITY + (prompt != null ? prompt.length() * 3 : 0);
+    }
+}
\ No newline at end of file
@@ -3,17 +3,24 @@ package com.example.simple.service;
 import com.example.simple.config.LLMConfig;
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -22,89 +29,192 @@ public class VllmService {
     
     private final LLMConfig llmConfig;
     private final ObjectMapper objectMapper;
-    private final WebClient.Builder webClientBuilder;
+    private final EngineReplicaPools replicaPools;
+    private final EngineConcurrencyLimiters concurrencyLimiters;
+    private final UpstreamRequestEncoder requestEncoder;
+    private final LLMMetrics llmMetrics;
     
-    public LLMResponse generate(LLMRequest request, long startTime) {
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<ServerSentEvent<String>>() {};
+    
+    public Mono<LLMResponse> generate(LLMRequest request, long startTime) {
         if (!llmConfig.getVllm().isEnabled()) {
-            throw new RuntimeException("vLLM이 비활성화되어 있습니다");
+            return Mono.error(new RuntimeException("vLLM이 비활성화되어 있습니다"));
         }
         
-        try {
-            WebClient webClient = webClientBuilder
-                    .baseUrl(llmConfig.getVllm().getBaseUrl())
-                    .build();
-            
-            Map<String, Object> requestBody = createRequestBody(request);
-            
-            log.debug("vLLM 요청: URL={}, Body={}", llmConfig.getVllm().getBaseUrl(), requestBody);
-            
-            String response = webClient
-                    .post()
-                    .uri("/v1/completions")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(llmConfig.getVllm().getTimeout())
-                    .block();
-            
-            String text = extractText(response);
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            log.debug("vLLM 응답 성공: responseTime={}ms, textLength={}", responseTime, text.length());
-            
-            return LLMResponse.builder()
-                    .text(text)
-                    .engine("vllm")
-                    .responseTimeMs(responseTime)
-                    .success(true)
-                    .build();
+        BodyInserter<?, ? super ClientHttpRequest> requestBody = createRequestBody(request, false);
+        
+        return Mono.defer(() -> {
+                    long queuedAt = System.nanoTime();
+                    return concurrencyLimiters.get("vllm").execute(Mono.subscriberContext().flatMap(context -> {
+                        EngineReplica replica = replicaPools.choose("vllm", request.getPrompt(), context);
+                        log.debug("vLLM 요청: URL={}, promptLength={}", replica.getBaseUrl(), request.getPrompt().length());
+                        RequestTimings timings = RequestTimings.from(context);
                     
-        } catch (WebClientException e) {
-            log.error("vLLM 네트워크 오류: {}", e.getMessage());
-            throw new RuntimeException("vLLM 네트워크 오류: " + e.getMessage(), e);
-        } catch (Exception e) {
-            log.error("vLLM 호출 실패: {}", e.getMessage(), e);
-            throw new RuntimeException("vLLM 호출 실패: " + e.getMessage(), e);
+                        return replica.track(llmMetrics.recordCall("vllm", replica.getId(), queuedAt, timings,
+                                replica.getWebClient()
+                                        .post()
+                                        .uri("/v1/completions")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .body(requestBody)
+                                        .retrieve()
+                                        .bodyToFlux(DataBuffer.class)
+                                        .as(body -> CompletionResponseDecoder.decode(body, objectMapper.getFactory()))
+                                        .timeout(llmConfig.getVllm().getTimeout())));
+                    }));
+                })
+                .map(decoded -> {
+                    String text = extractText(decoded);
+                    long responseTime = System.currentTimeMillis() - startTime;
+                    
+                    log.debug("vLLM 응답 성공: responseTime={}ms, textLength={}", responseTime, text.length());
+                    
+                    return LLMResponse.builder()
+                            .text(text)
+                            .engine("vllm")
+                            .responseTimeMs(responseTime)
+                            .success(true)
+                            .build();
+                })
+                .onErrorMap(e -> {
+                    if (e instanceof ConcurrencyLimitExceededException) {
+                        return e;
+                    }
+                    if (e instanceof WebClientException) {
+                        log.error("vLLM 네트워크 오류: {}", e.getMessage());
+                        return new RuntimeException("vLLM 네트워크 오류: " + e.getMessage(), e);
+                    }
+                    log.error("vLLM 호출 실패: {}", e.getMessage(), e);
+                    return new RuntimeException("vLLM 호출 실패: " + e.getMessage(), e);
+                });
+    }
+    
+    /**
+     * 여러 프롬프트를 prompt 배열로 묶어 한 번의 /v1/completions 호출로 보낸다.
+     * 결과 텍스트는 choices[].index 기준으로 입력 프롬프트와 같은 순서로 돌려준다.
+     */
+    public Mono<List<String>> generateBatch(List<String> prompts, int maxTokens, double temperature) {
+        if (!llmConfig.getVllm().isEnabled()) {
+            return Mono.error(new RuntimeException("vLLM이 비활성화되어 있습니다"));
         }
+        
+        return Mono.defer(() -> {
+                    long queuedAt = System.nanoTime();
+                    return concurrencyLimiters.get("vllm").execute(Mono.subscriberContext().flatMap(context -> {
+                        // 배치는 첫 프롬프트 기준으로 복제본을 고른다
+                        EngineReplica replica = replicaPools.choose("vllm", prompts.get(0), context);
+                        log.debug("vLLM 배치 요청: URL={}, batchSize={}", replica.getBaseUrl(), prompts.size());
+                        RequestTimings timings = RequestTimings.from(context);
+                    
+                        return replica.track(llmMetrics.recordCall("vllm", replica.getId(), queuedAt, timings,
+                                replica.getWebClient()
+                                        .post()
+                                        .uri("/v1/completions")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .body(requestEncoder.vllmBatchBody(prompts, maxTokens, temperature))
+                                        .retrieve()
+                                        .bodyToFlux(DataBuffer.class)
+                                        .as(body -> CompletionResponseDecoder.decode(body, objectMapper.getFactory()))
+                                        .timeout(llmConfig.getVllm().getTimeout())));
+                    }));
+                })
+                .map(decoded -> {
+                    List<String> texts = new ArrayList<>(prompts.size());
+                    for (int i = 0; i < prompts.size(); i++) {
+                        String text = decoded.getChoiceText(i);
+                        if (text == null) {
+                            throw new RuntimeException("배치 응답에서 " + i + "번째 텍스트를 추출할 수 없습니다");
+                        }
+                        texts.add(text.trim());
+                    }
+                    return texts;
+                })
+                .onErrorMap(e -> {
+                    if (e instanceof ConcurrencyLimitExceededException) {
+                        return e;
+                    }
+                    log.error("vLLM 배치 호출 실패: batchSize={}, error={}", prompts.size(), e.getMessage());
+                    return new RuntimeException("vLLM 배치 호출 실패: " + e.getMessage(), e);
+                });
     }
     
-    private Map<String, Object> createRequestBody(LLMRequest request) {
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", "default");
-        requestBody.put("prompt", request.getPrompt());
-        requestBody.put("max_tokens", request.getMaxTokens() != null ? 
-                request.getMaxTokens() : llmConfig.getVllm().getMaxTokens());
-        requestBody.put("temperature", request.getTemperature() != null ? 
-                request.getTemperature() : llmConfig.getVllm().getTemperature());
-        requestBody.put("stream", false);
+    /**
+     * 업스트림을 stream=true 로 호출하고 SSE 청크에서 텍스트 증분만 뽑아 순서대로 내보낸다.
+     * timeout 은 청크 사이의 최대 대기 시간으로 적용된다.
+     */
+    public Flux<String> generateStream(LLMRequest request) {
+        if (!llmConfig.getVllm().isEnabled()) {
+            return Flux.error(new RuntimeException("vLLM이 비활성화되어 있습니다"));
+        }
+        
+        BodyInserter<?, ? super ClientHttpRequest> requestBody = createRequestBody(request, true);
         
-        return requestBody;
+        return Mono.subscriberContext().flatMapMany(context -> {
+                    EngineReplica replica = replicaPools.choose("vllm", request.getPrompt(), context);
+                    log.debug("vLLM 스트리밍 요청: URL={}, promptLength={}", replica.getBaseUrl(), request.getPrompt().length());
+                    RequestTimings timings = RequestTimings.from(context);
+                    
+                    return replica.trackStream(llmMetrics.recordStream("vllm", replica.getId(), timings,
+                            replica.getWebClient()
+                                    .post()
+                                    .uri("/v1/completions")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .accept(MediaType.TEXT_EVENT_STREAM)
+                                    .body(requestBody)
+                                    .retrieve()
+                                    .bodyToFlux(SSE_TYPE)
+                                    .filter(event -> event.data() != null)
+                                    .map(ServerSentEvent::data)
+                                    .takeWhile(data -> !"[DONE]".equals(data.trim()))
+                                    .map(this::extractDelta)
+                                    .filter(delta -> !delta.isEmpty())));
+                })
+                .timeout(llmConfig.getVllm().getTimeout())
+                .onErrorMap(e -> {
+                    log.error("vLLM 스트리밍 호출 실패: {}", e.getMessage());
+                    return new RuntimeException("vLLM 스트리밍 호출 실패: " + e.getMessage(), e);
+                });
     }
     
-    private String extractText(String response) throws Exception {
+    private BodyInserter<?, ? super ClientHttpRequest> createRequestBody(LLMRequest request, boolean stream) {
+        return requestEncoder.vllmBody(
+                request.getPrompt(),
+                request.getMaxTokens() != null ? 
+                        request.getMaxTokens() : llmConfig.getVllm().getMaxTokens(),
+                request.getTemperature() != null ? 
+                        request.getTemperature() : llmConfig.getVllm().getTemperature(),
+                stream);
+    }
+    
+    /**
+     * vLLM SSE 청크의 choices[0].text 는 이미 증분(delta)이다.
+     */
+    private String extractDelta(String chunk) {
         try {
-            JsonNode jsonNode = objectMapper.readTree(response);
-            JsonNode choices = jsonNode.get("choices");
-            
+            JsonNode choices = objectMapper.readTree(chunk).get("choices");
             if (choices != null && choices.isArray() && choices.size() > 0) {
                 JsonNode text = choices.get(0).get("text");
                 if (text != null) {
-                    return text.asText().trim();
+                    return text.asText();
                 }
             }
-            
-            // choices가 없거나 비어있는 경우, 다른 형식 시도
-            JsonNode textNode = jsonNode.get("text");
-            if (textNode != null) {
-                return textNode.asText().trim();
-            }
-            
-            throw new RuntimeException("응답에서 텍스트를 추출할 수 없습니다. Response: " + response);
-            
+            return "";
         } catch (Exception e) {
-            log.error("JSON 파싱 실패: response={}", response);
-            throw new RuntimeException("응답 파싱 실패: " + e.getMessage(), e);
+            log.error("스트리밍 청크 파싱 실패: chunk={}", chunk);
+            throw new RuntimeException("스트리밍 청크 파싱 실패: " + e.getMessage(), e);
         }
     }
+    
+    private String extractText(CompletionResponseDecoder decoded) {
+        if (decoded.getChoicesText() != null) {
+            return decoded.getChoicesText().trim();
+        }
+        
+        // choices가 없거나 비어있는 경우, 다른 형식 시도
+        if (decoded.getText() != null) {
+            return decoded.getText().trim();
+        }
+        
+        throw new RuntimeException("응답에서 텍스트를 추출할 수 없습니다");
+    }
 }
\ No newline at end of file
@@ -2,14 +2,28 @@
 -- H2는 Oracle 호환 모드로 실행됨
 
 -- LLM 요청/응답 로그 테이블
+-- Oracle 의 대량 기록용 스키마(일 단위 파티션 + CACHE identity)에 대응하는 H2 정의.
+-- H2 에는 파티션이 없으므로 보존 기간이 지난 행은 LogRetentionService 가 REQUEST_TIME 인덱스로 DELETE 한다.
 CREATE TABLE IF NOT EXISTS LLM_LOGS (
-    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
-    REQUEST_TIME TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    ID BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1 CACHE 1000) PRIMARY KEY,
+    REQUEST_TIME TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
     ENGINE VARCHAR(50) NOT NULL,
     PROMPT CLOB,
     RESPONSE CLOB,
+    -- body-storage=dedup 이면 PROMPT/RESPONSE 대신 LLM_LOG_BODIES.HASH 참조만 채운다
+    PROMPT_HASH VARCHAR(64),
+    RESPONSE_HASH VARCHAR(64),
     RESPONSE_TIME_MS BIGINT,
     SUCCESS BOOLEAN DEFAULT TRUE,
+    -- 요청 구간별 소요 시간 (마이크로초, 기록되지 않은 구간은 NULL). Server-Timing 헤더와 같은 구간
+    VALIDATE_US BIGINT,
+    TOKENIZE_US BIGINT,
+    QUEUE_US BIGINT,
+    LIMIT_US BIGINT,
+    CONNECT_US BIGINT,
+    UPSTREAM_US BIGINT,
+    TTFT_US BIGINT,
+    PARSE_US BIGINT,
     ERROR_MESSAGE VARCHAR(1000),
     REQUEST_IP VARCHAR(45),
     USER_AGENT VARCHAR(500)
@@ -18,7 +32,40 @@ CREATE TABLE IF NOT EXISTS LLM_LOGS (
 -- 인덱스 생성
 CREATE INDEX IF NOT EXISTS IDX_LLM_LOGS_TIME ON LLM_LOGS(REQUEST_TIME);
 CREATE INDEX IF NOT EXISTS IDX_LLM_LOGS_ENGINE ON LLM_LOGS(ENGINE);
-CREATE INDEX IF NOT EXISTS IDX_LLM_LOGS_SUCCESS ON LLM_LOGS(SUCCESS);
+-- 참조가 없어진 본문 정리(LogRetentionService)의 NOT EXISTS 가 전체 로그를 훑지 않도록
+CREATE INDEX IF NOT EXISTS IDX_LLM_LOGS_PROMPT_HASH ON LLM_LOGS(PROMPT_HASH);
+CREATE INDEX IF NOT EXISTS IDX_LLM_LOGS_RESPONSE_HASH ON LLM_LOGS(RESPONSE_HASH);
+
+-- 요청 로그 본문 (body-storage=dedup): UTF-8 본문의 SHA-256 해시를 키로 gzip 압축해 한 번만 저장
+-- 남은 LLM_LOGS 가 참조하지 않는 본문은 LogRetentionService 가 로그 정리 뒤에 지운다
+CREATE TABLE IF NOT EXISTS LLM_LOG_BODIES (
+    HASH VARCHAR(64) PRIMARY KEY,
+    ORIGINAL_LENGTH INT NOT NULL,
+    BODY BLOB NOT NULL,
+    CREATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 시간별 통계 롤업 테이블 (엔진 x 시간): 백엔드가 로그 배치를 쓸 때 MERGE 로 갱신
+CREATE TABLE IF NOT EXISTS LLM_STATS_HOURLY (
+    HOUR_START TIMESTAMP NOT NULL,
+    ENGINE VARCHAR(50) NOT NULL,
+    REQUEST_COUNT BIGINT DEFAULT 0 NOT NULL,
+    SUCCESS_COUNT BIGINT DEFAULT 0 NOT NULL,
+    LATENCY_SUM_MS BIGINT DEFAULT 0 NOT NULL,
+    LATENCY_MIN_MS BIGINT,
+    LATENCY_MAX_MS BIGINT,
+    BUCKET_250 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_500 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_1000 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_2500 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_5000 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_10000 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_30000 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_60000 BIGINT DEFAULT 0 NOT NULL,
+    BUCKET_INF BIGINT DEFAULT 0 NOT NULL,
+    UPDATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (HOUR_START, ENGINE)
+);
 
 -- 시스템 메트릭 테이블 (선택사항)
 CREATE TABLE IF NOT EXISTS SYSTEM_METRICS (
@@ -147,6 +147,24 @@ class LLMConfigTest {
             assertEquals(512, sglangConfig.getMaxTokens());
             assertEquals(0.7, sglangConfig.getTemperature(), 0.001);
         }
+
+        @Test
+        @DisplayName("엔진별 커넥션 풀 기본값 테스트")
+        void poolConfig_DefaultConstructor_ShouldSetDefaultValues() {
+            // Given
+            LLMConfig.PoolConfig pool = new LLMConfig.VllmConfig().getPool();
+
+            // Then
+            assertNotNull(pool);
+            assertNotNull(new LLMConfig.SglangConfig().getPool());
+            assertEquals(100, pool.getMaxConnections());
+            assertEquals(1000, pool.getPendingAcquireMaxCount());
+            assertEquals(Duration.ofSeconds(10), pool.getPendingAcquireTimeout());
+            assertEquals(Duration.ofSeconds(60), pool.getMaxIdleTime());
+            assertEquals(Duration.ofMinutes(10), pool.getMaxLifeTime());
+            assertEquals(Duration.ofSeconds(5), pool.getConnectTimeout());
+            assertTrue(pool.isKeepAlive());
+        }
     }
 
     @Nested
@@ -1,12 +1,15 @@
 package com.example.simple.controller;
 
 import com.example.simple.config.LLMConfig;
+import com.example.simple.service.EngineHealthProber;
+import com.example.simple.service.EngineReplicaPools;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Map;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -22,7 +25,10 @@ class HealthControllerTest {
     private LLMConfig llmConfig;
 
     @MockBean
-    private WebClient.Builder webClientBuilder;
+    private EngineReplicaPools replicaPools;
+
+    @MockBean
+    private EngineHealthProber healthProber;
 
     @Test
     void healthEndpoint_ShouldReturnOK() throws Exception {
@@ -44,13 +50,21 @@ class HealthControllerTest {
 
         when(llmConfig.getVllm()).thenReturn(vllmConfig);
         when(llmConfig.getSglang()).thenReturn(sglangConfig);
+        when(replicaPools.circuitBreakerStates()).thenReturn(Map.of("vllm-0", Map.of("state", "OPEN")));
+        when(healthProber.engineStatus("vllm")).thenReturn("UP");
+        when(healthProber.engineStatus("sglang")).thenReturn("DOWN");
+        when(healthProber.replicaStates()).thenReturn(Map.of("vllm-0", Map.of("status", "UP", "latency_ms", 12)));
 
         // When & Then
         mockMvc.perform(get("/api/health/detailed"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.application").value("UP"))
+                .andExpect(jsonPath("$.vllm").value("UP"))
+                .andExpect(jsonPath("$.sglang").value("DOWN"))
+                .andExpect(jsonPath("$.replicas['vllm-0'].latency_ms").value(12))
                 .andExpect(jsonPath("$.vllm_url").value("http://localhost:8000"))
                 .andExpect(jsonPath("$.sglang_url").value("http://localhost:30000"))
-                .andExpect(jsonPath("$.timestamp").exists());
+                .andExpect(jsonPath("$.timestamp").exists())
+                .andExpect(jsonPath("$.circuit_breakers['vllm-0'].state").value("OPEN"));
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.simple.controller;
 
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
 import com.example.simple.service.LLMService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,9 +12,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -68,12 +74,17 @@ class LLMControllerTest {
     @Test
     void generateEndpoint_WithValidRequest_ShouldReturnSuccessResponse() throws Exception {
         // Given
-        when(llmService.generateResponse(any(LLMRequest.class))).thenReturn(testResponse);
+        when(llmService.generateResponse(any(LLMRequest.class))).thenReturn(Mono.just(testResponse));
 
-        // When & Then
-        mockMvc.perform(post("/api/generate")
+        // When
+        MvcResult mvcResult = mockMvc.perform(post("/api/generate")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.text").value("Hello! How can I help you today?"))
@@ -90,17 +101,42 @@ class LLMControllerTest {
                 .responseTimeMs(100L)
                 .build();
 
-        when(llmService.generateResponse(any(LLMRequest.class))).thenReturn(errorResponse);
+        when(llmService.generateResponse(any(LLMRequest.class))).thenReturn(Mono.just(errorResponse));
 
-        // When & Then
-        mockMvc.perform(post("/api/generate")
+        // When
+        MvcResult mvcResult = mockMvc.perform(post("/api/generate")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(testRequest)))
-                .andExpected(status().isBadRequest())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.error").value("Service unavailable"));
     }
 
+    @Test
+    void generateEndpoint_WhenConcurrencyLimitExceeded_ShouldReturnTooManyRequests() throws Exception {
+        // Given
+        when(llmService.generateResponse(any(LLMRequest.class)))
+                .thenReturn(Mono.error(new ConcurrencyLimitExceededException("vllm", Duration.ofMillis(1500))));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(post("/api/generate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
     @Test
     void generateEndpoint_WithInvalidRequest_ShouldReturnBadRequest() throws Exception {
         // Given - 빈 프롬프트로 잘못된 요청 생성
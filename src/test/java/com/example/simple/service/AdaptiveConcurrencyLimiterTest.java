@@ -0,0 +1,209 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = Duration.ofMillis(1).toNanos();
+
+    private LLMConfig.ConcurrencyLimitConfig config;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        config = new LLMConfig.ConcurrencyLimitConfig();
+        config.setInitialLimit(2);
+        config.setMinLimit(1);
+        config.setMaxLimit(100);
+        config.setMaxQueueSize(1);
+        config.setMaxQueueWait(Duration.ofSeconds(5));
+        limiter = new AdaptiveConcurrencyLimiter("vllm", config);
+    }
+
+    @Test
+    void execute_WhenLimitReached_ShouldQueueUntilSlotIsReleased() {
+        // Given
+        MonoProcessor<String> first = MonoProcessor.create();
+        limiter.execute(first).subscribe();
+        limiter.execute(Mono.never()).subscribe();
+        AtomicReference<String> queuedResult = new AtomicReference<>();
+
+        // When
+        limiter.execute(Mono.just("queued")).subscribe(queuedResult::set);
+
+        // Then
+        assertEquals(2, limiter.getInflight());
+        assertEquals(1, limiter.getQueueDepth());
+        assertNull(queuedResult.get());
+
+        first.onNext("done");
+        assertEquals("queued", queuedResult.get());
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void execute_WhenQueueIsFull_ShouldRejectImmediately() {
+        // Given
+        limiter.execute(Mono.never()).subscribe();
+        limiter.execute(Mono.never()).subscribe();
+        limiter.execute(Mono.never()).subscribe();
+
+        // When & Then
+        ConcurrencyLimitExceededException exception = assertThrows(ConcurrencyLimitExceededException.class,
+                () -> limiter.execute(Mono.just("rejected")).block());
+        assertTrue(exception.getRetryAfterSeconds() >= 1);
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void execute_WhenQueueWaitExpires_ShouldReject() {
+        // Given
+        config.setMaxQueueWait(Duration.ofMillis(50));
+        limiter.execute(Mono.never()).subscribe();
+        limiter.execute(Mono.never()).subscribe();
+
+        // When & Then
+        assertThrows(ConcurrencyLimitExceededException.class,
+                () -> limiter.execute(Mono.just("late")).block(Duration.ofSeconds(5)));
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void execute_WhenCancelled_ShouldReleaseSlot() {
+        // Given
+        Disposable first = limiter.execute(Mono.never()).subscribe();
+        limiter.execute(Mono.never()).subscribe();
+
+        // When
+        first.dispose();
+
+        // Then
+        assertEquals(1, limiter.getInflight());
+        assertEquals("ok", limiter.execute(Mono.just("ok")).block());
+    }
+
+    @Test
+    void execute_WhenQueuedWaiterIsCancelledDuringHandoff_ShouldNotLeakSlot() throws Exception {
+        config.setInitialLimit(1);
+        for (int i = 0; i < 500; i++) {
+            // Given - 자리 하나를 잡고 있는 요청과 그 뒤에 줄 선 요청
+            limiter = new AdaptiveConcurrencyLimiter("vllm", config);
+            MonoProcessor<String> first = MonoProcessor.create();
+            limiter.execute(first).subscribe();
+            Disposable queuedCall = limiter.execute(Mono.just("queued")).subscribe();
+            CountDownLatch start = new CountDownLatch(1);
+
+            // When - 자리 반납(drain 이 대기자에게 넘김)과 대기자 취소가 동시에 일어난다
+            Thread releaser = new Thread(() -> {
+                awaitQuietly(start);
+                first.onNext("done");
+            });
+            Thread canceller = new Thread(() -> {
+                awaitQuietly(start);
+                queuedCall.dispose();
+            });
+            releaser.start();
+            canceller.start();
+            start.countDown();
+            releaser.join();
+            canceller.join();
+
+            // Then - 어느 쪽이 이기든 자리는 남지 않는다
+            assertEquals(0, limiter.getInflight(), "iteration " + i);
+            assertEquals(0, limiter.getQueueDepth(), "iteration " + i);
+        }
+    }
+
+    @Test
+    void onSample_WithSteadyRttAtFullUtilization_ShouldGrowLimit() {
+        // Given
+        config.setInitialLimit(10);
+        limiter = new AdaptiveConcurrencyLimiter("vllm", config);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(100 * MILLIS, 10, false);
+        }
+
+        // Then
+        assertTrue(limiter.getLimit() > 10);
+    }
+
+    @Test
+    void onSample_WhenRttRisesFarAboveBaseline_ShouldShrinkLimit() {
+        // Given
+        config.setInitialLimit(40);
+        limiter = new AdaptiveConcurrencyLimiter("vllm", config);
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(100 * MILLIS, 40, false);
+        }
+        int before = limiter.getLimit();
+
+        // When - 장기 평균의 4배 RTT
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(400 * MILLIS, before, false);
+        }
+
+        // Then
+        assertTrue(limiter.getLimit() < before);
+    }
+
+    @Test
+    void onSample_WithLowUtilization_ShouldKeepLimit() {
+        // Given
+        config.setInitialLimit(10);
+        limiter = new AdaptiveConcurrencyLimiter("vllm", config);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(100 * MILLIS, 1, false);
+        }
+
+        // Then
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void onSample_WithTimeout_ShouldBackOff() {
+        // Given
+        config.setInitialLimit(10);
+        limiter = new AdaptiveConcurrencyLimiter("vllm", config);
+
+        // When
+        limiter.onSample(30_000 * MILLIS, 10, true);
+
+        // Then
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void execute_WhenDisabled_ShouldPassThrough() {
+        // Given
+        config.setEnabled(false);
+        config.setInitialLimit(0);
+
+        // When & Then
+        assertEquals("ok", limiter.execute(Mono.just("ok")).block());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * fifo 와 sjf 대기열 순서의 지연 시간 비교 (가상 시간 이산 사건 시뮬레이션).
+ *
+ * 혼합 부하: 80% 짧은 요청 (입력 200 + 출력 50 토큰), 20% 긴 요청 (입력 1000 + 출력 4096 토큰).
+ * 처리 시간은 토큰당 0.5ms, 동시 처리 8건, 포아송 도착으로 사용률 약 90%.
+ * 실제 TenantAdmissionQueue 에 가상 시계를 넣어 꺼내는 순서를 그대로 쓴다.
+ */
+class AdmissionSchedulingBenchmarkTest {
+
+    private static final int JOBS = 5000;
+    private static final int MAX_IN_FLIGHT = 8;
+    private static final long NANOS_PER_TOKEN = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final long MEAN_INTER_ARRIVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(85);
+    private static final long SHORT_JOB_TOKENS = 200 + 50;
+    private static final long LONG_JOB_TOKENS = 1000 + 4096;
+
+    @Test
+    void sjf_OnMixedWorkload_ShouldLowerMeanLatencyWithoutStarvingLongJobs() {
+        // Given
+        long[][] workload = workload(42);
+
+        // When
+        Result fifo = simulate("fifo", workload);
+        Result sjf = simulate("sjf", workload);
+
+        // Then - 실패 메시지에 두 순서의 지연 수치를 함께 남긴다
+        String comparison = fifo + " / " + sjf;
+        assertEquals(JOBS, fifo.completed, comparison);
+        assertEquals(JOBS, sjf.completed, comparison);
+        assertTrue(sjf.meanMillis < fifo.meanMillis * 0.9, "sjf 평균 지연이 fifo 보다 10% 이상 낮아야 한다: " + comparison);
+        assertTrue(sjf.shortMeanMillis < fifo.shortMeanMillis * 0.7, "짧은 요청의 평균 지연이 크게 줄어야 한다: " + comparison);
+        assertTrue(sjf.longP99Millis < fifo.longP99Millis * 1.5, "긴 요청의 꼬리 지연이 크게 늘지 않아야 한다: " + comparison);
+    }
+
+    private long[][] workload(long seed) {
+        Random random = new Random(seed);
+        long[][] jobs = new long[JOBS][];
+        long arrival = 0;
+        for (int i = 0; i < JOBS; i++) {
+            arrival += (long) (-Math.log(1 - random.nextDouble()) * MEAN_INTER_ARRIVAL_NANOS);
+            long tokens = random.nextDouble() < 0.8 ? SHORT_JOB_TOKENS : LONG_JOB_TOKENS;
+            jobs[i] = new long[]{arrival, tokens};
+        }
+        return jobs;
+    }
+
+    private Result simulate(String ordering, long[][] jobs) {
+        AtomicLong clock = new AtomicLong();
+        LLMConfig llmConfig = new LLMConfig();
+        llmConfig.getAdmission().setMaxInFlight(MAX_IN_FLIGHT);
+        llmConfig.getAdmission().setMaxQueueSize(JOBS);
+        llmConfig.getAdmission().setMaxQueueWait(Duration.ofHours(1));
+        llmConfig.getAdmission().setOrdering(ordering);
+        TenantAdmissionQueue admissionQueue = new TenantAdmissionQueue(llmConfig, new SimpleMeterRegistry(), clock::get);
+
+        PriorityQueue<Event> events = new PriorityQueue<>();
+        long[] latencies = new long[jobs.length];
+        AtomicLong sequence = new AtomicLong();
+
+        for (int i = 0; i < jobs.length; i++) {
+            int job = i;
+            long arrival = jobs[job][0];
+            long tokens = jobs[job][1];
+            events.add(new Event(arrival, sequence.getAndIncrement(), () -> admissionQueue
+                    .admit(TenantAdmissionQueue.DEFAULT_TENANT, tokens, () -> {
+                        // 차례가 온 시점부터 토큰 수에 비례한 시간 뒤에 끝난다
+                        MonoProcessor<Void> done = MonoProcessor.create();
+                        events.add(new Event(clock.get() + tokens * NANOS_PER_TOKEN,
+                                sequence.getAndIncrement(), done::onComplete));
+                        return done;
+                    })
+                    .subscribe(null, null, () -> latencies[job] = clock.get() - arrival)));
+        }
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            clock.set(event.time);
+            event.action.run();
+        }
+
+        return new Result(ordering, jobs, latencies);
+    }
+
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final Runnable action;
+
+        private Event(long time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class Result {
+        private final String ordering;
+        private final int completed;
+        private final double meanMillis;
+        private final double shortMeanMillis;
+        private final double longMeanMillis;
+        private final double longP99Millis;
+
+        private Result(String ordering, long[][] jobs, long[] latencies) {
+            this.ordering = ordering;
+            this.completed = (int) Arrays.stream(latencies).filter(latency -> latency > 0).count();
+            this.meanMillis = toMillis(Arrays.stream(latencies).average().orElse(0));
+
+            long[] shortJobs = select(jobs, latencies, SHORT_JOB_TOKENS);
+            long[] longJobs = select(jobs, latencies, LONG_JOB_TOKENS);
+            Arrays.sort(longJobs);
+            this.shortMeanMillis = toMillis(Arrays.stream(shortJobs).average().orElse(0));
+            this.longMeanMillis = toMillis(Arrays.stream(longJobs).average().orElse(0));
+            this.longP99Millis = toMillis(longJobs[(int) (longJobs.length * 0.99)]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s mean=%.1fms short=%.1fms long=%.1fms long p99=%.1fms",
+                    ordering, meanMillis, shortMeanMillis, longMeanMillis, longP99Millis);
+        }
+
+        private static long[] select(long[][] jobs, long[] latencies, long tokens) {
+            long[] selected = new long[latencies.length];
+            int count = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                if (jobs[i][1] == tokens) {
+                    selected[count++] = latencies[i];
+                }
+            }
+            return Arrays.copyOf(selected, count);
+        }
+
+        private static double toMillis(double nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
\ No newline at end of file
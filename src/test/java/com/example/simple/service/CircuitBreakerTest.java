@@ -0,0 +1,165 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.exception.CircuitBreakerOpenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+
+    private LLMConfig.CircuitBreakerConfig config;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        config = new LLMConfig.CircuitBreakerConfig();
+        config.setSlidingWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setSlowCallRateThreshold(80);
+        config.setSlowCallDuration(Duration.ofSeconds(1));
+        config.setWaitDurationInOpen(Duration.ofSeconds(5));
+        config.setPermittedCallsInHalfOpen(2);
+        circuitBreaker = new CircuitBreaker(config);
+    }
+
+    @Test
+    void onError_WhenFailureRateReachesThreshold_ShouldOpenAndRejectCalls() {
+        // Given
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onError(FAST, new RuntimeException("connection refused"));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // When
+        circuitBreaker.onError(FAST, new RuntimeException("connection refused"));
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission(System.nanoTime()));
+        assertFalse(circuitBreaker.isCallPermitted(System.nanoTime()));
+        assertEquals(1, circuitBreaker.getRejectedCalls());
+    }
+
+    @Test
+    void onError_WithClientError_ShouldNotCountAsFailure() {
+        // Given
+        WebClientResponseException badRequest = WebClientResponseException.create(
+                HttpStatus.BAD_REQUEST.value(), "Bad Request", null, null, null);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onError(FAST, badRequest);
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0.0, circuitBreaker.failureRate());
+    }
+
+    @Test
+    void onSuccess_WhenMostCallsAreSlow_ShouldOpen() {
+        // Given
+        long slow = Duration.ofSeconds(2).toNanos();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onSuccess(slow);
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(100.0, circuitBreaker.slowCallRate());
+    }
+
+    @Test
+    void halfOpen_AfterWaitAndSuccessfulTrials_ShouldClose() {
+        // Given
+        open();
+        long later = System.nanoTime() + Duration.ofSeconds(6).toNanos();
+
+        // When - 대기 시간이 지나면 permittedCallsInHalfOpen 건만 허용
+        assertTrue(circuitBreaker.tryAcquirePermission(later));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission(later));
+        assertFalse(circuitBreaker.tryAcquirePermission(later));
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+
+        // Then - 창이 비워진 채로 닫힌다
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getBufferedCalls());
+    }
+
+    @Test
+    void halfOpen_WithFailedTrial_ShouldReopen() {
+        // Given
+        open();
+        assertTrue(circuitBreaker.tryAcquirePermission(System.nanoTime() + Duration.ofSeconds(6).toNanos()));
+
+        // When
+        circuitBreaker.onError(FAST, new RuntimeException("still down"));
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission(System.nanoTime()));
+    }
+
+    @Test
+    void disabled_ShouldAlwaysPermit() {
+        // Given
+        config.setEnabled(false);
+
+        // When
+        open();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission(System.nanoTime()));
+    }
+
+    @Test
+    void replicaTrack_WhenOpen_ShouldFailFastWithoutSubscribing() {
+        // Given
+        EngineReplica replica = new EngineReplica("vllm", "vllm-0", "http://localhost:8000", null, 0.3, circuitBreaker);
+        open();
+        AtomicBoolean subscribed = new AtomicBoolean();
+
+        // When & Then
+        assertThrows(CircuitBreakerOpenException.class,
+                () -> replica.track(Mono.fromCallable(() -> subscribed.getAndSet(true))).block());
+        assertFalse(subscribed.get());
+        assertEquals(0, replica.getOutstanding());
+    }
+
+    @Test
+    void replicaPool_ShouldRouteAroundOpenBreaker() {
+        // Given
+        EngineReplica broken = new EngineReplica("vllm", "vllm-0", "http://vllm-0:8000", null, 0.3, circuitBreaker);
+        EngineReplica healthy = new EngineReplica("vllm", "vllm-1", "http://vllm-1:8000", null, 0.3);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(broken, healthy), new LLMConfig.LoadBalancingConfig());
+        open();
+
+        // When & Then
+        for (int i = 0; i < 20; i++) {
+            assertSame(healthy, pool.choose());
+        }
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onError(FAST, new RuntimeException("connection refused"));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.example.simple.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionResponseDecoderTest {
+
+    private static final String VLLM_RESPONSE = "{\"id\":\"cmpl-1\","
+            + "\"meta\":{\"text\":\"nested\",\"choices\":[{\"text\":\"nested\"}]},"
+            + "\"choices\":[{\"index\":0,\"logprobs\":{\"text\":[\"x\"]},\"text\":\" 안녕하세요 \"},{\"text\":\"second\"}],"
+            + "\"usage\":{\"prompt_tokens\":3,\"completion_tokens\":[1,[2]]}}";
+
+    @Test
+    void decode_VllmResponse_ShouldExtractFirstChoiceTextOnly() {
+        CompletionResponseDecoder decoded = CompletionResponseDecoder
+                .decode(split(VLLM_RESPONSE, 1000), new JsonFactory())
+                .block();
+
+        assertNotNull(decoded);
+        assertEquals(" 안녕하세요 ", decoded.getChoicesText());
+        assertNull(decoded.getText());
+        assertNull(decoded.getOutput());
+    }
+
+    @Test
+    void decode_ShouldExtractTokenUsage() {
+        String vllm = "{\"choices\":[{\"text\":\"hi\"}],"
+                + "\"usage\":{\"prompt_tokens\":12,\"prompt_tokens_details\":{\"cached_tokens\":8},"
+                + "\"completion_tokens\":34}}";
+        String sglang = "{\"text\":\"hi\",\"meta_info\":{\"prompt_tokens\":5,\"completion_tokens\":7,\"id\":\"x\"}}";
+
+        CompletionResponseDecoder vllmDecoded = CompletionResponseDecoder
+                .decode(split(vllm, 3), new JsonFactory())
+                .block();
+        CompletionResponseDecoder sglangDecoded = CompletionResponseDecoder
+                .decode(split(sglang, 3), new JsonFactory())
+                .block();
+
+        assertNotNull(vllmDecoded);
+        assertEquals(12, vllmDecoded.getPromptTokens());
+        assertEquals(34, vllmDecoded.getCompletionTokens());
+        assertNotNull(sglangDecoded);
+        assertEquals(5, sglangDecoded.getPromptTokens());
+        assertEquals(7, sglangDecoded.getCompletionTokens());
+    }
+
+    @Test
+    void decode_WithMalformedUsage_ShouldLeaveTokenCountsUnknown() {
+        CompletionResponseDecoder decoded = CompletionResponseDecoder
+                .decode(split(VLLM_RESPONSE, 1000), new JsonFactory())
+                .block();
+
+        assertNotNull(decoded);
+        assertEquals(3, decoded.getPromptTokens());
+        assertEquals(-1, decoded.getCompletionTokens());
+    }
+
+    @Test
+    void decode_WithTinyChunks_ShouldGiveSameResult() {
+        // 멀티바이트 문자와 토큰이 청크 경계에서 잘려도 결과가 같아야 한다
+        for (int chunkSize : new int[]{1, 2, 3, 7}) {
+            CompletionResponseDecoder decoded = CompletionResponseDecoder
+                    .decode(split(VLLM_RESPONSE, chunkSize), new JsonFactory())
+                    .block();
+
+            assertNotNull(decoded);
+            assertEquals(" 안녕하세요 ", decoded.getChoicesText(), "chunkSize=" + chunkSize);
+        }
+    }
+
+    @Test
+    void decode_SglangResponse_ShouldExtractTopLevelFields() {
+        String response = "{\"text\":\"SGLang 응답\",\"meta_info\":{\"output\":\"x\"},\"output\":\"out\"}";
+
+        CompletionResponseDecoder decoded = CompletionResponseDecoder
+                .decode(split(response, 5), new JsonFactory())
+                .block();
+
+        assertNotNull(decoded);
+        assertEquals("SGLang 응답", decoded.getText());
+        assertEquals("out", decoded.getOutput());
+        assertNull(decoded.getChoicesText());
+    }
+
+    @Test
+    void decode_VllmBatchResponse_ShouldMapChoicesByIndex() {
+        String response = "{\"choices\":[{\"index\":1,\"text\":\"둘\"},{\"text\":\"하나\",\"index\":0}]}";
+
+        CompletionResponseDecoder decoded = CompletionResponseDecoder
+                .decode(split(response, 3), new JsonFactory())
+                .block();
+
+        assertNotNull(decoded);
+        assertEquals("하나", decoded.getChoiceText(0));
+        assertEquals("둘", decoded.getChoiceText(1));
+        assertNull(decoded.getChoiceText(2));
+    }
+
+    @Test
+    void decode_SglangBatchResponse_ShouldExtractItemTexts() {
+        String response = "[{\"text\":\"first\",\"meta_info\":{\"text\":\"x\"}},{\"meta_info\":{},\"text\":\"second\"}]";
+
+        CompletionResponseDecoder decoded = CompletionResponseDecoder
+                .decode(split(response, 4), new JsonFactory())
+                .block();
+
+        assertNotNull(decoded);
+        assertEquals("first", decoded.getItemText(0));
+        assertEquals("second", decoded.getItemText(1));
+        assertNull(decoded.getText());
+    }
+
+    @Test
+    void decode_WithMalformedJson_ShouldFail() {
+        assertThrows(RuntimeException.class, () -> CompletionResponseDecoder
+                .decode(split("{\"text\": ]", 4), new JsonFactory())
+                .block());
+    }
+
+    private Flux<DataBuffer> split(String json, int chunkSize) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            DataBuffer buffer = factory.allocateBuffer(chunkSize);
+            buffer.write(bytes, i, Math.min(chunkSize, bytes.length - i));
+            buffers.add(buffer);
+        }
+        return Flux.fromIterable(buffers);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.simple.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest {
+
+    @Test
+    void murmur3_ShouldMatchReferenceVectors() {
+        // MurmurHash3_x64_128 (seed 0) 참조 구현 값
+        assertEquals(new ContentHash(0L, 0L), ContentHash.murmur3(new byte[0]));
+        assertEquals("cbd8a7b341bd9b025b1e906a48ae1d19", ContentHash.of("hello").toHex());
+    }
+
+    @Test
+    void of_ShouldDistinguishSimilarInputs() {
+        assertNotEquals(ContentHash.of("vllm\n100\n0.0\nabc"), ContentHash.of("vllm\n100\n0.0\nabd"));
+        assertEquals(ContentHash.of("같은 프롬프트"), ContentHash.of("같은 프롬프트"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineFailoverTest {
+
+    private LLMConfig llmConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private EngineFailover engineFailover;
+
+    private final List<String> calls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        llmConfig.getFailover().setEnabled(true);
+        llmConfig.getFailover().setRetryAttempts(2);
+        llmConfig.getFailover().setRetryDelay(Duration.ofMillis(1));
+        meterRegistry = new SimpleMeterRegistry();
+        engineFailover = new EngineFailover(llmConfig, meterRegistry);
+    }
+
+    @Test
+    void execute_WhenPrimaryRecovers_ShouldRetryOnSameEngine() {
+        // Given: 첫 시도만 실패
+        Function<String, Mono<LLMResponse>> call = engine -> {
+            calls.add(engine);
+            return calls.size() == 1
+                    ? Mono.error(new RuntimeException("vLLM 네트워크 오류: reset"))
+                    : Mono.just(response(engine));
+        };
+
+        // When
+        LLMResponse response = engineFailover.execute("vllm", call).block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(response);
+        assertEquals("vllm", response.getEngine());
+        assertEquals(List.of("vllm", "vllm"), calls);
+        assertEquals(1.0, meterRegistry.get("llm.failover.retries").tag("engine", "vllm").counter().count());
+    }
+
+    @Test
+    void execute_WhenPrimaryKeepsFailing_ShouldFailOverToOtherEngine() {
+        // Given
+        Function<String, Mono<LLMResponse>> call = engine -> {
+            calls.add(engine);
+            return "vllm".equals(engine)
+                    ? Mono.error(new RuntimeException("vLLM 호출 실패: timeout"))
+                    : Mono.just(response(engine));
+        };
+
+        // When
+        LLMResponse response = engineFailover.execute("vllm", call).block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(response);
+        assertEquals("sglang", response.getEngine());
+        assertEquals(List.of("vllm", "vllm", "vllm", "sglang"), calls);
+        assertEquals(1.0, meterRegistry.get("llm.failover.switches")
+                .tag("from", "vllm").tag("to", "sglang").counter().count());
+    }
+
+    @Test
+    void execute_WithClientError_ShouldNotRetry() {
+        // Given
+        WebClientResponseException badRequest = WebClientResponseException.create(
+                HttpStatus.BAD_REQUEST.value(), "Bad Request", HttpHeaders.EMPTY, new byte[0], null);
+        Function<String, Mono<LLMResponse>> call = engine -> {
+            calls.add(engine);
+            return Mono.error(new RuntimeException("vLLM 네트워크 오류: 400", badRequest));
+        };
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> engineFailover.execute("vllm", call).block(Duration.ofSeconds(2)));
+        assertEquals(List.of("vllm"), calls);
+    }
+
+    @Test
+    void execute_WhenBudgetIsExhausted_ShouldStopRetrying() {
+        // Given: 예산 1개 (비율/시간 적립 없음)
+        llmConfig.getFailover().getBudget().setCapacity(1);
+        llmConfig.getFailover().getBudget().setRatio(0.0);
+        llmConfig.getFailover().getBudget().setMinPerSecond(0.0);
+        engineFailover = new EngineFailover(llmConfig, meterRegistry);
+        Function<String, Mono<LLMResponse>> call = engine -> {
+            calls.add(engine);
+            return Mono.error(new RuntimeException("down"));
+        };
+
+        // When & Then: 첫 시도 + 재시도 1회 후 중단, 엔진 전환도 하지 않음
+        assertThrows(RuntimeException.class, () -> engineFailover.execute("vllm", call).block(Duration.ofSeconds(2)));
+        assertEquals(List.of("vllm", "vllm"), calls);
+        assertEquals(2.0, meterRegistry.get("llm.failover.budget.exhausted").counter().count());
+    }
+
+    @Test
+    void execute_WhenOtherEngineDisabled_ShouldNotFailOver() {
+        // Given
+        llmConfig.getSglang().setEnabled(false);
+        llmConfig.getFailover().setRetryAttempts(0);
+        Function<String, Mono<LLMResponse>> call = engine -> {
+            calls.add(engine);
+            return Mono.error(new RuntimeException("down"));
+        };
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> engineFailover.execute("vllm", call).block(Duration.ofSeconds(2)));
+        assertEquals(List.of("vllm"), calls);
+    }
+
+    @Test
+    void backoff_ShouldStayWithinJitteredExponentialBounds() {
+        llmConfig.getFailover().setRetryDelay(Duration.ofMillis(100));
+        llmConfig.getFailover().setMaxRetryDelay(Duration.ofMillis(300));
+
+        for (int i = 0; i < 50; i++) {
+            long first = engineFailover.backoff(0).toMillis();
+            long capped = engineFailover.backoff(5).toMillis();
+            assertTrue(first >= 50 && first <= 100, "first=" + first);
+            assertTrue(capped >= 150 && capped <= 300, "capped=" + capped);
+        }
+    }
+
+    private LLMResponse response(String engine) {
+        return LLMResponse.builder().text("ok").engine(engine).success(true).build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EngineHealthProberTest {
+
+    @Mock
+    private EngineReplicaPools replicaPools;
+
+    private LLMConfig llmConfig;
+    private AtomicReference<HttpStatus> vllmStatus;
+    private AtomicInteger sglangCalls;
+    private EngineReplica vllm0;
+    private EngineReplica vllm1;
+    private EngineHealthProber prober;
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        llmConfig.getSglang().setEnabled(false);
+        llmConfig.getHealthCheck().setFailureThreshold(2);
+
+        vllmStatus = new AtomicReference<>(HttpStatus.OK);
+        sglangCalls = new AtomicInteger();
+        vllm0 = new EngineReplica("vllm", "vllm-0", "http://vllm-0:8000", respondingWith(vllmStatus), 0.3);
+        vllm1 = new EngineReplica("vllm", "vllm-1", "http://vllm-1:8000",
+                respondingWith(new AtomicReference<>(HttpStatus.OK)), 0.3);
+        EngineReplica sglang0 = new EngineReplica("sglang", "sglang-0", "http://sglang-0:30000",
+                WebClient.builder().exchangeFunction(request -> {
+                    sglangCalls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+                }).build(), 0.3);
+
+        LLMConfig.LoadBalancingConfig loadBalancing = new LLMConfig.LoadBalancingConfig();
+        when(replicaPools.get("vllm")).thenReturn(new ReplicaPool("vllm", List.of(vllm0, vllm1), loadBalancing));
+        when(replicaPools.get("sglang")).thenReturn(new ReplicaPool("sglang", List.of(sglang0), loadBalancing));
+
+        prober = new EngineHealthProber(llmConfig, replicaPools, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void probeAll_WhenReplicasRespond_ShouldCacheUpStatus() {
+        // When
+        prober.probeAll().block();
+
+        // Then
+        assertEquals(ReplicaHealth.Status.UP, vllm0.getHealth().getStatus());
+        assertTrue(vllm0.getHealth().getCheckedAt() > 0);
+        assertEquals("UP", prober.engineStatus("vllm"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> state = (Map<String, Object>) prober.replicaStates().get("vllm-0");
+        assertEquals("UP", state.get("status"));
+        assertTrue(state.containsKey("latency_ms"));
+    }
+
+    @Test
+    void probeAll_WhenFailuresReachThreshold_ShouldMarkDownAndRouteAround() {
+        // Given
+        vllmStatus.set(HttpStatus.SERVICE_UNAVAILABLE);
+
+        // When - 한 번 실패로는 상태를 바꾸지 않는다
+        prober.probeAll().block();
+        assertEquals(ReplicaHealth.Status.UNKNOWN, vllm0.getHealth().getStatus());
+        assertEquals(1, vllm0.getHealth().getConsecutiveFailures());
+        prober.probeAll().block();
+
+        // Then
+        assertEquals(ReplicaHealth.Status.DOWN, vllm0.getHealth().getStatus());
+        assertNotNull(vllm0.getHealth().getError());
+        assertFalse(vllm0.isAvailable(System.nanoTime()));
+        ReplicaPool pool = replicaPools.get("vllm");
+        for (int i = 0; i < 20; i++) {
+            assertSame(vllm1, pool.choose());
+        }
+    }
+
+    @Test
+    void probeAll_WhenDownReplicaRecovers_ShouldMarkUp() {
+        // Given
+        vllmStatus.set(HttpStatus.SERVICE_UNAVAILABLE);
+        prober.probeAll().block();
+        prober.probeAll().block();
+
+        // When
+        vllmStatus.set(HttpStatus.OK);
+        prober.probeAll().block();
+
+        // Then
+        assertEquals(ReplicaHealth.Status.UP, vllm0.getHealth().getStatus());
+        assertEquals(0, vllm0.getHealth().getConsecutiveFailures());
+        assertTrue(vllm0.isAvailable(System.nanoTime()));
+    }
+
+    @Test
+    void probeAll_ShouldSkipDisabledEngines() {
+        // When
+        prober.probeAll().block();
+
+        // Then
+        assertEquals(0, sglangCalls.get());
+        assertFalse(prober.replicaStates().containsKey("sglang-0"));
+    }
+
+    private static WebClient respondingWith(AtomicReference<HttpStatus> status) {
+        return WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(status.get()).build()))
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.example.simple.service;
+
+import com.example.simple.exception.CircuitBreakerOpenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LLMMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LLMMetrics llmMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        llmMetrics = new LLMMetrics(meterRegistry);
+    }
+
+    @Test
+    void recordRequest_ShouldBucketUnknownEnginesToLimitTagValues() {
+        // When
+        llmMetrics.recordRequest("VLLM", LLMMetrics.SUCCESS, 1_000_000);
+        llmMetrics.recordRequest("made-up-engine", LLMMetrics.ERROR, 1_000_000);
+        llmMetrics.recordRequest(null, LLMMetrics.ERROR, 1_000_000);
+
+        // Then
+        assertEquals(1, meterRegistry.get("llm.request.duration").tags("engine", "vllm").timer().count());
+        assertEquals(2, meterRegistry.get("llm.request.duration").tags("engine", "unknown").timer().count());
+    }
+
+    @Test
+    void recordCall_ShouldClassifyFailures() {
+        // When
+        assertThrows(RuntimeException.class, () -> llmMetrics.recordCall("vllm", "vllm-0", System.nanoTime(),
+                Mono.error(new RuntimeException("503"))).block());
+        assertThrows(RuntimeException.class, () -> llmMetrics.recordCall("vllm", "vllm-0", System.nanoTime(),
+                Mono.error(new RuntimeException(new CircuitBreakerOpenException("vllm-0")))).block());
+        llmMetrics.recordCall("vllm", "vllm-0", System.nanoTime(), Mono.never())
+                .timeout(Duration.ofMillis(10), Mono.empty())
+                .block();
+
+        // Then
+        assertEquals(1, meterRegistry.get("llm.engine.request.duration").tags("outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get("llm.engine.request.duration").tags("outcome", "rejected").timer().count());
+        assertEquals(1, meterRegistry.get("llm.engine.request.duration").tags("outcome", "cancelled").timer().count());
+        assertTrue(meterRegistry.find("llm.engine.tokens").summaries().isEmpty());
+    }
+
+    @Test
+    void recordCall_ShouldMeasureQueueWaitUntilSubscription() {
+        // Given - 50ms 전에 줄을 선 요청
+        long queuedAt = System.nanoTime() - Duration.ofMillis(50).toNanos();
+
+        // When
+        llmMetrics.recordCall("sglang", "sglang-0", queuedAt, Mono.empty()).block();
+
+        // Then
+        double waitedMs = meterRegistry.get("llm.engine.queue.wait").timer().totalTime(TimeUnit.MILLISECONDS);
+        assertTrue(waitedMs >= 50, "waited=" + waitedMs);
+    }
+}
\ No newline at end of file
@@ -2,12 +2,21 @@ package com.example.simple.service;
 
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
+import com.example.simple.dto.LLMStreamChunk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,9 +32,38 @@ class LLMServiceTest {
     @Mock
     private SglangService sglangService;
 
+    @Mock
+    private RequestBatcher requestBatcher;
+
+    @Mock
+    private RequestCoalescer requestCoalescer;
+
+    @Mock
+    private ResponseCache responseCache;
+
+    @Mock
+    private EngineFailover engineFailover;
+
+    @Mock
+    private RequestHedger requestHedger;
+
+    @Mock
+    private TenantAdmissionQueue admissionQueue;
+
+    @Mock
+    private TokenCostEstimator tokenCostEstimator;
+
+    @Mock
+    private StatsAggregator statsAggregator;
+
     @Mock
     private LoggingService loggingService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private LLMMetrics llmMetrics = new LLMMetrics(meterRegistry);
+
     @InjectMocks
     private LLMService llmService;
 
@@ -51,10 +89,10 @@ class LLMServiceTest {
                 .responseTimeMs(1000L)
                 .build();
 
-        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(expectedResponse);
+        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(Mono.just(expectedResponse));
 
         // When
-        LLMResponse actualResponse = llmService.generateResponse(testRequest);
+        LLMResponse actualResponse = llmService.generateResponse(testRequest).block();
 
         // Then
         assertNotNull(actualResponse);
@@ -76,10 +114,10 @@ class LLMServiceTest {
                 .responseTimeMs(1200L)
                 .build();
 
-        when(sglangService.generate(eq(testRequest), anyLong())).thenReturn(expectedResponse);
+        when(sglangService.generate(eq(testRequest), anyLong())).thenReturn(Mono.just(expectedResponse));
 
         // When
-        LLMResponse actualResponse = llmService.generateResponse(testRequest);
+        LLMResponse actualResponse = llmService.generateResponse(testRequest).block();
 
         // Then
         assertNotNull(actualResponse);
@@ -101,10 +139,10 @@ class LLMServiceTest {
                 .responseTimeMs(800L)
                 .build();
 
-        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(expectedResponse);
+        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(Mono.just(expectedResponse));
 
         // When
-        LLMResponse actualResponse = llmService.generateResponse(testRequest);
+        LLMResponse actualResponse = llmService.generateResponse(testRequest).block();
 
         // Then
         assertNotNull(actualResponse);
@@ -113,15 +151,93 @@ class LLMServiceTest {
         verify(vllmService, times(1)).generate(eq(testRequest), anyLong());
     }
 
+    @Test
+    void generateResponse_WithBatchingEnabled_ShouldSubmitToBatcher() {
+        // Given
+        testRequest.setEngine("sglang");
+        LLMResponse batchedResponse = LLMResponse.builder()
+                .text("Batched response")
+                .engine("sglang")
+                .success(true)
+                .responseTimeMs(50L)
+                .build();
+
+        when(requestBatcher.isEnabled()).thenReturn(true);
+        when(requestBatcher.submit(eq("sglang"), eq(testRequest), anyLong())).thenReturn(Mono.just(batchedResponse));
+
+        // When
+        LLMResponse actualResponse = llmService.generateResponse(testRequest).block();
+
+        // Then
+        assertNotNull(actualResponse);
+        assertEquals("Batched response", actualResponse.getText());
+        verify(sglangService, never()).generate(any(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateResponse_WithAdmissionEnabled_ShouldWaitForTenantTurn() {
+        // Given
+        LLMResponse expectedResponse = LLMResponse.builder()
+                .text("Admitted response")
+                .engine("vllm")
+                .success(true)
+                .responseTimeMs(10L)
+                .build();
+
+        when(admissionQueue.isEnabled()).thenReturn(true);
+        when(tokenCostEstimator.estimate("vllm", testRequest)).thenReturn(125L);
+        when(admissionQueue.admit(eq("batch"), eq(125L), any()))
+                .thenAnswer(invocation -> ((Supplier<Mono<LLMResponse>>) invocation.getArgument(2)).get());
+        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(Mono.just(expectedResponse));
+
+        // When
+        LLMResponse actualResponse = llmService.generateResponse(testRequest, "batch").block();
+
+        // Then
+        assertNotNull(actualResponse);
+        assertEquals("Admitted response", actualResponse.getText());
+        verify(admissionQueue).admit(eq("batch"), eq(125L), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateResponse_WithRequestTimingsInContext_ShouldRecordAdmissionAndLogPhases() {
+        // Given - 테넌트 차례가 20ms 뒤에 오는 대기열
+        LLMResponse expectedResponse = LLMResponse.builder()
+                .text("Timed response")
+                .engine("vllm")
+                .success(true)
+                .responseTimeMs(10L)
+                .build();
+        RequestTimings timings = RequestTimings.start();
+
+        when(admissionQueue.isEnabled()).thenReturn(true);
+        when(tokenCostEstimator.estimate("vllm", testRequest)).thenReturn(125L);
+        when(admissionQueue.admit(eq(TenantAdmissionQueue.DEFAULT_TENANT), eq(125L), any()))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(20))
+                        .flatMap(tick -> ((Supplier<Mono<LLMResponse>>) invocation.getArgument(2)).get()));
+        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(Mono.just(expectedResponse));
+
+        // When
+        llmService.generateResponse(testRequest).subscriberContext(timings::putInto).block();
+
+        // Then
+        assertTrue(timings.get(RequestTimings.Phase.QUEUE) >= Duration.ofMillis(20).toNanos());
+        assertTrue(timings.get(RequestTimings.Phase.LOG) > 0);
+        verify(loggingService).logLLMRequest(eq("vllm"), eq("Test prompt"), eq("Timed response"), eq(10L), eq(true),
+                same(timings));
+    }
+
     @Test
     void generateResponse_WithServiceException_ShouldReturnErrorResponse() {
         // Given
         testRequest.setEngine("vllm");
         when(vllmService.generate(eq(testRequest), anyLong()))
-                .thenThrow(new RuntimeException("Service unavailable"));
+                .thenReturn(Mono.error(new RuntimeException("Service unavailable")));
 
         // When
-        LLMResponse actualResponse = llmService.generateResponse(testRequest);
+        LLMResponse actualResponse = llmService.generateResponse(testRequest).block();
 
         // Then
         assertNotNull(actualResponse);
@@ -142,10 +258,10 @@ class LLMServiceTest {
                 .responseTimeMs(1000L)
                 .build();
 
-        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(successResponse);
+        when(vllmService.generate(eq(testRequest), anyLong())).thenReturn(Mono.just(successResponse));
 
         // When
-        llmService.generateResponse(testRequest);
+        llmService.generateResponse(testRequest).block();
 
         // Then
         verify(loggingService, times(1)).logLLMRequest(
@@ -153,19 +269,71 @@ class LLMServiceTest {
                 eq("Test prompt"),
                 eq("Success response"),
                 eq(1000L),
-                eq(true)
+                eq(true),
+                any(RequestTimings.class)
         );
     }
 
+    @Test
+    void generateResponse_ShouldRecordStatsForSuccessAndFailure() {
+        // Given
+        LLMResponse successResponse = LLMResponse.builder()
+                .text("Success response")
+                .engine("vllm")
+                .success(true)
+                .responseTimeMs(1000L)
+                .build();
+        when(vllmService.generate(eq(testRequest), anyLong()))
+                .thenReturn(Mono.just(successResponse))
+                .thenReturn(Mono.error(new RuntimeException("Service error")));
+
+        // When
+        llmService.generateResponse(testRequest).block();
+        llmService.generateResponse(testRequest).block();
+
+        // Then
+        verify(statsAggregator).record("vllm", 1000L, true);
+        verify(statsAggregator).record(eq("vllm"), anyLong(), eq(false));
+        assertEquals(1, meterRegistry.get("llm.request.duration")
+                .tags("engine", "vllm", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("llm.request.duration")
+                .tags("engine", "vllm", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void generateResponse_WithCachedResponse_ShouldRecordCachedOutcomeOnly() {
+        // Given
+        LLMResponse cachedResponse = LLMResponse.builder()
+                .text("Cached response")
+                .engine("vllm")
+                .success(true)
+                .cached(true)
+                .responseTimeMs(0L)
+                .build();
+        when(responseCache.isEligible("vllm", testRequest)).thenReturn(true);
+        when(responseCache.getOrLoad(eq("vllm"), eq(testRequest), anyLong(), any())).thenReturn(Mono.just(cachedResponse));
+
+        // When
+        LLMResponse actualResponse = llmService.generateResponse(testRequest).block();
+
+        // Then - 엔진 응답 시간 통계와 요청 로그에는 넣지 않는다
+        assertNotNull(actualResponse);
+        assertTrue(actualResponse.isCached());
+        verifyNoInteractions(statsAggregator, loggingService);
+        assertEquals(1, meterRegistry.get("llm.request.duration")
+                .tags("engine", "vllm", "outcome", "cached").timer().count());
+        assertNull(meterRegistry.find("llm.request.duration").tags("outcome", "success").timer());
+    }
+
     @Test
     void generateResponse_WithLoggingService_ShouldLogFailedRequest() {
         // Given
         testRequest.setEngine("vllm");
         when(vllmService.generate(eq(testRequest), anyLong()))
-                .thenThrow(new RuntimeException("Service error"));
+                .thenReturn(Mono.error(new RuntimeException("Service error")));
 
         // When
-        llmService.generateResponse(testRequest);
+        llmService.generateResponse(testRequest).block();
 
         // Then
         verify(loggingService, times(1)).logLLMRequest(
@@ -173,7 +341,48 @@ class LLMServiceTest {
                 eq("Test prompt"),
                 eq(null),
                 anyLong(),
-                eq(false)
+                eq(false),
+                any(RequestTimings.class)
         );
     }
+
+    @Test
+    void generateStream_ShouldEmitDeltasThenDoneChunk() {
+        // Given
+        testRequest.setEngine("vllm");
+        when(vllmService.generateStream(testRequest)).thenReturn(Flux.just("Hel", "lo"));
+
+        // When
+        List<LLMStreamChunk> chunks = llmService.generateStream(testRequest).collectList().block();
+
+        // Then
+        assertNotNull(chunks);
+        assertEquals(3, chunks.size());
+        assertEquals("Hel", chunks.get(0).getText());
+        assertEquals("lo", chunks.get(1).getText());
+        assertEquals(1, chunks.get(1).getIndex());
+        assertTrue(chunks.get(2).isDone());
+        assertNull(chunks.get(2).getError());
+        verify(loggingService, times(1)).logLLMRequest(
+                eq("vllm"), eq("Test prompt"), eq("Hello"), anyLong(), eq(true), any(RequestTimings.class));
+    }
+
+    @Test
+    void generateStream_WithUpstreamError_ShouldEndWithErrorChunk() {
+        // Given
+        testRequest.setEngine("sglang");
+        when(sglangService.generateStream(testRequest))
+                .thenReturn(Flux.concat(Flux.just("partial"), Flux.error(new RuntimeException("stream broken"))));
+
+        // When
+        List<LLMStreamChunk> chunks = llmService.generateStream(testRequest).collectList().block();
+
+        // Then
+        assertNotNull(chunks);
+        assertEquals(2, chunks.size());
+        LLMStreamChunk last = chunks.get(1);
+        assertTrue(last.isDone());
+        assertTrue(last.getError().contains("stream broken"));
+        verify(vllmService, never()).generateStream(any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.example.simple.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile_BelowLinearLimit_ShouldBeExact() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+
+        // When & Then
+        assertEquals(50, histogram.getTotalCount());
+        assertEquals(25, histogram.percentile(0.50));
+        assertEquals(50, histogram.percentile(1.0));
+    }
+
+    @Test
+    void percentile_ShouldStayWithinRelativeError() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+
+        // When & Then - 버킷 상한을 돌려주므로 실제 값 이상, 약 3% 이내
+        for (double percentile : new double[]{0.50, 0.95, 0.99}) {
+            long expected = (long) (percentile * 10_000);
+            long actual = histogram.percentile(percentile);
+            assertTrue(actual >= expected, percentile + ": " + actual);
+            assertTrue(actual <= expected * 1.04, percentile + ": " + actual);
+        }
+    }
+
+    @Test
+    void bucketIndex_ShouldBeMonotonicAndCoverTrackableRange() {
+        int previous = -1;
+        for (long millis = 0; millis <= LatencyHistogram.MAX_TRACKABLE_MILLIS; millis += 7) {
+            int index = LatencyHistogram.bucketIndex(millis);
+            assertTrue(index >= previous);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= millis);
+            previous = index;
+        }
+        assertTrue(previous < LatencyHistogram.BUCKET_COUNT);
+    }
+
+    @Test
+    void add_ShouldMergeCounts() {
+        // Given
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(5000);
+        }
+
+        // When
+        LatencyHistogram merged = new LatencyHistogram();
+        merged.add(fast);
+        merged.add(slow);
+
+        // Then
+        assertEquals(100, merged.getTotalCount());
+        assertEquals(10, merged.percentile(0.50));
+        assertTrue(merged.percentile(0.95) >= 5000);
+    }
+
+    @Test
+    void record_ShouldClampOutOfRangeValues() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        // Then
+        assertEquals(0, histogram.percentile(0.5));
+        assertTrue(histogram.percentile(1.0) >= LatencyHistogram.MAX_TRACKABLE_MILLIS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.example.simple.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogBodyStoreTest {
+
+    private static final String SYSTEM_PROMPT = "You are a helpful assistant. ".repeat(50);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LogBodyStore bodyStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bodyStore = new LogBodyStore(jdbcTemplate, 1000, Duration.ofDays(30), meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void store_ShouldWriteEachDistinctBodyOnceAndReferenceByHash() {
+        // Given - 같은 프롬프트가 두 번, 실패 요청은 응답이 없다
+        List<Object[]> batch = List.of(
+                row("vllm", SYSTEM_PROMPT, "answer", true),
+                row("sglang", SYSTEM_PROMPT, null, false));
+        ArgumentCaptor<List<Object[]>> bodies = ArgumentCaptor.forClass(List.class);
+
+        // When
+        List<Object[]> rows = bodyStore.store(batch);
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), bodies.capture());
+        assertEquals(2, bodies.getValue().size());
+        String promptHash = hash(SYSTEM_PROMPT);
+        assertArrayEquals(new Object[]{"vllm", promptHash, hash("answer"), 100L, 1},
+                Arrays.copyOfRange(rows.get(0), 1, 6));
+        assertArrayEquals(new Object[]{"sglang", promptHash, null, 100L, 0}, Arrays.copyOfRange(rows.get(1), 1, 6));
+        assertSame(batch.get(0)[0], rows.get(0)[0]);
+        assertEquals(1, meterRegistry.find("llm.log.body.deduplicated").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void store_ShouldCompressBodiesReversibly() {
+        // Given
+        ArgumentCaptor<List<Object[]>> bodies = ArgumentCaptor.forClass(List.class);
+
+        // When
+        bodyStore.store(List.of(row("vllm", SYSTEM_PROMPT, null, true)));
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), bodies.capture());
+        Object[] body = bodies.getValue().get(0);
+        byte[] compressed = (byte[]) body[2];
+        assertEquals(SYSTEM_PROMPT.length(), body[1]);
+        assertTrue(compressed.length < SYSTEM_PROMPT.length() / 10);
+        assertEquals(SYSTEM_PROMPT, LogBodyStore.decompress(compressed));
+        assertEquals(compressed.length, meterRegistry.find("llm.log.body.bytes").tag("kind", "compressed")
+                .counter().count());
+    }
+
+    @Test
+    void store_WhenBodyWasStoredBefore_ShouldSkipMerge() {
+        // Given
+        bodyStore.store(List.of(row("vllm", SYSTEM_PROMPT, "answer", true)));
+
+        // When
+        List<Object[]> rows = bodyStore.store(List.of(row("vllm", SYSTEM_PROMPT, "answer", true)));
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), anyList());
+        assertEquals(hash(SYSTEM_PROMPT), rows.get(0)[2]);
+        assertEquals(2, meterRegistry.find("llm.log.body.stored").counter().count());
+        assertEquals(2, meterRegistry.find("llm.log.body.deduplicated").counter().count());
+    }
+
+    @Test
+    void store_WhenAnotherInstanceInsertedSameBody_ShouldRetryMerge() {
+        // Given
+        when(jdbcTemplate.batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), anyList()))
+                .thenThrow(new DuplicateKeyException("PK_LLM_LOG_BODIES"))
+                .thenReturn(new int[]{0});
+
+        // When
+        List<Object[]> rows = bodyStore.store(List.of(row("vllm", SYSTEM_PROMPT, null, true)));
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), anyList());
+        assertEquals(1, rows.size());
+    }
+
+    @Test
+    void store_WhenBodyWriteFails_ShouldNotRememberHashes() {
+        // Given
+        when(jdbcTemplate.batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), anyList()))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(new int[]{1});
+        assertThrows(IllegalStateException.class,
+                () -> bodyStore.store(List.of(row("vllm", SYSTEM_PROMPT, null, true))));
+
+        // When
+        bodyStore.store(List.of(row("vllm", SYSTEM_PROMPT, null, true)));
+
+        // Then - 다음 배치에서 다시 저장한다
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), anyList());
+    }
+
+    @Test
+    void sha256Hex_ShouldMatchReferenceDigest() {
+        assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+                LogBodyStore.sha256Hex("hello".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(64, hash(SYSTEM_PROMPT).length());
+    }
+
+    private static String hash(String body) {
+        return LogBodyStore.sha256Hex(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] row(String engine, String prompt, String response, boolean success) {
+        return new Object[]{new Timestamp(System.currentTimeMillis()), engine, prompt, response, 100L, success ? 1 : 0};
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogRetentionServiceTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 3, 10, 12, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LogRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        retentionService = new LogRetentionService(new LLMConfig(), jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void purge_OnPartitionedOracleTable_ShouldDropOnlyPartitionsEntirelyBeforeCutoff() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("Oracle");
+        when(jdbcTemplate.query(eq(LogRetentionService.PARTITIONS_SQL), any(RowMapper.class))).thenReturn(List.of(
+                new LogRetentionService.Partition("P_INITIAL", 1, "TIMESTAMP' 2024-01-01 00:00:00'"),
+                new LogRetentionService.Partition("SYS_P101", 2, "TIMESTAMP' 2024-03-09 00:00:00'"),
+                new LogRetentionService.Partition("SYS_P102", 3, "TIMESTAMP' 2024-03-10 00:00:00'"),
+                // 기준 시각 이후의 행이 섞인 파티션은 남긴다
+                new LogRetentionService.Partition("SYS_P103", 4, "TIMESTAMP' 2024-03-11 00:00:00'")));
+
+        // When
+        retentionService.purge(CUTOFF);
+
+        // Then
+        verify(jdbcTemplate).execute("ALTER TABLE LLM_LOGS DROP PARTITION SYS_P101");
+        verify(jdbcTemplate).execute("ALTER TABLE LLM_LOGS DROP PARTITION SYS_P102");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE LLM_LOGS DROP PARTITION SYS_P103");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE LLM_LOGS DROP PARTITION P_INITIAL");
+        verify(jdbcTemplate, never()).update(eq(LogRetentionService.DELETE_SQL), any(Timestamp.class));
+        // inline 저장 (기본값) 이면 본문 테이블은 건드리지 않는다
+        verify(jdbcTemplate, never()).update(eq(LogRetentionService.DELETE_ORPHAN_BODIES_SQL), any(Timestamp.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void purge_OnUnpartitionedOracleTable_ShouldFallBackToDelete() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("Oracle");
+        when(jdbcTemplate.query(eq(LogRetentionService.PARTITIONS_SQL), any(RowMapper.class))).thenReturn(List.of());
+
+        // When
+        retentionService.purge(CUTOFF);
+
+        // Then
+        verify(jdbcTemplate).update(LogRetentionService.DELETE_SQL, Timestamp.valueOf(CUTOFF));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void purge_OnH2_ShouldDeleteRowsBeforeCutoff() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        // When
+        retentionService.purge(CUTOFF);
+
+        // Then
+        verify(jdbcTemplate).update(LogRetentionService.DELETE_SQL, Timestamp.valueOf(CUTOFF));
+        verify(jdbcTemplate, never()).query(eq(LogRetentionService.PARTITIONS_SQL), any(RowMapper.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void purge_WithDedupBodyStorage_ShouldDeleteUnreferencedBodiesAfterLogs() {
+        // Given
+        LLMConfig llmConfig = new LLMConfig();
+        llmConfig.getRequestLog().setBodyStorage("dedup");
+        LogRetentionService dedupRetention = new LogRetentionService(llmConfig, jdbcTemplate);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        // When
+        dedupRetention.purge(CUTOFF);
+
+        // Then - 로그를 먼저 지우고, 남은 로그가 참조하지 않는 본문을 지운다
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(LogRetentionService.DELETE_SQL, Timestamp.valueOf(CUTOFF));
+        order.verify(jdbcTemplate).update(LogRetentionService.DELETE_ORPHAN_BODIES_SQL, Timestamp.valueOf(CUTOFF));
+    }
+
+    @Test
+    void parseHighValue_ShouldReadOracleTimestampLiteral() {
+        assertEquals(LocalDateTime.of(2024, 3, 9, 0, 0),
+                LogRetentionService.parseHighValue("TIMESTAMP' 2024-03-09 00:00:00'"));
+        assertNull(LogRetentionService.parseHighValue("MAXVALUE"));
+        assertNull(LogRetentionService.parseHighValue(null));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoggingServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StatsRollupService rollupService;
+
+    private LLMConfig llmConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private LoggingService loggingService;
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        llmConfig.getRequestLog().setBatchSize(100);
+        llmConfig.getRequestLog().setQueueCapacity(10);
+        // 테스트에서는 주기적 flush 대신 직접 flush 한다
+        llmConfig.getRequestLog().setFlushInterval(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        loggingService = new LoggingService(llmConfig, meterRegistry, jdbcTemplate, null);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        loggingService.destroy();
+    }
+
+    @Test
+    void logLLMRequest_ShouldOnlyEnqueueOnCallerThread() {
+        // When
+        loggingService.logLLMRequest("vllm", "prompt", "response", 100L, true);
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(1, loggingService.getQueueDepth());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteQueuedRowsInOneBatch() {
+        // Given
+        loggingService.logLLMRequest("vllm", "p1", "r1", 100L, true);
+        loggingService.logLLMRequest("sglang", "p2", null, 200L, false);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+
+        // When
+        loggingService.flush();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(eq(LoggingService.INSERT_SQL), rows.capture());
+        List<Object[]> batch = rows.getValue();
+        assertEquals(2, batch.size());
+        assertTrue(batch.get(0)[0] instanceof Timestamp);
+        assertArrayEquals(new Object[]{"vllm", "p1", "r1", 100L, 1}, Arrays.copyOfRange(batch.get(0), 1, 6));
+        assertArrayEquals(new Object[]{"sglang", "p2", null, 200L, 0}, Arrays.copyOfRange(batch.get(1), 1, 6));
+        assertEquals(0, loggingService.getQueueDepth());
+        assertEquals(2, loggingService.getWritten());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWritePhaseTimingsAsMicros() {
+        // Given
+        RequestTimings timings = RequestTimings.start();
+        timings.add(RequestTimings.Phase.QUEUE, 3_000_000L);
+        timings.add(RequestTimings.Phase.UPSTREAM, 800_000_000L);
+        loggingService.logLLMRequest("vllm", "p", "r", 805L, true, timings);
+        // 기록 뒤에 더한 구간은 남지 않는다
+        timings.add(RequestTimings.Phase.PARSE, 1_000_000L);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+
+        // When
+        loggingService.flush();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(eq(LoggingService.INSERT_SQL), rows.capture());
+        assertArrayEquals(new Object[]{null, null, 3_000L, null, null, 800_000L, null, null},
+                Arrays.copyOfRange(rows.getValue().get(0), 6, 14));
+    }
+
+    @Test
+    void logLLMRequest_WhenBatchIsFull_ShouldFlushInBackground() {
+        // Given
+        llmConfig.getRequestLog().setBatchSize(3);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            loggingService.logLLMRequest("vllm", "p" + i, "r" + i, 100L, true);
+        }
+
+        // Then
+        verify(jdbcTemplate, timeout(1000)).batchUpdate(eq(LoggingService.INSERT_SQL), anyList());
+    }
+
+    @Test
+    void logLLMRequest_WhenQueueIsFull_ShouldDropAndCount() {
+        // When
+        for (int i = 0; i < 15; i++) {
+            loggingService.logLLMRequest("vllm", "p" + i, "r" + i, 100L, true);
+        }
+
+        // Then
+        assertEquals(10, loggingService.getQueueDepth());
+        assertEquals(5, meterRegistry.find("llm.log.dropped").tag("reason", "overflow").counter().count());
+    }
+
+    @Test
+    void logLLMRequest_WithSamplePolicy_ShouldKeepFailuresAndSampleSuccessesAboveWatermark() {
+        // Given - 5건부터 성공 기록은 2건 중 1건만
+        llmConfig.getRequestLog().setOverflowPolicy("sample");
+        llmConfig.getRequestLog().setSampleHighWatermark(0.5);
+        llmConfig.getRequestLog().setSampleRate(2);
+        for (int i = 0; i < 5; i++) {
+            loggingService.logLLMRequest("vllm", "p" + i, "r" + i, 100L, true);
+        }
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            loggingService.logLLMRequest("vllm", "s" + i, "r" + i, 100L, true);
+        }
+        loggingService.logLLMRequest("vllm", "failed", null, 100L, false);
+
+        // Then
+        assertEquals(5 + 2 + 1, loggingService.getQueueDepth());
+        assertEquals(2, meterRegistry.find("llm.log.dropped").tag("reason", "sampled").counter().count());
+    }
+
+    @Test
+    void flush_WhenDatabaseFails_ShouldDropBatchWithoutThrowing() {
+        // Given
+        when(jdbcTemplate.batchUpdate(eq(LoggingService.INSERT_SQL), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        loggingService.logLLMRequest("vllm", "p", "r", 100L, true);
+
+        // When
+        assertDoesNotThrow(() -> loggingService.flush());
+
+        // Then
+        assertEquals(0, loggingService.getQueueDepth());
+        assertEquals(1, meterRegistry.find("llm.log.dropped").tag("reason", "write_failed").counter().count());
+    }
+
+    @Test
+    void flush_WithRollup_ShouldApplyWrittenBatchToRollup() throws InterruptedException {
+        // Given
+        useRollup();
+        loggingService.logLLMRequest("vllm", "p", "r", 100L, true);
+
+        // When
+        loggingService.flush();
+
+        // Then
+        verify(rollupService).apply(argThat(batch -> batch.size() == 1));
+    }
+
+    @Test
+    void flush_WhenRollupFails_ShouldKeepWrittenRows() throws InterruptedException {
+        // Given
+        useRollup();
+        doThrow(new DataAccessResourceFailureException("deadlock")).when(rollupService).apply(anyList());
+        loggingService.logLLMRequest("vllm", "p", "r", 100L, true);
+
+        // When
+        assertDoesNotThrow(() -> loggingService.flush());
+
+        // Then
+        assertEquals(1, loggingService.getWritten());
+        assertEquals(1, meterRegistry.find("llm.log.rollup.failed").counter().count());
+    }
+
+    @Test
+    void flush_WhenDatabaseFails_ShouldNotApplyRollup() throws InterruptedException {
+        // Given
+        useRollup();
+        when(jdbcTemplate.batchUpdate(eq(LoggingService.INSERT_SQL), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        loggingService.logLLMRequest("vllm", "p", "r", 100L, true);
+
+        // When
+        loggingService.flush();
+
+        // Then
+        verify(rollupService, never()).apply(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WithDedupBodyStorage_ShouldWriteHashReferencesInsteadOfBodies() throws InterruptedException {
+        // Given
+        llmConfig.getRequestLog().setBodyStorage("dedup");
+        loggingService.destroy();
+        loggingService = new LoggingService(llmConfig, meterRegistry, jdbcTemplate, null);
+        loggingService.logLLMRequest("vllm", "p", "r", 100L, true);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+
+        // When
+        loggingService.flush();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(eq(LogBodyStore.MERGE_BODY_SQL), anyList());
+        verify(jdbcTemplate).batchUpdate(eq(LogBodyStore.INSERT_LOG_SQL), rows.capture());
+        assertArrayEquals(new Object[]{"vllm", LogBodyStore.sha256Hex("p".getBytes(StandardCharsets.UTF_8)),
+                        LogBodyStore.sha256Hex("r".getBytes(StandardCharsets.UTF_8)), 100L, 1},
+                Arrays.copyOfRange(rows.getValue().get(0), 1, 6));
+        assertEquals(1, loggingService.getWritten());
+    }
+
+    @Test
+    void destroy_ShouldWriteRemainingRows() throws InterruptedException {
+        // Given
+        loggingService.logLLMRequest("vllm", "p", "r", 100L, true);
+
+        // When
+        loggingService.destroy();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(eq(LoggingService.INSERT_SQL), anyList());
+    }
+
+    private void useRollup() throws InterruptedException {
+        when(rollupService.isEnabled()).thenReturn(true);
+        loggingService.destroy();
+        loggingService = new LoggingService(llmConfig, meterRegistry, jdbcTemplate, rollupService);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaPoolTest {
+
+    private LLMConfig.LoadBalancingConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new LLMConfig.LoadBalancingConfig();
+        config.setEjectionMinSamples(5);
+        config.setEjectionFactor(3.0);
+        config.setEjectionDuration(Duration.ofSeconds(30));
+        config.setEjectionCheckInterval(Duration.ofHours(1));
+    }
+
+    @Test
+    void choose_WithLeastOutstanding_ShouldPickIdleReplica() {
+        // Given
+        config.setStrategy("least-outstanding");
+        EngineReplica busy = replica("vllm-0");
+        EngineReplica idle = replica("vllm-1");
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(busy, idle), config);
+        Disposable inFlight = busy.track(Mono.never()).subscribe();
+
+        // When & Then
+        for (int i = 0; i < 20; i++) {
+            assertSame(idle, pool.choose());
+        }
+        inFlight.dispose();
+        assertEquals(0, busy.getOutstanding());
+    }
+
+    @Test
+    void choose_WithPowerOfTwoChoices_ShouldPreferLowerCost() {
+        // Given
+        EngineReplica slow = replica("vllm-0");
+        EngineReplica fast = replica("vllm-1");
+        record(slow, 200, 5);
+        record(fast, 20, 5);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(slow, fast), config);
+
+        // When & Then - 복제본이 둘이면 P2C 는 항상 두 후보를 비교한다
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, pool.choose());
+        }
+    }
+
+    @Test
+    void checkEjections_ShouldEjectSlowReplicaAndReadmitAfterDuration() {
+        // Given
+        EngineReplica a = replica("vllm-0");
+        EngineReplica b = replica("vllm-1");
+        EngineReplica slow = replica("vllm-2");
+        record(a, 10, 5);
+        record(b, 12, 5);
+        record(slow, 100, 5);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(a, b, slow), config);
+        long now = System.nanoTime();
+
+        // When
+        pool.checkEjections(now);
+
+        // Then
+        assertTrue(slow.isEjected(now));
+        assertFalse(a.isEjected(now));
+        assertEquals(1, slow.getEjections());
+        for (int i = 0; i < 20; i++) {
+            assertNotSame(slow, pool.choose());
+        }
+
+        // When - 제외 기간이 지나면 중앙값 EWMA 로 재투입된다
+        long later = now + Duration.ofSeconds(30).toNanos();
+        pool.checkEjections(later);
+
+        // Then
+        assertFalse(slow.isEjected(later));
+        assertEquals(10.0, slow.ewmaMillis(), 0.001);
+    }
+
+    @Test
+    void checkEjections_ShouldRespectMaxEjectionPercent() {
+        // Given
+        config.setMaxEjectionPercent(25);
+        EngineReplica a = replica("vllm-0");
+        EngineReplica b = replica("vllm-1");
+        EngineReplica slow1 = replica("vllm-2");
+        EngineReplica slow2 = replica("vllm-3");
+        record(a, 10, 5);
+        record(b, 10, 5);
+        record(slow1, 100, 5);
+        record(slow2, 100, 5);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(a, b, slow1, slow2), config);
+        long now = System.nanoTime();
+
+        // When
+        pool.checkEjections(now);
+
+        // Then
+        int ejected = (slow1.isEjected(now) ? 1 : 0) + (slow2.isEjected(now) ? 1 : 0);
+        assertEquals(1, ejected);
+    }
+
+    @Test
+    void checkEjections_WithTooFewSamples_ShouldNotEject() {
+        // Given
+        EngineReplica a = replica("vllm-0");
+        EngineReplica slow = replica("vllm-1");
+        record(a, 10, 5);
+        record(slow, 100, 2);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(a, slow), config);
+        long now = System.nanoTime();
+
+        // When
+        pool.checkEjections(now);
+
+        // Then
+        assertFalse(slow.isEjected(now));
+    }
+
+    @Test
+    void choosePrompt_WithSamePrefix_ShouldStickToSameReplica() {
+        // Given
+        config.getAffinity().setPrefixLength(16);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(replica("vllm-0"), replica("vllm-1"), replica("vllm-2")), config);
+        String systemPrompt = "You are a helpful assistant.";
+
+        // When
+        EngineReplica first = pool.choose(systemPrompt + " 질문 1");
+
+        // Then - prefixLength 이후가 달라도 같은 복제본
+        for (int i = 2; i < 20; i++) {
+            assertSame(first, pool.choose(systemPrompt + " 질문 " + i));
+        }
+        assertEquals(18, first.getAffinityHits());
+        assertEquals(1, first.getAffinityMisses());
+        assertEquals(1, pool.affinityEntries());
+    }
+
+    @Test
+    void choosePrompt_WhenPreferredOverloaded_ShouldFallBackWithoutRebinding() {
+        // Given
+        config.setStrategy("least-outstanding");
+        config.getAffinity().setMaxOutstandingGap(1);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(replica("vllm-0"), replica("vllm-1")), config);
+        EngineReplica preferred = pool.choose("shared prefix");
+        Disposable inFlight = Flux.range(0, 2)
+                .flatMap(i -> preferred.track(Mono.never()))
+                .subscribe();
+
+        // When
+        EngineReplica fallback = pool.choose("shared prefix");
+
+        // Then
+        assertNotSame(preferred, fallback);
+        inFlight.dispose();
+        assertSame(preferred, pool.choose("shared prefix"));
+    }
+
+    @Test
+    void choosePrompt_WhenPreferredEjected_ShouldRebind() {
+        // Given
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(replica("vllm-0"), replica("vllm-1")), config);
+        EngineReplica preferred = pool.choose("shared prefix");
+        preferred.eject(System.nanoTime(), Duration.ofMinutes(1).toNanos());
+
+        // When
+        EngineReplica rebound = pool.choose("shared prefix");
+
+        // Then
+        assertNotSame(preferred, rebound);
+        assertSame(rebound, pool.choose("shared prefix"));
+    }
+
+    @Test
+    void choosePrompt_WithAffinityDisabled_ShouldNotTrackPrefixes() {
+        // Given
+        config.getAffinity().setEnabled(false);
+        ReplicaPool pool = new ReplicaPool("vllm", List.of(replica("vllm-0"), replica("vllm-1")), config);
+
+        // When
+        pool.choose("shared prefix");
+
+        // Then
+        assertEquals(0, pool.affinityEntries());
+    }
+
+    private EngineReplica replica(String id) {
+        return new EngineReplica("vllm", id, "http://" + id + ":8000", null, 0.3);
+    }
+
+    private void record(EngineReplica replica, double millis, int samples) {
+        for (int i = 0; i < samples; i++) {
+            replica.recordLatency(millis);
+        }
+    }
+}
\ No newline at end of file
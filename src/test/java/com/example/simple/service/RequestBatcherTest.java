@@ -0,0 +1,182 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import com.example.simple.dto.LLMResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RequestBatcherTest {
+
+    @Mock
+    private VllmService vllmService;
+
+    @Mock
+    private SglangService sglangService;
+
+    private LLMConfig llmConfig;
+    private RequestBatcher requestBatcher;
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        llmConfig.getBatching().setEnabled(true);
+        llmConfig.getBatching().setMaxBatchSize(2);
+        llmConfig.getBatching().setMaxWait(Duration.ofSeconds(5));
+        requestBatcher = new RequestBatcher(llmConfig, vllmService, sglangService);
+    }
+
+    @Test
+    void submit_WhenBatchIsFull_ShouldSendOneUpstreamCallAndFanOut() {
+        // Given
+        when(vllmService.generateBatch(Arrays.asList("first", "second"), 100, 0.0))
+                .thenReturn(Mono.just(Arrays.asList("one", "two")));
+
+        // When
+        Tuple2<LLMResponse, LLMResponse> responses = Mono.zip(
+                requestBatcher.submit("vllm", request("first", 0.0), System.currentTimeMillis()),
+                requestBatcher.submit("vllm", request("second", 0.0), System.currentTimeMillis()))
+                .block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(responses);
+        assertEquals("one", responses.getT1().getText());
+        assertEquals("two", responses.getT2().getText());
+        assertEquals("vllm", responses.getT1().getEngine());
+        assertTrue(responses.getT2().isSuccess());
+        verify(vllmService, times(1)).generateBatch(anyList(), anyInt(), anyDouble());
+        verify(vllmService, never()).generate(any(), anyLong());
+    }
+
+    @Test
+    void submit_WithSingleRequestAfterWindow_ShouldUseSingleCall() {
+        // Given
+        llmConfig.getBatching().setMaxWait(Duration.ofMillis(20));
+        when(sglangService.generate(any(), anyLong())).thenReturn(Mono.just(LLMResponse.builder()
+                .text("alone")
+                .engine("sglang")
+                .success(true)
+                .build()));
+
+        // When
+        LLMResponse response = requestBatcher.submit("sglang", request("only", 0.7), System.currentTimeMillis())
+                .block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(response);
+        assertEquals("alone", response.getText());
+        verify(sglangService, never()).generateBatch(anyList(), anyInt(), anyDouble());
+    }
+
+    @Test
+    void submit_WithDifferentTemperature_ShouldNotShareBatch() {
+        // Given
+        llmConfig.getBatching().setMaxWait(Duration.ofMillis(20));
+        when(vllmService.generate(any(), anyLong())).thenAnswer(invocation -> {
+            LLMRequest request = invocation.getArgument(0);
+            return Mono.just(LLMResponse.builder().text(request.getPrompt() + "!").engine("vllm").success(true).build());
+        });
+
+        // When
+        LLMResponse first = requestBatcher.submit("vllm", request("a", 0.0), System.currentTimeMillis())
+                .zipWith(requestBatcher.submit("vllm", request("b", 1.0), System.currentTimeMillis()),
+                        (a, b) -> a)
+                .block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(first);
+        assertEquals("a!", first.getText());
+        verify(vllmService, times(2)).generate(any(), anyLong());
+        verify(vllmService, never()).generateBatch(anyList(), anyInt(), anyDouble());
+    }
+
+    @Test
+    void submit_WhenBatchCallFails_ShouldFailAllCallers() {
+        // Given
+        when(vllmService.generateBatch(anyList(), eq(100), eq(0.0)))
+                .thenReturn(Mono.error(new RuntimeException("vLLM 배치 호출 실패: boom")));
+
+        // When
+        Mono<LLMResponse> first = requestBatcher.submit("vllm", request("first", 0.0), System.currentTimeMillis());
+        Mono<LLMResponse> second = requestBatcher.submit("vllm", request("second", 0.0), System.currentTimeMillis());
+
+        // Then
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> Mono.zip(first, second).block(Duration.ofSeconds(2)));
+        assertTrue(e.getMessage().contains("boom"));
+    }
+
+    @Test
+    void submit_WhenCallerCancelledBeforeSend_ShouldDropItAndKeepRemainingCallersContext() {
+        // Given
+        when(vllmService.generate(any(), anyLong())).thenAnswer(invocation -> {
+            LLMRequest request = invocation.getArgument(0);
+            return Mono.subscriberContext().map(context -> LLMResponse.builder()
+                    .text(request.getPrompt() + ":" + context.getOrDefault(EngineReplicaPools.BYPASS_AFFINITY, false))
+                    .engine("vllm")
+                    .success(true)
+                    .build());
+        });
+
+        // When - 첫 요청은 배치가 차기 전에 취소된다
+        requestBatcher.submit("vllm", request("cancelled", 0.0), System.currentTimeMillis())
+                .subscribe()
+                .dispose();
+        LLMResponse response = requestBatcher.submit("vllm", request("kept", 0.0), System.currentTimeMillis())
+                .subscriberContext(EngineReplicaPools::bypassAffinity)
+                .block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(response);
+        assertEquals("kept:true", response.getText());
+        verify(vllmService, times(1)).generate(any(), anyLong());
+        verify(vllmService, never()).generateBatch(anyList(), anyInt(), anyDouble());
+    }
+
+    @Test
+    void submit_WhenAllCallersCancelAfterSend_ShouldCancelUpstreamCall() {
+        // Given
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        when(vllmService.generateBatch(anyList(), eq(100), eq(0.0)))
+                .thenReturn(Mono.<List<String>>never().doOnCancel(() -> upstreamCancelled.set(true)));
+
+        // When
+        Disposable first = requestBatcher.submit("vllm", request("first", 0.0), System.currentTimeMillis()).subscribe();
+        Disposable second = requestBatcher.submit("vllm", request("second", 0.0), System.currentTimeMillis()).subscribe();
+        first.dispose();
+        assertFalse(upstreamCancelled.get());
+        second.dispose();
+
+        // Then
+        assertTrue(upstreamCancelled.get());
+    }
+
+    private LLMRequest request(String prompt, double temperature) {
+        LLMRequest request = new LLMRequest();
+        request.setPrompt(prompt);
+        request.setMaxTokens(100);
+        request.setTemperature(temperature);
+        return request;
+    }
+}
\ No newline at end of file
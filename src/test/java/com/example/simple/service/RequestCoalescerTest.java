@@ -0,0 +1,131 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import com.example.simple.dto.LLMResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private LLMConfig llmConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer requestCoalescer;
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final Supplier<Mono<LLMResponse>> slowCall = () -> {
+        upstreamCalls.incrementAndGet();
+        return Mono.delay(Duration.ofMillis(100))
+                .map(tick -> LLMResponse.builder().text("shared").engine("vllm").success(true).build());
+    };
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        requestCoalescer = new RequestCoalescer(llmConfig, meterRegistry);
+    }
+
+    @Test
+    void execute_WithConcurrentIdenticalRequests_ShouldShareOneUpstreamCall() {
+        // Given
+        LLMRequest request = request("같은 질문", 0.0);
+
+        // When
+        Tuple2<LLMResponse, LLMResponse> responses = Mono.zip(
+                requestCoalescer.execute("vllm", request, System.currentTimeMillis(), slowCall),
+                requestCoalescer.execute("vllm", request, System.currentTimeMillis(), slowCall))
+                .block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(responses);
+        assertEquals("shared", responses.getT1().getText());
+        assertEquals("shared", responses.getT2().getText());
+        assertNotSame(responses.getT1(), responses.getT2());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1.0, meterRegistry.get("llm.coalescing.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("llm.coalescing.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void execute_AfterCompletion_ShouldStartNewCall() {
+        // Given
+        LLMRequest request = request("같은 질문", 0.0);
+
+        // When
+        requestCoalescer.execute("vllm", request, System.currentTimeMillis(), slowCall).block(Duration.ofSeconds(2));
+        requestCoalescer.execute("vllm", request, System.currentTimeMillis(), slowCall).block(Duration.ofSeconds(2));
+
+        // Then
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0.0, meterRegistry.get("llm.coalescing.inflight").gauge().value());
+    }
+
+    @Test
+    void execute_WithDifferentPrompts_ShouldNotShare() {
+        // When
+        Mono.zip(
+                requestCoalescer.execute("vllm", request("a", 0.0), System.currentTimeMillis(), slowCall),
+                requestCoalescer.execute("vllm", request("b", 0.0), System.currentTimeMillis(), slowCall))
+                .block(Duration.ofSeconds(2));
+
+        // Then
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void execute_WhenUpstreamFails_ShouldPropagateErrorToAllCallers() {
+        // Given
+        LLMRequest request = request("같은 질문", 0.0);
+        Supplier<Mono<LLMResponse>> failingCall = () -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(50)).then(Mono.error(new RuntimeException("boom")));
+        };
+
+        // When
+        Mono<LLMResponse> first = requestCoalescer.execute("vllm", request, System.currentTimeMillis(), failingCall)
+                .onErrorResume(e -> Mono.just(LLMResponse.builder().error(e.getMessage()).build()));
+        Mono<LLMResponse> second = requestCoalescer.execute("vllm", request, System.currentTimeMillis(), failingCall)
+                .onErrorResume(e -> Mono.just(LLMResponse.builder().error(e.getMessage()).build()));
+        Tuple2<LLMResponse, LLMResponse> responses = Mono.zip(first, second).block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(responses);
+        assertEquals("boom", responses.getT1().getError());
+        assertEquals("boom", responses.getT2().getError());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void isEligible_ShouldRequireZeroTemperatureOrOptIn() {
+        assertTrue(requestCoalescer.isEligible("vllm", request("p", 0.0)));
+        assertFalse(requestCoalescer.isEligible("vllm", request("p", 0.7)));
+
+        LLMRequest optIn = request("p", 0.7);
+        optIn.setCoalesce(true);
+        assertTrue(requestCoalescer.isEligible("vllm", optIn));
+
+        // temperature 미지정이면 엔진 기본값(0.7)을 따른다
+        assertFalse(requestCoalescer.isEligible("sglang", request("p", null)));
+
+        llmConfig.getCoalescing().setEnabled(false);
+        assertFalse(requestCoalescer.isEligible("vllm", request("p", 0.0)));
+    }
+
+    private LLMRequest request(String prompt, Double temperature) {
+        LLMRequest request = new LLMRequest();
+        request.setPrompt(prompt);
+        request.setMaxTokens(100);
+        request.setTemperature(temperature);
+        return request;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.example.simple.service;
+
+import com.example.simple.config.EngineWebClients;
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgerTest {
+
+    private LLMConfig llmConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private RequestHedger requestHedger;
+
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        llmConfig.getHedging().setEnabled(true);
+        llmConfig.getHedging().setInitialDelay(Duration.ofMillis(50));
+        llmConfig.getHedging().setMinDelay(Duration.ofMillis(10));
+        meterRegistry = new SimpleMeterRegistry();
+        requestHedger = newHedger();
+    }
+
+    private RequestHedger newHedger() {
+        EngineReplicaPools replicaPools = new EngineReplicaPools(llmConfig, new EngineWebClients(meterRegistry), meterRegistry);
+        return new RequestHedger(llmConfig, meterRegistry, replicaPools);
+    }
+
+    @Test
+    void execute_WithFastPrimary_ShouldNotHedge() {
+        // When
+        LLMResponse response = requestHedger.execute("vllm", engine -> {
+            calls.add(engine);
+            return Mono.just(response(engine));
+        }).block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(response);
+        assertEquals("vllm", response.getEngine());
+        assertEquals(List.of("vllm"), calls);
+    }
+
+    @Test
+    void execute_WithSlowPrimary_ShouldUseHedgeAndCancelPrimary() {
+        // Given
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+        // When
+        LLMResponse response = requestHedger.execute("vllm", engine -> {
+            calls.add(engine);
+            if ("vllm".equals(engine)) {
+                return Mono.delay(Duration.ofSeconds(5))
+                        .map(tick -> response(engine))
+                        .doOnCancel(() -> primaryCancelled.set(true));
+            }
+            return Mono.just(response(engine));
+        }).block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(response);
+        assertEquals("sglang", response.getEngine());
+        assertTrue(primaryCancelled.get());
+        assertEquals(1.0, meterRegistry.get("llm.hedging.issued").tag("engine", "vllm").counter().count());
+        assertEquals(1.0, meterRegistry.get("llm.hedging.won").tag("engine", "vllm").counter().count());
+    }
+
+    @Test
+    void execute_WhenPrimaryFailsBeforeDelay_ShouldFailWithoutHedge() {
+        // When & Then
+        RuntimeException e = assertThrows(RuntimeException.class, () -> requestHedger.execute("vllm", engine -> {
+            calls.add(engine);
+            return Mono.<LLMResponse>error(new RuntimeException("vLLM 호출 실패: down"));
+        }).block(Duration.ofSeconds(2)));
+
+        assertEquals("vLLM 호출 실패: down", e.getMessage());
+        assertEquals(List.of("vllm"), calls);
+    }
+
+    @Test
+    void execute_WhenHedgeFailsAndPrimarySucceeds_ShouldReturnPrimary() {
+        // When
+        LLMResponse response = requestHedger.execute("vllm", engine -> {
+            calls.add(engine);
+            if ("vllm".equals(engine)) {
+                return Mono.delay(Duration.ofMillis(200)).map(tick -> response(engine));
+            }
+            return Mono.error(new RuntimeException("SGLang 호출 실패"));
+        }).block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(response);
+        assertEquals("vllm", response.getEngine());
+        assertEquals(List.of("vllm", "sglang"), calls);
+    }
+
+    @Test
+    void execute_WhenBothFail_ShouldReturnPrimaryError() {
+        // When & Then: 헤지가 먼저 실패해도 primary 의 에러를 돌려준다
+        RuntimeException e = assertThrows(RuntimeException.class, () -> requestHedger.execute("vllm", engine -> {
+            calls.add(engine);
+            if ("vllm".equals(engine)) {
+                return Mono.delay(Duration.ofMillis(200))
+                        .then(Mono.<LLMResponse>error(new RuntimeException("vLLM 호출 실패: timeout")));
+            }
+            return Mono.error(new RuntimeException("SGLang 호출 실패"));
+        }).block(Duration.ofSeconds(2)));
+
+        assertEquals("vLLM 호출 실패: timeout", e.getMessage());
+        assertEquals(List.of("vllm", "sglang"), calls);
+    }
+
+    @Test
+    void hedgeTarget_WithMultipleReplicas_ShouldStayOnSameEngine() {
+        // Given
+        llmConfig.getVllm().setReplicas(List.of("http://vllm-a:8000", "http://vllm-b:8000"));
+        RequestHedger hedger = newHedger();
+
+        // When & Then
+        assertEquals("vllm", hedger.hedgeTarget("vllm"));
+        assertEquals("vllm", hedger.hedgeTarget("sglang"));
+    }
+
+    @Test
+    void hedgeDelay_ShouldFollowObservedPercentile() {
+        // Given: 20건 이상 관측되면 p95 를 사용
+        for (int i = 0; i < 40; i++) {
+            requestHedger.execute("sglang", engine -> Mono.just(response(engine))).block();
+        }
+
+        // Then: 응답이 즉시 오므로 minDelay 로 내려간다
+        assertEquals(Duration.ofMillis(10), requestHedger.hedgeDelay("sglang"));
+        assertEquals(Duration.ofMillis(50), requestHedger.hedgeDelay("vllm"));
+    }
+
+    @Test
+    void hedgeDelay_ShouldCountCancelledPrimariesAsLowerBound() {
+        // Given: 헤지에 져서 취소된 느린 primary 20건 (각 ~50ms 에서 취소) + 즉시 응답 20건
+        llmConfig.getHedging().setMaxHedgeRatio(1.0);
+        RequestHedger hedger = newHedger();
+        for (int i = 0; i < 20; i++) {
+            hedger.execute("vllm", engine -> "vllm".equals(engine)
+                    ? Mono.<LLMResponse>never()
+                    : Mono.just(response(engine))).block(Duration.ofSeconds(2));
+        }
+        for (int i = 0; i < 20; i++) {
+            hedger.execute("vllm", engine -> Mono.just(response(engine))).block();
+        }
+
+        // Then: 취소된 호출이 빠지면 minDelay(10ms) 까지 내려간다
+        assertTrue(hedger.hedgeDelay("vllm").toMillis() >= 40, hedger.hedgeDelay("vllm").toString());
+    }
+
+    @Test
+    void execute_WhenPrimaryWinsAfterHedge_ShouldNotRecordCancelledHedge() {
+        // Given: 복제본이 둘이라 헤지도 같은 엔진(같은 tracker)으로 간다
+        llmConfig.getVllm().setReplicas(List.of("http://vllm-a:8000", "http://vllm-b:8000"));
+        RequestHedger hedger = newHedger();
+
+        // When: 주 요청은 헤지가 나간 뒤(50ms) 150ms 에 성공하고, 헤지는 응답하지 않다가 취소된다
+        LLMResponse response = hedger.execute("vllm", engine -> {
+            calls.add(engine);
+            return calls.size() == 1
+                    ? Mono.delay(Duration.ofMillis(150)).map(tick -> response(engine))
+                    : Mono.never();
+        }).block(Duration.ofSeconds(2));
+
+        // Then: 주 요청의 응답 시간 하나만 남는다 (취소된 헤지의 ~100ms 는 기록하지 않는다)
+        assertNotNull(response);
+        assertEquals(List.of("vllm", "vllm"), calls);
+        assertEquals(1, hedger.tracker("vllm").getSampleCount());
+    }
+
+    @Test
+    void execute_WhenCallerCancels_ShouldNotRecordLatency() {
+        // When: 헤지 지연 전에 호출자가 취소 (클라이언트 연결 끊김, 타임아웃)
+        requestHedger.execute("vllm", engine -> Mono.<LLMResponse>never()).subscribe().dispose();
+
+        // Then
+        assertEquals(0, requestHedger.tracker("vllm").getSampleCount());
+    }
+
+    @Test
+    void latencyTracker_ShouldReportPercentileOfWindow() {
+        LatencyTracker tracker = new LatencyTracker(64, 0.95, 20);
+        assertEquals(-1, tracker.percentileMillis());
+
+        for (int i = 1; i <= 64; i++) {
+            tracker.record(i);
+        }
+
+        // ceil(0.95 * 64) = 61번째 값
+        assertEquals(61, tracker.percentileMillis());
+    }
+
+    private LLMResponse response(String engine) {
+        return LLMResponse.builder().text("ok").engine(engine).success(true).build();
+    }
+}
\ No newline at end of file
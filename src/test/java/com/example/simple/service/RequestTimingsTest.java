@@ -0,0 +1,63 @@
+package com.example.simple.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingsTest {
+
+    @Test
+    void toServerTiming_ShouldListRecordedPhasesInMillisAndTotal() {
+        // Given
+        RequestTimings timings = RequestTimings.start();
+        timings.add(RequestTimings.Phase.QUEUE, Duration.ofMillis(12).toNanos());
+        timings.add(RequestTimings.Phase.UPSTREAM, 812_400_000L);
+        timings.add(RequestTimings.Phase.PARSE, 153_000L);
+        timings.add(RequestTimings.Phase.PARSE, 1_000L);
+
+        // When
+        String header = timings.toServerTiming();
+
+        // Then
+        assertTrue(header.startsWith("queue;dur=12.000, upstream;dur=812.400, parse;dur=0.154, total;dur="), header);
+        assertFalse(header.contains("validate"));
+    }
+
+    @Test
+    void toLogColumns_ShouldUseMicrosAndNullForMissingPhases() {
+        // Given
+        RequestTimings timings = RequestTimings.start();
+        timings.add(RequestTimings.Phase.VALIDATE, 81_000L);
+        timings.add(RequestTimings.Phase.TTFT, Duration.ofMillis(250).toNanos());
+        timings.add(RequestTimings.Phase.LOG, 5_000L);
+
+        // When
+        Object[] columns = timings.toLogColumns();
+
+        // Then - VALIDATE, TOKENIZE, QUEUE, LIMIT, CONNECT, UPSTREAM, TTFT, PARSE
+        assertArrayEquals(new Object[]{81L, null, null, null, null, null, 250_000L, null}, columns);
+    }
+
+    @Test
+    void from_WithoutTimingsInContext_ShouldReturnNoopInstance() {
+        // Given
+        RequestTimings timings = RequestTimings.start();
+
+        // When
+        RequestTimings missing = RequestTimings.from(Context.empty());
+        missing.add(RequestTimings.Phase.UPSTREAM, 1_000_000L);
+        RequestTimings found = Mono.subscriberContext()
+                .map(RequestTimings::from)
+                .subscriberContext(timings::putInto)
+                .block();
+
+        // Then
+        assertSame(RequestTimings.NONE, missing);
+        assertEquals(0, missing.get(RequestTimings.Phase.UPSTREAM));
+        assertSame(timings, found);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import com.example.simple.dto.LLMResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private LLMConfig llmConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache responseCache;
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final Supplier<Mono<LLMResponse>> loader = () -> Mono.fromSupplier(() -> LLMResponse.builder()
+            .text("answer-" + upstreamCalls.incrementAndGet())
+            .engine("vllm")
+            .success(true)
+            .responseTimeMs(500L)
+            .build());
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        responseCache = new ResponseCache(llmConfig, meterRegistry);
+    }
+
+    @Test
+    void getOrLoad_SecondIdenticalRequest_ShouldHitCache() {
+        // Given
+        LLMRequest request = request("분류해줘", 0.0, null);
+
+        // When
+        LLMResponse first = responseCache.getOrLoad("vllm", request, System.currentTimeMillis(), loader).block();
+        LLMResponse second = responseCache.getOrLoad("vllm", request, System.currentTimeMillis(), loader).block();
+
+        // Then
+        assertNotNull(first);
+        assertNotNull(second);
+        assertFalse(first.isCached());
+        assertTrue(second.isCached());
+        assertEquals("answer-1", second.getText());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0.5, meterRegistry.get("llm.response.cache.hit.ratio").gauge().value(), 0.0001);
+        assertTrue(meterRegistry.get("llm.response.cache.memory.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    void getOrLoad_WithDifferentParams_ShouldMiss() {
+        // When
+        responseCache.getOrLoad("vllm", request("p", 0.0, null), System.currentTimeMillis(), loader).block();
+        LLMRequest otherTokens = request("p", 0.0, null);
+        otherTokens.setMaxTokens(10);
+        responseCache.getOrLoad("vllm", otherTokens, System.currentTimeMillis(), loader).block();
+        responseCache.getOrLoad("sglang", request("p", 0.0, null), System.currentTimeMillis(), loader).block();
+
+        // Then
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    @Test
+    void getOrLoad_WithRefresh_ShouldReloadAndOverwrite() {
+        // Given
+        responseCache.getOrLoad("vllm", request("p", 0.0, null), System.currentTimeMillis(), loader).block();
+
+        // When
+        LLMResponse refreshed = responseCache
+                .getOrLoad("vllm", request("p", 0.0, "refresh"), System.currentTimeMillis(), loader).block();
+        LLMResponse cached = responseCache
+                .getOrLoad("vllm", request("p", 0.0, null), System.currentTimeMillis(), loader).block();
+
+        // Then
+        assertNotNull(refreshed);
+        assertFalse(refreshed.isCached());
+        assertNotNull(cached);
+        assertEquals("answer-2", cached.getText());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void getOrLoad_WithFailedResponse_ShouldNotCache() {
+        // Given
+        Supplier<Mono<LLMResponse>> failing = () -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.just(LLMResponse.builder().success(false).error("boom").build());
+        };
+
+        // When
+        responseCache.getOrLoad("vllm", request("p", 0.0, null), System.currentTimeMillis(), failing).block();
+        responseCache.getOrLoad("vllm", request("p", 0.0, null), System.currentTimeMillis(), failing).block();
+
+        // Then
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void isEligible_ShouldRequireZeroTemperatureAndNoBypass() {
+        assertTrue(responseCache.isEligible("vllm", request("p", 0.0, null)));
+        assertFalse(responseCache.isEligible("vllm", request("p", 0.7, null)));
+        assertFalse(responseCache.isEligible("vllm", request("p", 0.0, "bypass")));
+        assertTrue(responseCache.isEligible("vllm", request("p", 0.0, "refresh")));
+
+        llmConfig.getCache().setEnabled(false);
+        assertFalse(responseCache.isEligible("vllm", request("p", 0.0, null)));
+    }
+
+    private LLMRequest request(String prompt, double temperature, String cacheMode) {
+        LLMRequest request = new LLMRequest();
+        request.setPrompt(prompt);
+        request.setTemperature(temperature);
+        request.setCacheMode(cacheMode);
+        return request;
+    }
+}
\ No newline at end of file
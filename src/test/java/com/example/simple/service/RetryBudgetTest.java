@@ -0,0 +1,49 @@
+package com.example.simple.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    @Test
+    void tryAcquire_ShouldStopWhenBucketIsEmpty() {
+        // Given: 시간 기반 적립 없이 용량 2
+        RetryBudget budget = new RetryBudget(0.5, 0.0, 2);
+
+        // When & Then
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void recordRequest_ShouldDepositRatioPerRequest() {
+        // Given
+        RetryBudget budget = new RetryBudget(0.5, 0.0, 2);
+        budget.tryAcquire();
+        budget.tryAcquire();
+
+        // When: 요청 2건 = 토큰 1개
+        budget.recordRequest();
+        budget.recordRequest();
+
+        // Then
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void recordRequest_ShouldNotExceedCapacity() {
+        // Given
+        RetryBudget budget = new RetryBudget(1.0, 0.0, 3);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            budget.recordRequest();
+        }
+
+        // Then
+        assertEquals(3.0, budget.available(), 0.0001);
+    }
+}
\ No newline at end of file
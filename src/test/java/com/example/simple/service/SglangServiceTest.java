@@ -4,14 +4,23 @@ import com.example.simple.config.LLMConfig;
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,7 +33,10 @@ class SglangServiceTest {
     private LLMConfig llmConfig;
 
     @Mock
-    private WebClient.Builder webClientBuilder;
+    private EngineReplicaPools replicaPools;
+
+    @Mock
+    private EngineConcurrencyLimiters concurrencyLimiters;
 
     @Mock
     private WebClient webClient;
@@ -38,8 +50,16 @@ class SglangServiceTest {
     @Mock
     private WebClient.ResponseSpec responseSpec;
 
-    @Mock
-    private ObjectMapper objectMapper;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private UpstreamRequestEncoder requestEncoder = new UpstreamRequestEncoder(new ObjectMapper());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private LLMMetrics llmMetrics = new LLMMetrics(meterRegistry);
 
     @InjectMocks
     private SglangService sglangService;
@@ -77,7 +97,7 @@ class SglangServiceTest {
         setupWebClientMocks(mockJsonResponse);
 
         // When
-        LLMResponse response = sglangService.generate(testRequest, startTime);
+        LLMResponse response = sglangService.generate(testRequest, startTime).block();
 
         // Then
         assertNotNull(response);
@@ -94,7 +114,7 @@ class SglangServiceTest {
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            sglangService.generate(testRequest, System.currentTimeMillis());
+            sglangService.generate(testRequest, System.currentTimeMillis()).block();
         });
 
         assertTrue(exception.getMessage().contains("SGLang이 비활성화되어 있습니다"));
@@ -105,32 +125,84 @@ class SglangServiceTest {
         // Given
         long startTime = System.currentTimeMillis();
         
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
+        when(replicaPools.choose(eq("sglang"), anyString(), any())).thenReturn(new EngineReplica("sglang", "http://localhost:30000", webClient));
+        when(concurrencyLimiters.get("sglang")).thenReturn(new AdaptiveConcurrencyLimiter("sglang", new LLMConfig.ConcurrencyLimitConfig()));
         when(webClient.post()).thenReturn(requestBodyUriSpec);
         when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
         when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-        when(requestBodySpec.bodyValue(any())).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any());
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(String.class)).thenReturn(Mono.error(new RuntimeException("Connection failed")));
+        when(responseSpec.bodyToFlux(DataBuffer.class)).thenReturn(Flux.error(new RuntimeException("Connection failed")));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            sglangService.generate(testRequest, startTime);
+            sglangService.generate(testRequest, startTime).block();
         });
 
         assertTrue(exception.getMessage().contains("SGLang 호출 실패"));
     }
 
+    @Test
+    void generateStream_ShouldConvertCumulativeTextToDeltas() {
+        // Given
+        when(replicaPools.choose(eq("sglang"), anyString(), any())).thenReturn(new EngineReplica("sglang", "http://localhost:30000", webClient));
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
+        when(requestBodySpec.accept(any())).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any());
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToFlux(any(ParameterizedTypeReference.class))).thenReturn(Flux.just(
+                ServerSentEvent.builder("{\"text\": \"Artificial\"}").build(),
+                ServerSentEvent.builder("{\"text\": \"Artificial intelligence\"}").build(),
+                ServerSentEvent.builder("[DONE]").build()));
+
+        // When
+        List<String> deltas = sglangService.generateStream(testRequest).collectList().block();
+
+        // Then
+        assertEquals(List.of("Artificial", " intelligence"), deltas);
+    }
+
+    @Test
+    void generateStream_ShouldRecordTimeToFirstTokenAndOutputChunks() {
+        // Given
+        when(replicaPools.choose(eq("sglang"), anyString(), any())).thenReturn(new EngineReplica("sglang", "http://localhost:30000", webClient));
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
+        when(requestBodySpec.accept(any())).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any());
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToFlux(any(ParameterizedTypeReference.class))).thenReturn(Flux.just(
+                ServerSentEvent.builder("{\"text\": \"A\"}").build(),
+                ServerSentEvent.builder("{\"text\": \"AB\"}").build(),
+                ServerSentEvent.builder("{\"text\": \"ABC\"}").build(),
+                ServerSentEvent.builder("[DONE]").build()));
+
+        // When
+        sglangService.generateStream(testRequest).blockLast();
+
+        // Then
+        assertEquals(1, meterRegistry.get("llm.engine.ttft").tags("engine", "sglang", "replica", "sglang-0")
+                .timer().count());
+        assertEquals(3, meterRegistry.get("llm.engine.tokens").tags("type", "output").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("llm.engine.request.duration").tags("outcome", "success").timer().count());
+    }
+
     private void setupWebClientMocks(String mockResponse) {
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
+        when(replicaPools.choose(eq("sglang"), anyString(), any())).thenReturn(new EngineReplica("sglang", "http://localhost:30000", webClient));
+        when(concurrencyLimiters.get("sglang")).thenReturn(new AdaptiveConcurrencyLimiter("sglang", new LLMConfig.ConcurrencyLimitConfig()));
         when(webClient.post()).thenReturn(requestBodyUriSpec);
         when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
         when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-        when(requestBodySpec.bodyValue(any())).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any());
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(String.class))
-                .thenReturn(Mono.just(mockResponse));
+        when(responseSpec.bodyToFlux(DataBuffer.class))
+                .thenReturn(Flux.just(toDataBuffer(mockResponse)));
+    }
+
+    private DataBuffer toDataBuffer(String content) {
+        return new DefaultDataBufferFactory().wrap(content.getBytes(StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
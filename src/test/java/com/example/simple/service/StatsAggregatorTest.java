@@ -0,0 +1,150 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsAggregatorTest {
+
+    private AtomicLong clock;
+    private StatsAggregator statsAggregator;
+
+    @BeforeEach
+    void setUp() {
+        LLMConfig llmConfig = new LLMConfig();
+        llmConfig.getStats().setWindow(Duration.ofSeconds(10));
+        clock = new AtomicLong(1_700_000_000_000L);
+        statsAggregator = new StatsAggregator(llmConfig, clock::get);
+    }
+
+    @Test
+    void snapshot_WithNoRequests_ShouldReturnZeroCounts() {
+        // When
+        Map<String, Object> stats = statsAggregator.snapshot();
+
+        // Then
+        assertEquals(0L, stats.get("total_requests"));
+        assertNull(stats.get("success_rate"));
+        assertNull(stats.get("avg_response_time_ms"));
+        assertEquals(List.of(), stats.get("engine_stats"));
+    }
+
+    @Test
+    void snapshot_ShouldAggregateTotalsAndPercentiles() {
+        // Given - 성공 100건 (1..100ms) + 실패 25건
+        for (int i = 1; i <= 100; i++) {
+            statsAggregator.record("vllm", i, true);
+        }
+        for (int i = 0; i < 25; i++) {
+            statsAggregator.record("vllm", 30_000, false);
+        }
+
+        // When
+        Map<String, Object> stats = statsAggregator.snapshot();
+
+        // Then - 응답 시간은 성공한 요청만 센다
+        assertEquals(125L, stats.get("total_requests"));
+        assertEquals(80.0, stats.get("success_rate"));
+        assertEquals(50.5, stats.get("avg_response_time_ms"));
+        assertEquals(50L, stats.get("p50_ms"));
+        assertTrue((long) stats.get("p99_ms") >= 99);
+        assertTrue((long) stats.get("p99_ms") < 110);
+        assertEquals(125L, stats.get("requests_last_24h"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshot_ShouldSplitByEngineAndMergeIntoTotals() {
+        // Given
+        for (int i = 0; i < 90; i++) {
+            statsAggregator.record("vllm", 60, true);
+        }
+        for (int i = 0; i < 10; i++) {
+            statsAggregator.record("SGLang", 2000, true);
+        }
+        statsAggregator.record(null, 5, false);
+
+        // When
+        Map<String, Object> stats = statsAggregator.snapshot();
+
+        // Then
+        List<Map<String, Object>> engines = (List<Map<String, Object>>) stats.get("engine_stats");
+        assertEquals(List.of("sglang", "unknown", "vllm"),
+                engines.stream().map(e -> e.get("engine")).collect(Collectors.toList()));
+        assertEquals(10L, engines.get(0).get("total_requests"));
+        assertEquals(2000.0, engines.get(0).get("avg_response_time_ms"));
+        assertEquals(60L, engines.get(2).get("p50_ms"));
+        assertEquals(101L, stats.get("total_requests"));
+        assertTrue((long) stats.get("p95_ms") >= 2000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshot_ShouldOnlyCountRecentSecondsInWindow() {
+        // Given - 오래된 느린 요청 20건, 그 뒤 10초 창 안의 빠른 요청 30건 중 3건 실패
+        for (int i = 0; i < 20; i++) {
+            statsAggregator.record("vllm", 5000, true);
+        }
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        for (int i = 0; i < 27; i++) {
+            statsAggregator.record("vllm", 40, true);
+        }
+        for (int i = 0; i < 3; i++) {
+            statsAggregator.record("vllm", 40, false);
+        }
+        clock.addAndGet(Duration.ofSeconds(5).toMillis());
+
+        // When
+        Map<String, Object> stats = statsAggregator.snapshot();
+
+        // Then
+        Map<String, Object> window = (Map<String, Object>) stats.get("window");
+        assertEquals(10, window.get("seconds"));
+        assertEquals(30L, window.get("requests"));
+        assertEquals(3.0, window.get("requests_per_second"));
+        assertEquals(10.0, window.get("error_rate"));
+        assertEquals(40L, window.get("p99_ms"));
+        // 전체 누적 값에는 창 밖의 요청도 남아 있다
+        assertEquals(50L, stats.get("total_requests"));
+        assertTrue((long) stats.get("p99_ms") >= 5000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshot_WhenSlotIsReusedAfterWindow_ShouldDropOldValues() {
+        // Given - 같은 링 칸을 쓰는 10초 뒤의 요청
+        statsAggregator.record("vllm", 10, false);
+        clock.addAndGet(Duration.ofSeconds(10).toMillis());
+        statsAggregator.record("vllm", 20, true);
+
+        // When
+        Map<String, Object> window = (Map<String, Object>) statsAggregator.snapshot().get("window");
+
+        // Then
+        assertEquals(1L, window.get("requests"));
+        assertEquals(0.0, window.get("error_rate"));
+    }
+
+    @Test
+    void snapshot_ShouldExcludeRequestsOlderThan24Hours() {
+        // Given
+        statsAggregator.record("vllm", 10, true);
+        clock.addAndGet(Duration.ofHours(25).toMillis());
+        statsAggregator.record("vllm", 10, true);
+
+        // When
+        Map<String, Object> stats = statsAggregator.snapshot();
+
+        // Then
+        assertEquals(2L, stats.get("total_requests"));
+        assertEquals(1L, stats.get("requests_last_24h"));
+    }
+}
\ No newline at end of file
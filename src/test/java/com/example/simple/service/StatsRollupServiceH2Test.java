@@ -0,0 +1,107 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StatsRollupService 의 SQL (MERGE ... USING (SELECT ? ... FROM DUAL), 백필 집계, 기간 조회) 을
+ * schema.sql 로 만든 H2 (Oracle 호환 모드) 에 실제로 실행해 본다.
+ */
+class StatsRollupServiceH2Test {
+
+    private static final LocalDateTime HOUR = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private StatsRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:rollup-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=Oracle", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("sql/schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        rollupService = new StatsRollupService(new LLMConfig(), jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void apply_ShouldInsertThenAccumulateRollupRows() {
+        // Given - 같은 시간 배치 두 번, sglang 은 실패만
+        List<Object[]> first = List.of(
+                row(HOUR.plusMinutes(5), "vllm", 200L, true),
+                row(HOUR.plusMinutes(30), "vllm", 100L, false),
+                row(HOUR.plusMinutes(10), "sglang", 700L, false));
+        List<Object[]> second = List.<Object[]>of(row(HOUR.plusMinutes(50), "vllm", 3000L, true));
+
+        // When
+        rollupService.apply(first);
+        rollupService.apply(second);
+        Map<String, Object> summary = rollupService.summary(HOUR, HOUR.plusHours(1), null);
+
+        // Then
+        assertEquals(4L, summary.get("total_requests"));
+        assertEquals(2L, summary.get("success_count"));
+        assertEquals(200L, summary.get("min_response_time_ms"));
+        assertEquals(3000L, summary.get("max_response_time_ms"));
+        List<Map<String, Object>> engines = (List<Map<String, Object>>) summary.get("engine_stats");
+        assertEquals("sglang", engines.get(0).get("engine"));
+        assertNull(engines.get(0).get("min_response_time_ms"));
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT LATENCY_MIN_MS FROM LLM_STATS_HOURLY WHERE ENGINE = 'sglang'", Long.class));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "SELECT BUCKET_250 FROM LLM_STATS_HOURLY WHERE ENGINE = 'vllm'", Long.class));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "SELECT BUCKET_5000 FROM LLM_STATS_HOURLY WHERE ENGINE = 'vllm'", Long.class));
+    }
+
+    @Test
+    void backfill_ShouldReplaceRollupWithValuesFromLogs() {
+        // Given - 롤업에는 잘못 더해진 값, LLM_LOGS 에는 10시 vllm 3건 (성공 2)
+        rollupService.apply(List.<Object[]>of(row(HOUR, "vllm", 9000L, true)));
+        insertLog(HOUR.plusMinutes(1), "vllm", 400L, true);
+        insertLog(HOUR.plusMinutes(2), "vllm", 1200L, true);
+        insertLog(HOUR.plusMinutes(3), "vllm", 50L, false);
+
+        // When - 11시는 로그가 없으므로 건드리지 않는다
+        int hours = rollupService.backfill(HOUR, HOUR.plusHours(2));
+        Map<String, Object> summary = rollupService.summary(HOUR, HOUR.plusHours(2), "vllm");
+
+        // Then
+        assertEquals(2, hours);
+        assertEquals(3L, summary.get("total_requests"));
+        assertEquals(2L, summary.get("success_count"));
+        assertEquals(800.0, summary.get("avg_response_time_ms"));
+        assertEquals(400L, summary.get("min_response_time_ms"));
+        assertEquals(1200L, summary.get("max_response_time_ms"));
+        assertEquals(1200L, summary.get("p95_ms"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LLM_STATS_HOURLY", Integer.class));
+    }
+
+    private void insertLog(LocalDateTime time, String engine, long responseTime, boolean success) {
+        jdbcTemplate.update("INSERT INTO LLM_LOGS (REQUEST_TIME, ENGINE, RESPONSE_TIME_MS, SUCCESS) VALUES (?, ?, ?, ?)",
+                Timestamp.valueOf(time), engine, responseTime, success ? 1 : 0);
+    }
+
+    private static Object[] row(LocalDateTime time, String engine, long responseTime, boolean success) {
+        return new Object[]{Timestamp.valueOf(time), engine, "prompt", "response", responseTime, success ? 1 : 0};
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatsRollupServiceTest {
+
+    private static final LocalDateTime HOUR = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private StatsRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new StatsRollupService(new LLMConfig(), jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void apply_ShouldGroupBatchByHourAndEngine() {
+        // Given
+        List<Object[]> batch = List.of(
+                row(HOUR.plusMinutes(5), "vllm", 200L, true),
+                row(HOUR.plusMinutes(59), "vllm", 3000L, true),
+                row(HOUR.plusMinutes(30), "vllm", 100L, false),
+                row(HOUR.plusMinutes(10), "sglang", 700L, true),
+                row(HOUR.plusHours(1), "vllm", 400L, true));
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+
+        // When
+        rollupService.apply(batch);
+
+        // Then - (10시, sglang), (10시, vllm), (11시, vllm)
+        verify(jdbcTemplate).batchUpdate(eq(StatsRollupService.UPSERT_INCREMENT_SQL), args.capture());
+        List<Object[]> rows = args.getValue();
+        assertEquals(3, rows.size());
+        Object[] vllm = rows.get(1);
+        assertEquals(Timestamp.valueOf(HOUR), vllm[0]);
+        assertEquals("vllm", vllm[1]);
+        // 요청 3, 성공 2, 합계 3200, 최소 200, 최대 3000, 250ms 이하 1건, 5000ms 이하 1건
+        assertArrayEquals(new Object[]{3L, 2L, 3200L, 200L, 3000L, 1L, 0L, 0L, 0L, 1L, 0L, 0L, 0L, 0L},
+                Arrays.copyOfRange(vllm, 2, vllm.length));
+        assertEquals(Timestamp.valueOf(HOUR.plusHours(1)), rows.get(2)[0]);
+    }
+
+    @Test
+    void apply_WithOnlyFailures_ShouldSendZeroLatencyBounds() {
+        // When
+        rollupService.apply(List.<Object[]>of(row(HOUR, "vllm", 100L, false)));
+
+        // Then - SQL 에서 성공 0건이면 최소/최대를 NULL 로 바꾼다
+        verify(jdbcTemplate).batchUpdate(eq(StatsRollupService.UPSERT_INCREMENT_SQL),
+                argThatRow(row -> row[2].equals(1L) && row[3].equals(0L) && row[5].equals(0L) && row[6].equals(0L)));
+    }
+
+    @Test
+    void backfill_ShouldReaggregateEachHourFromLogs() {
+        // Given
+        when(jdbcTemplate.query(eq(StatsRollupService.BACKFILL_SELECT_SQL), any(RowMapper.class), any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{Timestamp.valueOf(HOUR), "vllm"}))
+                .thenReturn(List.of());
+
+        // When
+        int hours = rollupService.backfill(HOUR.plusMinutes(15), HOUR.plusHours(2));
+
+        // Then - 10시, 11시 두 시간을 조회하고, 로그가 있는 시간만 덮어쓴다
+        assertEquals(2, hours);
+        verify(jdbcTemplate).query(eq(StatsRollupService.BACKFILL_SELECT_SQL), any(RowMapper.class),
+                eq(Timestamp.valueOf(HOUR)), eq(Timestamp.valueOf(HOUR.plusHours(1))));
+        verify(jdbcTemplate).query(eq(StatsRollupService.BACKFILL_SELECT_SQL), any(RowMapper.class),
+                eq(Timestamp.valueOf(HOUR.plusHours(1))), eq(Timestamp.valueOf(HOUR.plusHours(2))));
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(StatsRollupService.UPSERT_REPLACE_SQL), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void summary_ShouldMergeHourlyRowsAndEstimatePercentiles() throws SQLException {
+        // Given - vllm 두 시간 (성공 100건), sglang 한 시간 (실패만)
+        ResultSet first = resultSet("vllm", 60, 60, 12_000, 150, 900, new long[]{30, 20, 10, 0, 0, 0, 0, 0, 0});
+        ResultSet second = resultSet("vllm", 40, 40, 80_000, 400, 8000, new long[]{0, 10, 10, 10, 5, 5, 0, 0, 0});
+        ResultSet failed = resultSet("sglang", 5, 0, 0, 0, 0, new long[9]);
+        when(jdbcTemplate.query(eq(StatsRollupService.RANGE_SQL + " ORDER BY HOUR_START, ENGINE"),
+                any(RowMapper.class), any(), any()))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<Object> rows = new ArrayList<>();
+                    for (ResultSet rs : List.of(first, second, failed)) {
+                        rows.add(mapper.mapRow(rs, rows.size()));
+                    }
+                    return rows;
+                });
+
+        // When
+        Map<String, Object> summary = rollupService.summary(HOUR.plusMinutes(20), HOUR.plusHours(3), null);
+
+        // Then
+        assertEquals("2024-01-01T10:00", summary.get("from"));
+        assertEquals(105L, summary.get("total_requests"));
+        assertEquals(100L, summary.get("success_count"));
+        assertEquals(920.0, summary.get("avg_response_time_ms"));
+        assertEquals(150L, summary.get("min_response_time_ms"));
+        assertEquals(8000L, summary.get("max_response_time_ms"));
+        // 누적: 250 이하 30, 500 이하 60, 1000 이하 80, 2500 이하 90, 5000 이하 95, 10000 이하 100
+        assertEquals(500L, summary.get("p50_ms"));
+        assertEquals(5000L, summary.get("p95_ms"));
+        assertEquals(8000L, summary.get("p99_ms"));
+
+        List<Map<String, Object>> engines = (List<Map<String, Object>>) summary.get("engine_stats");
+        assertEquals("sglang", engines.get(0).get("engine"));
+        assertEquals(0.0, engines.get(0).get("success_rate"));
+        assertNull(engines.get(0).get("p50_ms"));
+        assertEquals(100L, engines.get(1).get("total_requests"));
+    }
+
+    @Test
+    void sql_ShouldCoverEveryBucketColumn() {
+        for (String column : StatsRollupService.BUCKET_COLUMNS) {
+            assertTrue(StatsRollupService.UPSERT_INCREMENT_SQL.contains(column + " = t." + column + " + s." + column));
+            assertTrue(StatsRollupService.UPSERT_REPLACE_SQL.contains(column + " = s." + column));
+            assertTrue(StatsRollupService.BACKFILL_SELECT_SQL.contains("AS " + column));
+            assertTrue(StatsRollupService.RANGE_SQL.contains(column));
+        }
+        assertEquals(0, StatsRollupService.bucketIndex(250));
+        assertEquals(1, StatsRollupService.bucketIndex(251));
+        assertEquals(StatsRollupService.BUCKET_BOUNDS_MS.length, StatsRollupService.bucketIndex(60_001));
+    }
+
+    private static Object[] row(LocalDateTime time, String engine, long responseTime, boolean success) {
+        return new Object[]{Timestamp.valueOf(time), engine, "prompt", "response", responseTime, success ? 1 : 0};
+    }
+
+    private static List<Object[]> argThatRow(java.util.function.Predicate<Object[]> predicate) {
+        return argThat(rows -> rows.size() == 1 && predicate.test(rows.get(0)));
+    }
+
+    private static ResultSet resultSet(String engine, long requests, long successes, long latencySum,
+                                       long latencyMin, long latencyMax, long[] buckets) throws SQLException {
+        Map<String, Long> values = new HashMap<>();
+        values.put("REQUEST_COUNT", requests);
+        values.put("SUCCESS_COUNT", successes);
+        values.put("LATENCY_SUM_MS", latencySum);
+        values.put("LATENCY_MIN_MS", latencyMin);
+        values.put("LATENCY_MAX_MS", latencyMax);
+        for (int i = 0; i < buckets.length; i++) {
+            values.put(StatsRollupService.BUCKET_COLUMNS.get(i), buckets[i]);
+        }
+        ResultSet rs = mock(ResultSet.class);
+        lenient().when(rs.getString("ENGINE")).thenReturn(engine);
+        lenient().when(rs.getTimestamp("HOUR_START")).thenReturn(Timestamp.valueOf(HOUR));
+        lenient().when(rs.getLong(anyString())).thenAnswer(invocation -> values.get(invocation.<String>getArgument(0)));
+        return rs;
+    }
+}
\ No newline at end of file
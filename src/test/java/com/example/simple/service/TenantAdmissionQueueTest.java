@@ -0,0 +1,265 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantAdmissionQueueTest {
+
+    private LLMConfig llmConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private TenantAdmissionQueue admissionQueue;
+
+    @BeforeEach
+    void setUp() {
+        llmConfig = new LLMConfig();
+        llmConfig.getAdmission().setMaxInFlight(1);
+        llmConfig.getAdmission().setMaxQueueSize(10);
+        llmConfig.getAdmission().setMaxQueueWait(Duration.ofSeconds(5));
+        meterRegistry = new SimpleMeterRegistry();
+        admissionQueue = new TenantAdmissionQueue(llmConfig, meterRegistry);
+    }
+
+    @Test
+    void admit_WhenSaturated_ShouldServeTenantsByWeightInsteadOfArrivalOrder() {
+        // Given - interactive 는 batch 보다 두 배 가중치
+        LLMConfig.TenantConfig interactive = new LLMConfig.TenantConfig();
+        interactive.setWeight(2);
+        llmConfig.getAdmission().getTenants().put("interactive", interactive);
+
+        MonoProcessor<String> blocker = MonoProcessor.create();
+        admissionQueue.admit("batch", () -> blocker).subscribe();
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            admissionQueue.admit("batch", () -> Mono.fromRunnable(() -> order.add("batch"))).subscribe();
+        }
+        for (int i = 0; i < 2; i++) {
+            admissionQueue.admit("interactive", () -> Mono.fromRunnable(() -> order.add("interactive"))).subscribe();
+        }
+        assertEquals(6, admissionQueue.getQueueDepth());
+
+        // When
+        blocker.onNext("done");
+
+        // Then - 먼저 쌓인 batch 요청이 interactive 를 뒤로 밀어내지 못한다
+        assertEquals(List.of("batch", "interactive", "interactive", "batch", "batch", "batch"), order);
+        assertEquals(0, admissionQueue.getQueueDepth());
+        assertEquals(0, admissionQueue.getInFlight());
+        assertEquals(2, meterRegistry.find("llm.admission.queue.wait")
+                .tag("tenant", "interactive").timer().count());
+    }
+
+    @Test
+    void admit_WhenTenantReachesItsMaxInFlight_ShouldLetOtherTenantsThrough() {
+        // Given
+        llmConfig.getAdmission().setMaxInFlight(10);
+        LLMConfig.TenantConfig batch = new LLMConfig.TenantConfig();
+        batch.setMaxInFlight(1);
+        llmConfig.getAdmission().getTenants().put("batch", batch);
+        admissionQueue.admit("batch", Mono::never).subscribe();
+        admissionQueue.admit("batch", Mono::never).subscribe();
+
+        // When
+        String result = admissionQueue.admit("interactive", () -> Mono.just("ok")).block(Duration.ofSeconds(1));
+
+        // Then
+        assertEquals("ok", result);
+        assertEquals(1, admissionQueue.getInFlight("batch"));
+        assertEquals(1, admissionQueue.getQueueDepth());
+    }
+
+    @Test
+    void admit_WhenQueueIsFull_ShouldReject() {
+        // Given
+        llmConfig.getAdmission().setMaxQueueSize(1);
+        admissionQueue.admit("batch", Mono::never).subscribe();
+        admissionQueue.admit("batch", Mono::never).subscribe();
+
+        // When & Then
+        assertThrows(ConcurrencyLimitExceededException.class,
+                () -> admissionQueue.admit("batch", () -> Mono.just("rejected")).block());
+        assertEquals(1, meterRegistry.find("llm.admission.rejected").tag("tenant", "other").counter().count());
+    }
+
+    @Test
+    void admit_WhenQueueWaitExpires_ShouldReject() {
+        // Given
+        llmConfig.getAdmission().setMaxQueueWait(Duration.ofMillis(50));
+        admissionQueue.admit("batch", Mono::never).subscribe();
+
+        // When & Then
+        assertThrows(ConcurrencyLimitExceededException.class,
+                () -> admissionQueue.admit("interactive", () -> Mono.just("late")).block(Duration.ofSeconds(5)));
+        assertEquals(0, admissionQueue.getQueueDepth());
+    }
+
+    @Test
+    void admit_WhenCancelled_ShouldFreeSlotAndQueueEntry() {
+        // Given
+        Disposable running = admissionQueue.admit("batch", Mono::never).subscribe();
+        Disposable waiting = admissionQueue.admit("batch", Mono::never).subscribe();
+
+        // When
+        waiting.dispose();
+        running.dispose();
+
+        // Then
+        assertEquals(0, admissionQueue.getQueueDepth());
+        assertEquals(0, admissionQueue.getInFlight());
+        assertEquals("ok", admissionQueue.admit("batch", () -> Mono.just("ok")).block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void admit_WhenQueuedRequestIsCancelledDuringDispatch_ShouldNotLeakSlot() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            // Given - 자리 하나를 잡고 있는 요청과 그 뒤에 줄 선 요청
+            admissionQueue = new TenantAdmissionQueue(llmConfig, meterRegistry);
+            MonoProcessor<String> running = MonoProcessor.create();
+            admissionQueue.admit("batch", () -> running).subscribe();
+            Disposable waiting = admissionQueue.admit("batch", () -> Mono.just("ok")).subscribe();
+
+            // When - 자리 반납(dispatch 가 대기 요청을 꺼냄)과 대기 요청 취소가 동시에 일어난다
+            runConcurrently(() -> running.onNext("done"), waiting::dispose);
+
+            // Then - 어느 쪽이 이기든 자리와 대기열 항목은 남지 않는다
+            assertEquals(0, admissionQueue.getInFlight(), "iteration " + i);
+            assertEquals(0, admissionQueue.getQueueDepth(), "iteration " + i);
+        }
+    }
+
+    @Test
+    void admit_WhenQueuedRequestIsCancelledAsItExpires_ShouldNotReleaseSlotItNeverHeld() throws Exception {
+        llmConfig.getAdmission().setMaxQueueWait(Duration.ofMillis(1));
+        for (int i = 0; i < 200; i++) {
+            // Given
+            admissionQueue = new TenantAdmissionQueue(llmConfig, meterRegistry);
+            admissionQueue.admit("batch", Mono::never).subscribe();
+            Disposable waiting = admissionQueue.admit("batch", () -> Mono.just("late"))
+                    .subscribe(value -> { }, error -> { });
+
+            // When - 대기 시간 만료(타이머가 대기열에서 빼냄)와 취소가 거의 같은 때 일어난다
+            Thread.sleep(1);
+            waiting.dispose();
+
+            // Then - 자리는 처음 요청이 그대로 잡고 있다
+            assertEquals(1, admissionQueue.getInFlight(), "iteration " + i);
+            assertEquals(0, admissionQueue.getQueueDepth(), "iteration " + i);
+        }
+    }
+
+    @Test
+    void admit_WithShortestJobFirst_ShouldServeCheapestQueuedRequestFirst() {
+        // Given
+        llmConfig.getAdmission().setOrdering("sjf");
+        MonoProcessor<String> blocker = MonoProcessor.create();
+        admissionQueue.admit("batch", 0, () -> blocker).subscribe();
+        List<String> order = new ArrayList<>();
+        admissionQueue.admit("batch", 4000, () -> Mono.fromRunnable(() -> order.add("large"))).subscribe();
+        admissionQueue.admit("batch", 50, () -> Mono.fromRunnable(() -> order.add("small"))).subscribe();
+        admissionQueue.admit("batch", 500, () -> Mono.fromRunnable(() -> order.add("medium"))).subscribe();
+
+        // When
+        blocker.onNext("done");
+
+        // Then
+        assertEquals(List.of("small", "medium", "large"), order);
+    }
+
+    @Test
+    void admit_WithShortestJobFirst_ShouldAgeLongWaitingRequestsAhead() {
+        // Given - 초당 1000 토큰씩 비용을 깎아 준다
+        AtomicLong clock = new AtomicLong();
+        llmConfig.getAdmission().setOrdering("sjf");
+        llmConfig.getAdmission().setAgingTokensPerSecond(1000);
+        admissionQueue = new TenantAdmissionQueue(llmConfig, meterRegistry, clock::get);
+        MonoProcessor<String> blocker = MonoProcessor.create();
+        admissionQueue.admit("batch", 0, () -> blocker).subscribe();
+        List<String> order = new ArrayList<>();
+        admissionQueue.admit("batch", 4000, () -> Mono.fromRunnable(() -> order.add("large"))).subscribe();
+
+        // When - 5초 뒤에 들어온 작은 요청 (100 + 5000 > 4000)
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        admissionQueue.admit("batch", 100, () -> Mono.fromRunnable(() -> order.add("small"))).subscribe();
+        blocker.onNext("done");
+
+        // Then
+        assertEquals(List.of("large", "small"), order);
+    }
+
+    @Test
+    void admit_WhenDisabled_ShouldPassThrough() {
+        // Given
+        llmConfig.getAdmission().setEnabled(false);
+        admissionQueue.admit("batch", Mono::never).subscribe();
+
+        // When & Then
+        assertEquals("ok", admissionQueue.admit("batch", () -> Mono.just("ok")).block());
+        assertEquals(0, admissionQueue.getInFlight());
+    }
+
+    @Test
+    void resolveTenant_ShouldPreferApiKeyThenConfiguredTenantHeader() {
+        // Given
+        llmConfig.getAdmission().getApiKeys().put("secret-key", "interactive");
+        llmConfig.getAdmission().getTenants().put("batch", new LLMConfig.TenantConfig());
+        HttpHeaders withTenantAndKey = new HttpHeaders();
+        withTenantAndKey.set("X-Tenant-Id", "batch");
+        withTenantAndKey.set("X-API-Key", "secret-key");
+        HttpHeaders withMappedKey = new HttpHeaders();
+        withMappedKey.set("X-API-Key", "secret-key");
+        HttpHeaders withUnknownKey = new HttpHeaders();
+        withUnknownKey.set("X-API-Key", "unknown-key");
+        HttpHeaders withOtherUnknownKey = new HttpHeaders();
+        withOtherUnknownKey.set("X-API-Key", "another-random-key");
+        HttpHeaders withConfiguredTenant = new HttpHeaders();
+        withConfiguredTenant.set("X-Tenant-Id", "batch");
+        HttpHeaders withUnknownTenant = new HttpHeaders();
+        withUnknownTenant.set("X-Tenant-Id", "random-1234");
+
+        // When & Then
+        assertEquals("interactive", admissionQueue.resolveTenant(withTenantAndKey));
+        assertEquals("interactive", admissionQueue.resolveTenant(withMappedKey));
+        assertEquals("batch", admissionQueue.resolveTenant(withConfiguredTenant));
+        assertEquals(TenantAdmissionQueue.DEFAULT_TENANT, admissionQueue.resolveTenant(withUnknownTenant));
+        // 설정에 없는 키는 키마다 대기열을 만들지 않고 기본 테넌트 하나로 모인다
+        assertEquals(TenantAdmissionQueue.DEFAULT_TENANT, admissionQueue.resolveTenant(withUnknownKey));
+        assertEquals(admissionQueue.resolveTenant(withUnknownKey), admissionQueue.resolveTenant(withOtherUnknownKey));
+        assertEquals(TenantAdmissionQueue.DEFAULT_TENANT, admissionQueue.resolveTenant(new HttpHeaders()));
+    }
+
+    private static void runConcurrently(Runnable first, Runnable second) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable action : List.of(first, second)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                action.run();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.simple.service;
+
+import com.example.simple.config.LLMConfig;
+import com.example.simple.dto.LLMRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCostEstimatorTest {
+
+    private final LLMConfig llmConfig = new LLMConfig();
+    private final TokenCostEstimator estimator = new TokenCostEstimator(llmConfig);
+
+    @Test
+    void estimate_ShouldAddInputEstimateAndMaxTokens() {
+        // Given
+        LLMRequest request = new LLMRequest();
+        request.setPrompt("12345678");
+        request.setMaxTokens(50);
+
+        // When & Then
+        assertEquals(2 + 50, estimator.estimate("vllm", request));
+    }
+
+    @Test
+    void estimate_WithoutMaxTokens_ShouldUseEngineDefault() {
+        // Given
+        LLMRequest request = new LLMRequest();
+        request.setPrompt("");
+
+        // When & Then
+        assertEquals(llmConfig.getSglang().getMaxTokens(), estimator.estimate("sglang", request));
+    }
+
+    @Test
+    void estimateInputTokens_ShouldCountNonAsciiCharactersAsOneTokenEach() {
+        // When & Then - ASCII 4자당 1토큰, 한글은 글자당 1토큰
+        assertEquals(1 + 3, TokenCostEstimator.estimateInputTokens("abc 안녕하"));
+        assertEquals(1, TokenCostEstimator.estimateInputTokens("😀"));
+        assertEquals(0, TokenCostEstimator.estimateInputTokens(null));
+    }
+}
\ No newline at end of file
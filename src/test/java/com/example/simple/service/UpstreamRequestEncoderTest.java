@@ -0,0 +1,87 @@
+package com.example.simple.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamRequestEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UpstreamRequestEncoder encoder = new UpstreamRequestEncoder(objectMapper);
+
+    @Test
+    void encodeVllm_ShouldWriteCompletionsWireFormat() throws Exception {
+        JsonNode body = decode(encoder.encodeVllm("Hello \"world\"\n안녕", 100, 0.5, false));
+
+        assertEquals("default", body.get("model").asText());
+        assertEquals("Hello \"world\"\n안녕", body.get("prompt").asText());
+        assertEquals(100, body.get("max_tokens").asInt());
+        assertEquals(0.5, body.get("temperature").asDouble(), 0.0001);
+        assertFalse(body.get("stream").asBoolean());
+    }
+
+    @Test
+    void encodeSglang_ShouldWriteGenerateWireFormat() throws Exception {
+        JsonNode body = decode(encoder.encodeSglang("What is AI?", 200, 0.7, true));
+
+        assertEquals("What is AI?", body.get("text").asText());
+        JsonNode samplingParams = body.get("sampling_params");
+        assertEquals(200, samplingParams.get("max_new_tokens").asInt());
+        assertEquals(0.7, samplingParams.get("temperature").asDouble(), 0.0001);
+        assertEquals(0.9, samplingParams.get("top_p").asDouble(), 0.0001);
+        assertTrue(body.get("stream").asBoolean());
+    }
+
+    @Test
+    void encodeSglang_WithoutStream_ShouldOmitTopLevelStreamFlag() throws Exception {
+        JsonNode body = decode(encoder.encodeSglang("What is AI?", 200, 0.7, false));
+
+        assertNull(body.get("stream"));
+    }
+
+    @Test
+    void encodeVllmBatch_ShouldWritePromptArray() throws Exception {
+        JsonNode body = decode(encoder.encodeVllmBatch(Arrays.asList("first", "두번째"), 64, 0.0));
+
+        JsonNode prompts = body.get("prompt");
+        assertTrue(prompts.isArray());
+        assertEquals(2, prompts.size());
+        assertEquals("두번째", prompts.get(1).asText());
+        assertEquals(64, body.get("max_tokens").asInt());
+        assertFalse(body.get("stream").asBoolean());
+    }
+
+    @Test
+    void encodeSglangBatch_ShouldWriteTextList() throws Exception {
+        JsonNode body = decode(encoder.encodeSglangBatch(Arrays.asList("a", "b", "c"), 32, 0.3));
+
+        assertEquals(3, body.get("text").size());
+        assertEquals("c", body.get("text").get(2).asText());
+        assertEquals(32, body.get("sampling_params").get("max_new_tokens").asInt());
+        assertNull(body.get("stream"));
+    }
+
+    @Test
+    void encode_WithLongPrompt_ShouldGrowBuffer() throws Exception {
+        String prompt = "\u0001".repeat(1000);
+
+        JsonNode body = decode(encoder.encodeVllm(prompt, 1, 0.0, false));
+
+        assertEquals(prompt, body.get("prompt").asText());
+    }
+
+    private JsonNode decode(DataBuffer buffer) throws Exception {
+        try {
+            return objectMapper.readTree(buffer.toString(StandardCharsets.UTF_8));
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
\ No newline at end of file
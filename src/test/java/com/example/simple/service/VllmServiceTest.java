@@ -4,15 +4,21 @@ import com.example.simple.config.LLMConfig;
 import com.example.simple.dto.LLMRequest;
 import com.example.simple.dto.LLMResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,7 +32,10 @@ class VllmServiceTest {
     private LLMConfig llmConfig;
 
     @Mock
-    private WebClient.Builder webClientBuilder;
+    private EngineReplicaPools replicaPools;
+
+    @Mock
+    private EngineConcurrencyLimiters concurrencyLimiters;
 
     @Mock
     private WebClient webClient;
@@ -40,8 +49,16 @@ class VllmServiceTest {
     @Mock
     private WebClient.ResponseSpec responseSpec;
 
-    @Mock
-    private ObjectMapper objectMapper;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private UpstreamRequestEncoder requestEncoder = new UpstreamRequestEncoder(new ObjectMapper());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private LLMMetrics llmMetrics = new LLMMetrics(meterRegistry);
 
     @InjectMocks
     private VllmService vllmService;
@@ -83,7 +100,7 @@ class VllmServiceTest {
         setupWebClientMocks(mockJsonResponse);
 
         // When
-        LLMResponse response = vllmService.generate(testRequest, startTime);
+        LLMResponse response = vllmService.generate(testRequest, startTime).block();
 
         // Then
         assertNotNull(response);
@@ -93,6 +110,27 @@ class VllmServiceTest {
         assertTrue(response.getResponseTimeMs() >= 0);
     }
 
+    @Test
+    void generate_ShouldRecordEngineMetricsWithReplicaAndTokenUsage() throws Exception {
+        // Given
+        setupWebClientMocks("{\"choices\":[{\"text\":\"hi\"}],"
+                + "\"usage\":{\"prompt_tokens\":4,\"completion_tokens\":20}}");
+
+        // When
+        vllmService.generate(testRequest, System.currentTimeMillis()).block();
+
+        // Then
+        assertEquals(1, meterRegistry.get("llm.engine.request.duration")
+                .tags("engine", "vllm", "replica", "vllm-0", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("llm.engine.queue.wait")
+                .tags("engine", "vllm", "replica", "vllm-0").timer().count());
+        assertEquals(4, meterRegistry.get("llm.engine.tokens")
+                .tags("replica", "vllm-0", "type", "input").summary().totalAmount());
+        assertEquals(20, meterRegistry.get("llm.engine.tokens")
+                .tags("replica", "vllm-0", "type", "output").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("llm.engine.tokens.per.second").summary().count());
+    }
+
     @Test
     void generate_WhenVllmDisabled_ShouldThrowException() {
         // Given
@@ -100,7 +138,7 @@ class VllmServiceTest {
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            vllmService.generate(testRequest, System.currentTimeMillis());
+            vllmService.generate(testRequest, System.currentTimeMillis()).block();
         });
 
         assertTrue(exception.getMessage().contains("vLLM이 비활성화되어 있습니다"));
@@ -111,18 +149,18 @@ class VllmServiceTest {
         // Given
         long startTime = System.currentTimeMillis();
         
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
+        when(replicaPools.choose(eq("vllm"), anyString(), any())).thenReturn(new EngineReplica("vllm", "http://localhost:8000", webClient));
+        when(concurrencyLimiters.get("vllm")).thenReturn(new AdaptiveConcurrencyLimiter("vllm", new LLMConfig.ConcurrencyLimitConfig()));
         when(webClient.post()).thenReturn(requestBodyUriSpec);
         when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
         when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-        when(requestBodySpec.bodyValue(any())).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any());
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(String.class)).thenReturn(Mono.error(new RuntimeException("Connection failed")));
+        when(responseSpec.bodyToFlux(DataBuffer.class)).thenReturn(Flux.error(new RuntimeException("Connection failed")));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            vllmService.generate(testRequest, startTime);
+            vllmService.generate(testRequest, startTime).block();
         });
 
         assertTrue(exception.getMessage().contains("vLLM 호출 실패"));
@@ -133,36 +171,40 @@ class VllmServiceTest {
         // Given
         long startTime = System.currentTimeMillis();
         
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
+        when(replicaPools.choose(eq("vllm"), anyString(), any())).thenReturn(new EngineReplica("vllm", "http://localhost:8000", webClient));
+        when(concurrencyLimiters.get("vllm")).thenReturn(new AdaptiveConcurrencyLimiter("vllm", new LLMConfig.ConcurrencyLimitConfig()));
         when(webClient.post()).thenReturn(requestBodyUriSpec);
         when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
         when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-        when(requestBodySpec.bodyValue(any())).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any());
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(String.class))
-                .thenReturn(Mono.delay(Duration.ofSeconds(35)).then(Mono.just("response")));
+        when(responseSpec.bodyToFlux(DataBuffer.class))
+                .thenReturn(Mono.delay(Duration.ofSeconds(35)).thenMany(Flux.just(toDataBuffer("response"))));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            vllmService.generate(testRequest, startTime);
+            vllmService.generate(testRequest, startTime).block();
         });
 
         assertTrue(exception.getMessage().contains("vLLM 호출 실패"));
     }
 
     private void setupWebClientMocks(String mockResponse) throws Exception {
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
+        when(replicaPools.choose(eq("vllm"), anyString(), any())).thenReturn(new EngineReplica("vllm", "http://localhost:8000", webClient));
+        when(concurrencyLimiters.get("vllm")).thenReturn(new AdaptiveConcurrencyLimiter("vllm", new LLMConfig.ConcurrencyLimitConfig()));
         when(webClient.post()).thenReturn(requestBodyUriSpec);
         when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
         when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-        when(requestBodySpec.bodyValue(any())).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any());
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(String.class))
-                .thenReturn(Mono.just(mockResponse));
+        when(responseSpec.bodyToFlux(DataBuffer.class))
+                .thenReturn(Flux.just(toDataBuffer(mockResponse)));
 
         // ObjectMapper mock 설정은 실제 구현에 따라 조정 필요
         // 여기서는 간단하게 extractText 메서드가 정상 동작한다고 가정
     }
+
+    private DataBuffer toDataBuffer(String content) {
+        return new DefaultDataBufferFactory().wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
 }
\ No newline at end of file